@@ -0,0 +1,27 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.enums.CardCipherMode;
+import com.example.bankcards.security.crypto.CardCryptoEngine;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+public class CardCryptoConfig {
+
+    @Bean
+    public Map<CardCipherMode, CardCryptoEngine> cardCryptoEngines(ListableBeanFactory beanFactory) {
+        Map<CardCipherMode, CardCryptoEngine> map = new EnumMap<>(CardCipherMode.class);
+
+        Map<String, CardCryptoEngine> beans = beanFactory.getBeansOfType(CardCryptoEngine.class);
+
+        for (CardCryptoEngine value : beans.values()) {
+            map.put(value.getMode(), value);
+        }
+
+        return map;
+    }
+}
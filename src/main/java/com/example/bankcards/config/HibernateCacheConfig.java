@@ -0,0 +1,104 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.time.Duration;
+import java.util.OptionalLong;
+
+/**
+ * Кэш второго уровня Hibernate на локальном JCache-провайдере (Caffeine).
+ * <p>
+ * Регионы создаются здесь, а не по умолчанию провайдера, чтобы у каждого был свой размер и TTL:
+ * {@link UserEntity#CACHE_REGION}, {@link UserEntity#USERNAME_CACHE_REGION} и {@link CardEntity#CACHE_REGION}.
+ * Статистика попаданий и промахов собирается Hibernate и отдаётся через {@code CacheStatsService}.
+ * </p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * cache:
+ *   second-level:
+ *     enabled: true
+ *     statistics-enabled: true
+ *     users:
+ *       size: 10000
+ *       ttl: PT10M
+ * </pre>
+ */
+@Slf4j
+@Configuration
+public class HibernateCacheConfig {
+
+    @Value("${cache.second-level.enabled:true}")
+    private boolean enabled;
+
+    @Value("${cache.second-level.statistics-enabled:true}")
+    private boolean statisticsEnabled;
+
+    @Value("${cache.second-level.users.size:10000}")
+    private long usersSize;
+
+    @Value("${cache.second-level.users.ttl:PT10M}")
+    private Duration usersTtl;
+
+    @Value("${cache.second-level.users-by-username.size:10000}")
+    private long usernamesSize;
+
+    @Value("${cache.second-level.users-by-username.ttl:PT10M}")
+    private Duration usernamesTtl;
+
+    @Value("${cache.second-level.cards.size:100000}")
+    private long cardsSize;
+
+    @Value("${cache.second-level.cards.ttl:PT5M}")
+    private Duration cardsTtl;
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheCustomizer() {
+        return properties -> {
+            properties.put(AvailableSettings.GENERATE_STATISTICS, statisticsEnabled);
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            if (!enabled) {
+                log.info("[INFO] Кэш второго уровня Hibernate отключён");
+                return;
+            }
+
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, secondLevelCacheManager());
+        };
+    }
+
+    private CacheManager secondLevelCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager();
+
+        createRegion(cacheManager, UserEntity.CACHE_REGION, usersSize, usersTtl);
+        createRegion(cacheManager, UserEntity.USERNAME_CACHE_REGION, usernamesSize, usernamesTtl);
+        createRegion(cacheManager, CardEntity.CACHE_REGION, cardsSize, cardsTtl);
+        return cacheManager;
+    }
+
+    private void createRegion(CacheManager cacheManager, String region, long size, Duration ttl) {
+        if (cacheManager.getCache(region) != null) {
+            return;
+        }
+
+        var configuration = new CaffeineConfiguration<Object, Object>();
+        configuration.setMaximumSize(OptionalLong.of(size));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStatisticsEnabled(statisticsEnabled);
+        cacheManager.createCache(region, configuration);
+        log.info("[INFO] Регион кэша второго уровня [{}]: size={}, ttl={}", region, size, ttl);
+    }
+}
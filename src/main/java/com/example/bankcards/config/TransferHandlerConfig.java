@@ -0,0 +1,29 @@
+package com.example.bankcards.config;
+
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.handler.TransferHandler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Slf4j
+@Configuration
+public class TransferHandlerConfig {
+
+    @Bean
+    public Map<TransferMode, TransferHandler> transferHandlers(ListableBeanFactory beanFactory) {
+        Map<TransferMode, TransferHandler> map = new EnumMap<>(TransferMode.class);
+
+        Map<String, TransferHandler> beans = beanFactory.getBeansOfType(TransferHandler.class);
+
+        for (TransferHandler value : beans.values()) {
+            map.put(value.getMode(), value);
+        }
+
+        return map;
+    }
+}
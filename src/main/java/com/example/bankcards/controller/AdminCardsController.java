@@ -1,26 +1,42 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BulkCardIssueRequestDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CacheRegionStatsDto;
+import com.example.bankcards.dto.CardLockStatsDto;
+import com.example.bankcards.dto.CardLookupRequestDto;
 import com.example.bankcards.dto.CardStatusRequestDto;
+import com.example.bankcards.dto.SpecificationData;
 import com.example.bankcards.entity.enums.CardOperation;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.entity.enums.ExportFormat;
 import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.BulkCardIssueService;
+import com.example.bankcards.service.CacheStatsService;
 import com.example.bankcards.service.AdminUserService;
+import com.example.bankcards.service.CardLockManager;
+import com.example.bankcards.service.ExportService;
+import com.example.bankcards.util.PageCursor;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.FutureOrPresent;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.net.URI;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static java.util.Objects.isNull;
+
 
 /**
  * REST-контроллер для административных операций над картами пользователей.
@@ -39,14 +55,22 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AdminCardsController {
     private final AdminCardService adminCardService;
+    private final CardLockManager cardLockManager;
+    private final ExportService exportService;
+    private final CacheStatsService cacheStatsService;
+    private final BulkCardIssueService bulkCardIssueService;
 
     /**
      * Получить все карты (с пагинацией и фильтрацией).
+     * <p>
+     * Без параметра {@code page} используется курсорная пагинация: {@code after} — курсор из заголовка
+     * {@value PageCursor#NEXT_CURSOR_HEADER} предыдущего ответа. С параметром {@code page} — постраничная (offset).
      */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<CardDto>> getAllCardsByAdmin(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String after,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) CardStatus status,
             @RequestParam(required = false) Long ownerID,
@@ -56,16 +80,23 @@ public class AdminCardsController {
 
     ) {
         log.info("[INFO] GET запрос на получение списка всех пользователей");
+        if (isNull(page)) {
+            return PageCursor.toResponseEntity(
+                    adminCardService.getAllCardsAfter(after, size, status, ownerID, expirationDate)
+            );
+        }
         return ResponseEntity.ok().body(adminCardService.getAllCards(page, size, status, ownerID, expirationDate));
     }
 
     /**
      * Получить все запросы на изменение статуса карт.
+     * Пагинация — как в {@link #getAllCardsByAdmin}.
      */
     @GetMapping(path = "/status-requests", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<List<CardStatusRequestDto>> getAllCardsRequestByAdmin(
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer page,
+            @RequestParam(required = false) String after,
             @RequestParam(defaultValue = "10") int size,
             @RequestParam(required = false) CardOperation status,
             @RequestParam(required = false) Long ownerID,
@@ -74,11 +105,73 @@ public class AdminCardsController {
 
     ) {
         log.info("[INFO] GET запрос на получение списка всех заявок для операций над картами");
+        if (isNull(page)) {
+            return PageCursor.toResponseEntity(
+                    adminCardService.getAllCardsRequestsAfter(after, size, status, ownerID, cardID, requestedAt)
+            );
+        }
         return ResponseEntity.ok().body(
                 adminCardService.getAllCardsRequests(page, size, status, ownerID, cardID, requestedAt)
         );
     }
 
+    /**
+     * Выгрузить все карты в формате NDJSON или CSV потоком, без пагинации.
+     * Номера карт маскируются, фильтры — как в {@link #getAllCardsByAdmin}.
+     */
+    @GetMapping(path = "/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportCards(
+            @RequestParam(defaultValue = "NDJSON") ExportFormat format,
+            @RequestParam(required = false) CardStatus status,
+            @RequestParam(required = false) Long ownerID,
+            @RequestParam(required = false) LocalDate expirationDate
+    ) {
+        log.info("[INFO] GET запрос на выгрузку карт в формате {}", format);
+        var filters = SpecificationData.builder()
+                .status(status)
+                .ownerID(ownerID)
+                .expirationDate(expirationDate)
+                .build();
+
+        StreamingResponseBody body = out -> exportService.exportCards(filters, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=cards." + format.getExtension())
+                .body(body);
+    }
+
+    /**
+     * Получить статистику блокировок карт в памяти узла: длину очереди и время ожидания по полосам.
+     */
+    @GetMapping(path = "/lock-stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CardLockStatsDto>> getCardLockStats(@RequestParam(defaultValue = "20") int limit) {
+        log.info("[INFO] GET запрос на получение статистики блокировок карт");
+        return ResponseEntity.ok().body(cardLockManager.getStats(limit));
+    }
+
+    /**
+     * Получить статистику кэша второго уровня Hibernate по регионам: попадания, промахи и размер.
+     */
+    @GetMapping(path = "/cache-stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<CacheRegionStatsDto>> getCacheStats() {
+        log.info("[INFO] GET запрос на получение статистики кэша второго уровня");
+        return ResponseEntity.ok().body(cacheStatsService.getStats());
+    }
+
+    /**
+     * Найти карту по полному номеру. Поиск идёт по слепому индексу, без расшифровки таблицы карт.
+     * Номер передаётся в теле запроса, чтобы не попадать в URL, журналы доступа и логи.
+     */
+    @PostMapping(path = "/lookup", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> lookupCardByNumber(@Valid @RequestBody CardLookupRequestDto request) {
+        log.info("[INFO] POST запрос на поиск карты по номеру");
+        return ResponseEntity.ok().body(adminCardService.findCardByNumber(request.number()));
+    }
+
     /**
      * Получить карту по её ID.
      */
@@ -102,6 +195,33 @@ public class AdminCardsController {
         return ResponseEntity.created(location).body(created);
     }
 
+    /**
+     * Выпустить карты сразу для нескольких пользователей. Владельцы проверяются до начала выпуска,
+     * выпущенные карты возвращаются потоком в формате NDJSON по мере сохранения.
+     */
+    @PostMapping(path = "/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> bulkCreateCards(@Valid @RequestBody BulkCardIssueRequestDto request) {
+        log.info("[INFO] POST запрос на массовый выпуск карт для {} пользователей", request.owners().size());
+        var owners = bulkCardIssueService.validate(request);
+
+        StreamingResponseBody body = out -> bulkCardIssueService.issue(owners, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    /**
+     * Включить или изменить слоты баланса для «горячей» карты ({@code 0} — отключить).
+     */
+    @PatchMapping("/{cardID}/balance-slots")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<CardDto> changeBalanceSlots(@PathVariable("cardID") Long cardID,
+                                                      @RequestParam("slots") int slots) {
+        log.info("[INFO] PATCH запрос на изменение количества слотов баланса карты: {}", slots);
+        return ResponseEntity.ok(adminCardService.changeBalanceSlots(cardID, slots));
+    }
+
     /**
      * Выполнить операцию с картой (например, блокировка/активация).
      */
@@ -1,19 +1,27 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.SpecificationData;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.enums.ExportFormat;
 import com.example.bankcards.service.AdminUserService;
+import com.example.bankcards.service.ExportService;
+import com.example.bankcards.util.PageCursor;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
+import static java.util.Objects.isNull;
+
 /**
  * REST-контроллер для административных операций над пользователями.
  * <p>
@@ -31,22 +39,51 @@ import java.util.List;
 @RequiredArgsConstructor
 public class AdminUserController {
     private final AdminUserService adminUserService;
+    private final ExportService exportService;
 
     /**
      * Возвращает список пользователей с возможностью фильтрации и пагинации.
+     * <p>
+     * Без параметра {@code page} используется курсорная пагинация: {@code after} — курсор из заголовка
+     * {@value PageCursor#NEXT_CURSOR_HEADER} предыдущего ответа. С параметром {@code page} — постраничная (offset).
      */
     @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<UserDto>> getAllUsers(@RequestParam(defaultValue = "0") int page,
+    public ResponseEntity<List<UserDto>> getAllUsers(@RequestParam(required = false) Integer page,
+                                                     @RequestParam(required = false) String after,
                                                      @RequestParam(defaultValue = "10") int size,
                                                      @RequestParam(required = false) Boolean enabled,
                                                      @RequestParam(required = false)
                                                      @PastOrPresent(message = "Дата создания не может быть в будущем")
                                                      LocalDateTime createdDate) {
         log.info("[INFO] GET запрос на получение списка всех пользователей");
+        if (isNull(page)) {
+            return PageCursor.toResponseEntity(adminUserService.getAllUsersAfter(after, size, enabled, createdDate));
+        }
         return ResponseEntity.ok(adminUserService.getAllUsers(page, size, enabled, createdDate));
     }
 
+    /**
+     * Выгружает всех пользователей в формате NDJSON или CSV потоком, без пагинации.
+     */
+    @GetMapping(path = "/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = "NDJSON") ExportFormat format,
+                                                             @RequestParam(required = false) Boolean enabled,
+                                                             @RequestParam(required = false) LocalDateTime createdDate) {
+        log.info("[INFO] GET запрос на выгрузку пользователей в формате {}", format);
+        var filters = SpecificationData.builder()
+                .enabled(enabled)
+                .createdDate(createdDate)
+                .build();
+
+        StreamingResponseBody body = out -> exportService.exportUsers(filters, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=users." + format.getExtension())
+                .body(body);
+    }
+
     /**
      * Возвращает информацию о пользователе по его идентификатору.
      */
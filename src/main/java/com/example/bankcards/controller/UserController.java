@@ -2,8 +2,13 @@ package com.example.bankcards.controller;
 
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.service.AsyncTransferService;
+import com.example.bankcards.service.TransferService;
 import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.PageCursor;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.MediaType;
@@ -12,8 +17,12 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.UUID;
+
+import static java.util.Objects.isNull;
 
 @Slf4j
 @RestController
@@ -21,16 +30,24 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
     private final UserService userService;
+    private final TransferService transferService;
+    private final AsyncTransferService asyncTransferService;
 
     @GetMapping(path = "/{userID}/cards", produces = MediaType.APPLICATION_JSON_VALUE)
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<List<CardDto>> getAllUserCards(@PathVariable Long userID,
-                                                         @RequestParam(defaultValue = "0") int page,
+                                                         @RequestParam(required = false) Integer page,
+                                                         @RequestParam(required = false) String after,
                                                          @RequestParam(defaultValue = "10") int size,
                                                          @RequestParam(required = false) CardStatus status,
                                                          @RequestParam(required = false) LocalDate expirationDate
     ) {
         log.info("[INFO] GET запрос на получение списка всех карт пользователя");
+        if (isNull(page)) {
+            return PageCursor.toResponseEntity(
+                    userService.findAllUserCardsAfter(userID, after, size, status, expirationDate)
+            );
+        }
         return ResponseEntity.ok(userService.findAllUserCards(page, size, userID, status, expirationDate));
     }
 
@@ -72,9 +89,44 @@ public class UserController {
     @PreAuthorize("hasRole('USER')")
     public ResponseEntity<TransferInfoDto> transferMoney(
             @PathVariable Long userID,
+            @RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody @Valid TransferRequestDto request
     ) {
         log.info("[INFO] POST запрос на перевод средств между своими счетами пользователя");
-        return ResponseEntity.ok(userService.transferMoney(userID, request));
+        return ResponseEntity.ok(transferService.transferMoney(userID, idempotencyKey, request));
+    }
+
+    @PostMapping(path = "/{userID}/cards/transfers/batch", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<List<TransferInfoDto>> transferMoneyBatch(
+            @PathVariable Long userID,
+            @RequestBody @Valid @NotEmpty(message = "Batch cannot be empty")
+            List<@Valid @NotNull TransferRequestDto> requests
+    ) {
+        log.info("[INFO] POST запрос на пакетный перевод средств между своими счетами пользователя");
+        return ResponseEntity.ok(transferService.transferMoneyBatch(userID, requests));
+    }
+
+    @PostMapping(path = "/{userID}/cards/transfers/async", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<AsyncTransferStatusDto> submitTransfer(
+            @PathVariable Long userID,
+            @RequestBody @Valid TransferRequestDto request
+    ) {
+        log.info("[INFO] POST запрос на асинхронный перевод средств между своими счетами пользователя");
+        var accepted = asyncTransferService.submit(userID, request);
+
+        var location = URI.create("/api/v1/users/%d/cards/transfers/%s".formatted(userID, accepted.transferID()));
+        return ResponseEntity.accepted().location(location).body(accepted);
+    }
+
+    @GetMapping(path = "/{userID}/cards/transfers/{transferID}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('USER')")
+    public ResponseEntity<AsyncTransferStatusDto> getTransferStatus(
+            @PathVariable Long userID,
+            @PathVariable UUID transferID
+    ) {
+        log.info("[INFO] GET запрос на получение статуса асинхронного перевода");
+        return ResponseEntity.ok(asyncTransferService.getStatus(userID, transferID));
     }
 }
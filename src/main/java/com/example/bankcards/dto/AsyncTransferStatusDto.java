@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import lombok.Builder;
+
+import java.util.UUID;
+
+@Builder
+public record AsyncTransferStatusDto(
+        UUID transferID,
+        AsyncTransferStatus status,
+        TransferInfoDto result,
+        String errorCode,
+        String errorMessage
+) {
+}
@@ -0,0 +1,13 @@
+package com.example.bankcards.dto;
+
+import lombok.Builder;
+
+import java.util.UUID;
+
+@Builder
+public record AsyncTransferTask(
+        UUID transferID,
+        Long userID,
+        TransferRequestDto request
+) {
+}
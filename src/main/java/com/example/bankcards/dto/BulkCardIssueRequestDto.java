@@ -0,0 +1,21 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record BulkCardIssueRequestDto(
+        @NotEmpty(message = "Owners cannot be empty") List<@Valid @NotNull OwnerCards> owners
+) {
+    @Builder
+    public record OwnerCards(
+            @NotNull(message = "Owner ID cannot be null") Long ownerID,
+            @NotNull(message = "Count cannot be null")
+            @Min(value = 1, message = "Count must be greater than zero") Integer count
+    ) {}
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.dto;
+
+import lombok.Builder;
+
+@Builder
+public record CacheRegionStatsDto(
+        String region,
+        long hits,
+        long misses,
+        long puts,
+        long size,
+        double hitRatio
+) {
+}
@@ -0,0 +1,35 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.util.MaskCardNumber;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Номер и баланс карты без загрузки сущности. Вместо полного номера хранятся последние четыре цифры
+ * и длина номера: их достаточно для маски, и расшифровка не нужна. Полный номер {@code number} нужен только
+ * картам, у которых фоновая задача ещё не заполнила последние цифры, и запрос выбирает его только для них.
+ */
+@Builder
+public record CardBalanceDto(
+        Long cardID,
+        String last4,
+        Integer numberLength,
+        String number,
+        BigDecimal balance
+) {
+
+    /**
+     * Возвращает замаскированный номер карты, например {@code **** **** **** 3456}.
+     * Для карт, у которых фоновая задача ещё не заполнила последние цифры, маска строится по полному номеру.
+     */
+    public String maskedNumber() {
+        if (nonNull(last4) && nonNull(numberLength)) {
+            return MaskCardNumber.mask(last4, numberLength);
+        }
+        return isNull(number) ? null : MaskCardNumber.mask(number);
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.enums.CardStatus;
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record CardBalanceStateDto(
+        Long cardID,
+        Long ownerID,
+        CardStatus cardStatus,
+        BigDecimal balance,
+        Long version
+) {
+}
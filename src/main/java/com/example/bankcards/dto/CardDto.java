@@ -1,6 +1,8 @@
 package com.example.bankcards.dto;
 
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.util.MaskedCardNumberSerializer;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import lombok.*;
 
 import java.math.BigDecimal;
@@ -14,6 +16,7 @@ import java.time.LocalDate;
 public class CardDto {
     private Long cardID;
     private Long ownerID;
+    @JsonSerialize(using = MaskedCardNumberSerializer.class)
     private String number;
     private CardStatus cardStatus;
     private LocalDate expirationDate;
@@ -0,0 +1,12 @@
+package com.example.bankcards.dto;
+
+import lombok.Builder;
+
+import java.math.BigDecimal;
+
+@Builder
+public record CardLedgerTailDto(
+        Long cardID,
+        BigDecimal amount
+) {
+}
@@ -0,0 +1,14 @@
+package com.example.bankcards.dto;
+
+import lombok.Builder;
+
+@Builder
+public record CardLockStatsDto(
+        int stripe,
+        int queueLength,
+        long acquisitions,
+        long timeouts,
+        double averageWaitMs,
+        double maxWaitMs
+) {
+}
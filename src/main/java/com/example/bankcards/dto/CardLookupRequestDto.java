@@ -0,0 +1,20 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import lombok.Builder;
+
+/**
+ * Запрос поиска карты по полному номеру. Номер передаётся в теле запроса, а не в URL,
+ * чтобы не попадать в журналы доступа и логи фильтров; {@link #toString()} его не раскрывает.
+ */
+@Builder
+public record CardLookupRequestDto(
+        @NotNull(message = "Number cannot be null")
+        @Pattern(regexp = "[0-9][0-9 -]{10,24}[0-9]", message = "Некорректный номер карты") String number
+) {
+    @Override
+    public String toString() {
+        return "CardLookupRequestDto[number=****]";
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.dto;
+
+public record CardNumberDto(
+        Long cardID,
+        String number,
+        String numberHash
+) {
+}
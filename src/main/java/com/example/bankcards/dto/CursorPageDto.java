@@ -0,0 +1,12 @@
+package com.example.bankcards.dto;
+
+import lombok.Builder;
+
+import java.util.List;
+
+@Builder
+public record CursorPageDto<T>(
+        List<T> items,
+        String nextCursor
+) {
+}
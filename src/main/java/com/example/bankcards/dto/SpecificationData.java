@@ -16,6 +16,7 @@ public record SpecificationData(
         LocalDateTime createdDate,
         CardOperation statusRequest,
         Long cardID,
-        LocalDateTime requestedAt
+        LocalDateTime requestedAt,
+        Long afterID
 ) {
 }
@@ -0,0 +1,30 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Entity
+@Table(name = "card_balance_slot")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardBalanceSlotEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_balance_slot_seq")
+    @SequenceGenerator(name = "card_balance_slot_seq", sequenceName = "card_balance_slot_seq", allocationSize = 50)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardID;
+
+    @Column(nullable = false)
+    private int slot;
+
+    @Column(nullable = false)
+    private BigDecimal balance;
+}
@@ -3,8 +3,11 @@ package com.example.bankcards.entity;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.entity.enums.converter.CardStatusConverter;
 import com.example.bankcards.entity.enums.converter.CardEncryptorConverter;
+import com.example.bankcards.security.crypto.CardNumberIndexListener;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.data.jpa.convert.threeten.Jsr310JpaConverters;
 
 import java.math.BigDecimal;
@@ -17,16 +20,66 @@ import java.time.LocalDate;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CardEntity.CACHE_REGION)
+@EntityListeners(CardNumberIndexListener.class)
 public class CardEntity {
+    /**
+     * Регион кэша второго уровня для карт. Изменения через сущность обновляют запись в кэше при коммите,
+     * массовые JPQL-обновления ({@code debitCardIfSufficient}, {@code creditCard}) Hibernate сбрасывает целиком.
+     */
+    public static final String CACHE_REGION = "cards";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "cards_seq")
+    @SequenceGenerator(name = "cards_seq", sequenceName = "cards_seq", allocationSize = 50)
     @Column(nullable = false)
     private Long id;
 
+    /**
+     * Полный номер карты, зашифрован в базе. Загружается лениво (нужно улучшение байт-кода Hibernate):
+     * спискам, переводам и балансам хватает {@link #last4}, поэтому расшифровка выполняется
+     * только там, где действительно нужен полный номер. После выпуска карты номер не меняется.
+     */
+    @Basic(fetch = FetchType.LAZY)
     @Convert(converter = CardEncryptorConverter.class)
+    @Column(updatable = false)
     private String number;
 
-    @ManyToOne
+    /**
+     * Последние четыре цифры номера в открытом виде для маски, заполняются {@link CardNumberIndexListener}.
+     */
+    @Column(name = "last4", length = 4)
+    private String last4;
+
+    /**
+     * Количество цифр в номере (16–19) для маски.
+     */
+    @Column(name = "number_length")
+    private Integer numberLength;
+
+    /**
+     * Слепой индекс номера для поиска и уникальности, заполняется {@link CardNumberIndexListener}.
+     * Не входит в {@code UPDATE}: иначе карта, загруженная до заполнения индекса фоновой задачей,
+     * затёрла бы его при сохранении.
+     */
+    @Column(name = "number_hash", length = 64, unique = true, updatable = false)
+    private String numberHash;
+
+    /**
+     * Номер совпал с номером другой карты при заполнении {@link #numberHash}: индекс у такой карты
+     * не заполняется, а фоновая задача её больше не перечитывает. Пишется только этой задачей.
+     */
+    @Column(name = "number_hash_conflict", insertable = false, updatable = false)
+    private boolean numberHashConflict;
+
+    /**
+     * Владелец карты загружается лениво: спискам, переводам и проверкам принадлежности нужен только
+     * {@code owner_id}, а {@code getOwner().getId()} у прокси возвращает внешний ключ без запроса к {@code users}.
+     * Запросы с {@code FOR UPDATE} тоже не должны соединяться с {@code users}, иначе блокировались бы и строки владельцев.
+     */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "owner_id", nullable = false)
     private UserEntity owner;
 
     @Convert(converter = CardStatusConverter.class)
@@ -36,4 +89,17 @@ public class CardEntity {
     private LocalDate expirationDate;
 
     private BigDecimal balance;
+
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+
+    /**
+     * Эпоха сворачивания журнала: зачисления {@code card_ledger} с этой эпохой ещё не перенесены в {@code balance}.
+     * Увеличивается при каждом сворачивании, строки журнала при этом не изменяются.
+     */
+    @Column(name = "ledger_fold_epoch", nullable = false)
+    private long ledgerFoldEpoch;
+
+    @Version
+    private Long version;
 }
@@ -0,0 +1,47 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "card_ledger")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class CardLedgerEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_ledger_seq")
+    @SequenceGenerator(name = "card_ledger_seq", sequenceName = "card_ledger_seq", allocationSize = 50)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "card_id", nullable = false)
+    private Long cardID;
+
+    @Column(name = "counterparty_card_id")
+    private Long counterpartyCardID;
+
+    @Column(nullable = false)
+    private BigDecimal amount;
+
+    /**
+     * Сумма учтена в {@code cards.balance} при вставке (списания и перевод на ту же карту).
+     */
+    private boolean folded;
+
+    /**
+     * Эпоха сворачивания карты на момент зачисления; зачисление не свёрнуто, пока она равна
+     * {@code cards.ledger_fold_epoch}.
+     */
+    @Column(name = "fold_epoch", nullable = false)
+    private long foldEpoch;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
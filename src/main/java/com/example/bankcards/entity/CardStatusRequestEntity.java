@@ -18,7 +18,8 @@ import java.time.LocalDateTime;
 @Builder
 public class CardStatusRequestEntity {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "card_status_request_seq")
+    @SequenceGenerator(name = "card_status_request_seq", sequenceName = "card_status_request_seq", allocationSize = 50)
     @Column(nullable = false)
     private Long id;
 
@@ -0,0 +1,52 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "transfer_idempotency_key")
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class TransferIdempotencyEntity {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "transfer_idempotency_key_seq")
+    @SequenceGenerator(name = "transfer_idempotency_key_seq", sequenceName = "transfer_idempotency_key_seq", allocationSize = 50)
+    @Column(nullable = false)
+    private Long id;
+
+    @Column(name = "idempotency_key", nullable = false)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userID;
+
+    @Column(name = "from_card_id", nullable = false)
+    private Long fromCardID;
+
+    @Column(name = "to_card_id", nullable = false)
+    private Long toCardID;
+
+    private BigDecimal amount;
+
+    private LocalDateTime transferDate;
+
+    private String numberCardFrom;
+
+    private BigDecimal cardFromBalance;
+
+    private String numberCardTo;
+
+    private BigDecimal cardBalanceTo;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private LocalDateTime expiresAt;
+}
@@ -4,7 +4,11 @@ import com.example.bankcards.entity.enums.Role;
 import com.example.bankcards.entity.enums.converter.RoleConverter;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.security.core.GrantedAuthority;
@@ -17,17 +21,39 @@ import java.util.List;
 
 @Entity
 @Table(name = "users")
+@NamedEntityGraph(name = UserEntity.WITH_CARDS, attributeNodes = @NamedAttributeNode("cards"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = UserEntity.CACHE_REGION)
+@NaturalIdCache(region = UserEntity.USERNAME_CACHE_REGION)
 @Getter
 @Setter
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 public class UserEntity implements UserDetails {
+    /**
+     * План загрузки пользователя вместе с картами одним запросом: удаление пользователя
+     * (проверка активных карт и каскадное удаление) и начальное заполнение данных.
+     */
+    public static final String WITH_CARDS = "UserEntity.withCards";
+
+    /**
+     * Регион кэша второго уровня для пользователей.
+     */
+    public static final String CACHE_REGION = "users";
+
+    /**
+     * Регион кэша второго уровня для поиска пользователя по имени (natural id).
+     */
+    public static final String USERNAME_CACHE_REGION = "users-by-username";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     @Column(nullable = false)
     private Long id;
 
+    @NaturalId
     @Column(name = "username", nullable = false, unique = true)
     private String username;
 
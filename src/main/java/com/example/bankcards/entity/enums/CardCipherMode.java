@@ -0,0 +1,13 @@
+package com.example.bankcards.entity.enums;
+
+/**
+ * Режим шифрования номеров карт.
+ * <ul>
+ *     <li>{@link #CBC} — исходный формат: AES/CBC с фиксированным вектором, Base64 без префикса;</li>
+ *     <li>{@link #GCM} — AES/GCM со случайным nonce на каждую запись и префиксом версии ключа {@code v<N>:}.</li>
+ * </ul>
+ */
+public enum CardCipherMode {
+    CBC,
+    GCM
+}
@@ -0,0 +1,8 @@
+package com.example.bankcards.entity.enums;
+
+public enum TransferMode {
+    PESSIMISTIC_LOCK,
+    CONDITIONAL_UPDATE,
+    LEDGER,
+    OPTIMISTIC_LOCK
+}
@@ -1,57 +1,66 @@
 package com.example.bankcards.entity.enums.converter;
 
-import jakarta.annotation.PostConstruct;
+import com.example.bankcards.entity.enums.CardCipherMode;
+import com.example.bankcards.security.crypto.CardCryptoEngine;
 import jakarta.persistence.AttributeConverter;
 import jakarta.persistence.Converter;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.Cipher;
-import javax.crypto.SecretKey;
-import javax.crypto.spec.IvParameterSpec;
-import javax.crypto.spec.SecretKeySpec;
-import java.nio.charset.StandardCharsets;
-import java.util.Base64;
+import java.util.Collection;
+import java.util.Map;
 
+import static java.util.Objects.isNull;
+
+/**
+ * Шифрует номер карты при записи и расшифровывает при чтении.
+ * <p>
+ * Новые значения пишутся движком из {@code card.encryption.mode}. При чтении движок выбирается
+ * по формату значения, поэтому строки, записанные до смены режима или ключа, остаются читаемыми.
+ * </p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   encryption:
+ *     mode: GCM
+ * </pre>
+ */
 @Component
 @Converter(autoApply = true)
 public class CardEncryptorConverter implements AttributeConverter<String, String> {
 
-    private final SecretKey secretKey;
-    private final IvParameterSpec iv;
+    private final CardCryptoEngine writer;
+    private final Collection<CardCryptoEngine> readers;
 
-    public CardEncryptorConverter(@Value("${card.encryption.key}") String secretKeyValue,
-                                  @Value("${card.encryption.vector}") String initVector) {
-        byte[] keyBytes = Base64.getDecoder().decode(secretKeyValue);
-        this.secretKey = new SecretKeySpec(keyBytes, "AES");
-        this.iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
+    public CardEncryptorConverter(Map<CardCipherMode, CardCryptoEngine> cardCryptoEngines,
+                                  @Value("${card.encryption.mode:GCM}") CardCipherMode mode) {
+        this.writer = cardCryptoEngines.get(mode);
+        if (isNull(writer)) {
+            throw new IllegalStateException("No card crypto engine for mode " + mode);
+        }
+        this.readers = cardCryptoEngines.values();
     }
 
     @Override
     public String convertToDatabaseColumn(String number) {
-        try {
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.ENCRYPT_MODE, secretKey, iv);
-            byte[] encryptedBytes = cipher.doFinal(number.getBytes(StandardCharsets.UTF_8));
-            return Base64.getEncoder().encodeToString(encryptedBytes);
-        } catch (Exception e) {
-            throw new RuntimeException("Encryption error", e);
+        if (isNull(number)) {
+            return null;
         }
+        return writer.encrypt(number);
     }
 
     @Override
     public String convertToEntityAttribute(String number) {
-        try {
-            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
-            cipher.init(Cipher.DECRYPT_MODE, secretKey, iv);
-            byte[] decodedBytes = Base64.getDecoder().decode(number);
-            byte[] decryptedBytes = cipher.doFinal(decodedBytes);
-            return new String(decryptedBytes, StandardCharsets.UTF_8);
-        } catch (Exception e) {
-            throw new RuntimeException("Decryption error", e);
+        if (isNull(number)) {
+            return null;
+        }
+
+        for (CardCryptoEngine reader : readers) {
+            if (reader.canDecrypt(number)) {
+                return reader.decrypt(number);
+            }
         }
+        throw new RuntimeException("Decryption error: unknown ciphertext format");
     }
 }
-
-
-
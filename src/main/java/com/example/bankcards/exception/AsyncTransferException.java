@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class AsyncTransferException extends ApiException {
+    public AsyncTransferException(String message, String errorCode, int httpStatus) {
+        super(message, errorCode, httpStatus);
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class BalanceSlotsException extends ApiException {
+    public BalanceSlotsException(String message, String errorCode, int httpStatus) {
+        super(message, errorCode, httpStatus);
+    }
+}
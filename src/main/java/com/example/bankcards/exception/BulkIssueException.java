@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class BulkIssueException extends ApiException {
+    public BulkIssueException(String message, String errorCode, int httpStatus) {
+        super(message, errorCode, httpStatus);
+    }
+}
@@ -3,15 +3,22 @@ package com.example.bankcards.exception;
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.validation.FieldError;
+import org.springframework.validation.method.ParameterValidationResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.time.Instant;
 import java.util.List;
 
+import static java.util.Objects.isNull;
+
 @Slf4j
 @RestControllerAdvice
 public class GlobalExceptionHandler {
@@ -64,6 +71,23 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(ConcurrencyFailureException.class)
+    public ResponseEntity<DefaultErrorMessage> handleConcurrencyFailureException(
+            ConcurrencyFailureException ex,
+            HttpServletRequest request) {
+
+        log.warn("[WARN] Concurrency conflict: {} (path: {})", ex.getMessage(), request.getRequestURI());
+
+        return getResponseEntity(
+                "Concurrency conflict",
+                "Операция отклонена из-за конкурентного изменения данных, повторите запрос",
+                HttpStatus.CONFLICT.value(),
+                request.getRequestURI(),
+                null,
+                "CONCURRENCY_CONFLICT"
+        );
+    }
+
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<DefaultErrorMessage> handleMethodArgumentNotValidException(
             MethodArgumentNotValidException ex,
@@ -85,6 +109,40 @@ public class GlobalExceptionHandler {
         );
     }
 
+    /**
+     * Ошибки валидации параметров метода контроллера, например элементов списка в теле пакетного перевода.
+     * Поле ошибки элемента списка содержит его индекс: {@code [1].amount}.
+     */
+    @ExceptionHandler(HandlerMethodValidationException.class)
+    public ResponseEntity<DefaultErrorMessage> handleHandlerMethodValidationException(
+            HandlerMethodValidationException ex,
+            HttpServletRequest request) {
+
+        List<DefaultErrorMessage.FieldError> fieldErrors = ex.getParameterValidationResults()
+                .stream()
+                .flatMap(result -> result.getResolvableErrors().stream()
+                        .map(error -> new DefaultErrorMessage.FieldError(
+                                fieldName(result, error), error.getDefaultMessage())))
+                .toList();
+
+        return getResponseEntity(
+                "Validation Failed",
+                "One or more fields are invalid",
+                HttpStatus.BAD_REQUEST.value(),
+                request.getRequestURI(),
+                fieldErrors,
+                "VALIDATION_ERROR"
+        );
+    }
+
+    private static String fieldName(ParameterValidationResult result, MessageSourceResolvable error) {
+        String prefix = isNull(result.getContainerIndex()) ? "" : "[" + result.getContainerIndex() + "]";
+        if (error instanceof FieldError fieldError) {
+            return prefix + "." + fieldError.getField();
+        }
+        return prefix.isEmpty() ? result.getMethodParameter().getParameterName() : prefix;
+    }
+
     private ResponseEntity<DefaultErrorMessage> getResponseEntity(String title,
                                                                   String detail,
                                                                   int status,
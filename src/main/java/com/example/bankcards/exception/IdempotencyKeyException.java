@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class IdempotencyKeyException extends ApiException {
+    public IdempotencyKeyException(String message, String errorCode, int httpStatus) {
+        super(message, errorCode, httpStatus);
+    }
+}
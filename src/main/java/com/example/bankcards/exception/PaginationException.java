@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class PaginationException extends ApiException {
+    public PaginationException(String message, String errorCode, int httpStatus) {
+        super(message, errorCode, httpStatus);
+    }
+}
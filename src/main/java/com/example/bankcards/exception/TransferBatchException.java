@@ -0,0 +1,7 @@
+package com.example.bankcards.exception;
+
+public class TransferBatchException extends ApiException {
+    public TransferBatchException(String message, String errorCode, int httpStatus) {
+        super(message, errorCode, httpStatus);
+    }
+}
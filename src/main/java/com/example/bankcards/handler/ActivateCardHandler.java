@@ -3,17 +3,24 @@ package com.example.bankcards.handler;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardOperation;
 import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.service.CardBalanceCache;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static com.example.bankcards.entity.enums.CardOperation.ACTIVATE;
 import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
 import static com.example.bankcards.entity.enums.CardStatus.DELETED;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class ActivateCardHandler implements CardOperationHandler {
+    private final CardBalanceCache cardBalanceCache;
+
 
     @Override
     public CardOperation getOperationType() {
@@ -38,6 +45,7 @@ public class ActivateCardHandler implements CardOperationHandler {
         }
 
         card.setCardStatus(ACTIVE);
+        cardBalanceCache.evictAfterCommit(List.of(card.getId()));
         log.info("[INFO] Карта с ID {} была активирована!", card.getId());
     }
 }
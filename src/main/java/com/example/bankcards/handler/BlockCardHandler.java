@@ -4,16 +4,23 @@ import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardOperation;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.service.CardBalanceCache;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static com.example.bankcards.entity.enums.CardOperation.BLOCK;
 import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class BlockCardHandler implements CardOperationHandler {
+    private final CardBalanceCache cardBalanceCache;
+
     @Override
     public CardOperation getOperationType() {
         return BLOCK;
@@ -37,6 +44,7 @@ public class BlockCardHandler implements CardOperationHandler {
         }
 
         card.setCardStatus(BLOCKED);
+        cardBalanceCache.evictAfterCommit(List.of(card.getId()));
         log.info("[INFO] Карта с ID {} была заблокирована!", card.getId());
     }
 }
@@ -0,0 +1,176 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.dto.CardTransferStateDto;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.TransferMode.CONDITIONAL_UPDATE;
+import static java.util.Objects.isNull;
+
+/**
+ * Перевод средств без загрузки сущностей карт.
+ * <p>
+ * Списание и зачисление выполняются условными {@code UPDATE}: принадлежность карты пользователю,
+ * статус {@code ACTIVE} и достаточность средств проверяются в {@code WHERE}, а успех определяется
+ * по количеству изменённых строк. Запросы выполняются в порядке возрастания ID карт,
+ * поэтому встречные переводы захватывают блокировки строк в одинаковом порядке.
+ * </p>
+ *
+ * <p>Только если один из {@code UPDATE} не изменил строку, выполняется лёгкий запрос состояния карт,
+ * чтобы вернуть ту же ошибку, что и {@code UserService.transferMoney}.</p>
+ *
+ * <p>Зачисление на карту с включёнными слотами баланса ({@code cards.balance_slots > 0}) попадает
+ * в один из слотов по хешу ID карты отправителя, поэтому одновременные зачисления на «горячую» карту
+ * блокируют разные строки {@code card_balance_slot}, а не одну строку {@code cards}.</p>
+ *
+ * <p>Проверка средств учитывает только {@code cards.balance}: зачисления из журнала {@code card_ledger}
+ * и слотов баланса станут доступны для списания в этом режиме после сворачивания.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConditionalUpdateTransferHandler implements TransferHandler {
+    private final CardRepository cardRepository;
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
+    private final RepositoryHelper repositoryHelper;
+    private final CardMapper cardMapper;
+
+    @Override
+    public TransferMode getMode() {
+        return CONDITIONAL_UPDATE;
+    }
+
+    /**
+     * Выполняет перевод двумя условными {@code UPDATE} в рамках одной транзакции.
+     *
+     * @param userID             идентификатор пользователя, выполняющего перевод
+     * @param transferRequestDto DTO с параметрами перевода (ID карт и сумма)
+     * @return DTO с информацией об успешном переводе
+     * @throws IllegalArgumentException   если сумма некорректна
+     * @throws EntityNotFoundException    если одна из карт или пользователь не найдены
+     * @throws InsufficientFundsException если на карте отправителя недостаточно средств
+     * @throws CardStatusException        если одна из карт имеет неподходящий статус или чужая
+     */
+    @Override
+    @Transactional
+    public TransferInfoDto transfer(Long userID, TransferRequestDto transferRequestDto) {
+        var amount = transferRequestDto.amount();
+        var fromCardID = transferRequestDto.fromCardId();
+        var toCardID = transferRequestDto.toCardId();
+
+        if (isNull(amount) || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            log.warn("[WARN] Некорректная сумма перевода: {}", amount);
+            throw new IllegalArgumentException("Сумма перевода должна быть больше 0");
+        }
+
+        boolean applied = fromCardID <= toCardID
+                ? debit(userID, fromCardID, amount) && credit(userID, toCardID, fromCardID, amount)
+                : credit(userID, toCardID, fromCardID, amount) && debit(userID, fromCardID, amount);
+
+        if (!applied) {
+            throw resolveFailure(userID, fromCardID, toCardID, amount);
+        }
+
+        Map<Long, CardBalanceDto> balances = cardRepository.findCardBalances(List.of(fromCardID, toCardID))
+                .stream()
+                .collect(Collectors.toMap(CardBalanceDto::cardID, Function.identity(), (a, b) -> a));
+        var cardFrom = balances.get(fromCardID);
+        var cardTo = balances.get(toCardID);
+
+        log.info("""
+                        [INFO] Перевод выполнен успешно. userId={}, fromCard={}, toCard={}, amount={},
+                        newBalances: {} -> {}, {} -> {}
+                        """,
+                userID,
+                fromCardID, toCardID,
+                amount,
+                fromCardID, cardFrom.balance(),
+                toCardID, cardTo.balance()
+        );
+
+        return cardMapper.toTransferInfoDto(cardFrom, cardTo, amount);
+    }
+
+    private boolean debit(Long userID, Long cardID, BigDecimal amount) {
+        return cardRepository.debitCardIfSufficient(cardID, userID, ACTIVE, amount) == 1;
+    }
+
+    /**
+     * Зачисляет сумму в слот баланса карты, а если слоты для карты не включены — в {@code cards.balance}.
+     */
+    private boolean credit(Long userID, Long cardID, Long fromCardID, BigDecimal amount) {
+        int hash = Long.hashCode(fromCardID) & Integer.MAX_VALUE;
+        return cardBalanceSlotRepository.creditSlot(cardID, userID, ACTIVE, hash, amount) == 1
+                || cardRepository.creditCard(cardID, userID, ACTIVE, amount) == 1;
+    }
+
+    /**
+     * Определяет причину, по которой условный {@code UPDATE} не изменил строку.
+     * Проверки выполняются в том же порядке, что и в {@code UserService.transferMoney}.
+     * Исключение откатывает транзакцию вместе с уже выполненной частью перевода.
+     */
+    private RuntimeException resolveFailure(Long userID, Long fromCardID, Long toCardID, BigDecimal amount) {
+        Map<Long, CardTransferStateDto> states = cardRepository.findCardTransferStates(List.of(fromCardID, toCardID))
+                .stream()
+                .collect(Collectors.toMap(CardTransferStateDto::cardID, Function.identity(), (a, b) -> a));
+
+        for (Long cardID : List.of(fromCardID, toCardID)) {
+            if (!states.containsKey(cardID)) {
+                log.error("[ERROR] Карта с ID: [{}] не найден!", cardID);
+                return new EntityNotFoundException("Card not found with ID: " + cardID);
+            }
+        }
+
+        var cardFrom = states.get(fromCardID);
+        var cardTo = states.get(toCardID);
+
+        if (ACTIVE != cardFrom.cardStatus() || ACTIVE != cardTo.cardStatus()) {
+            log.error("[ERROR] Одна из карт не активна: from={}, to={}", cardFrom.cardStatus(), cardTo.cardStatus());
+            return new CardStatusException(
+                    "Нельзя перевести средства! Одна из карт не активна", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        repositoryHelper.isUserExists(userID);
+
+        if (!userID.equals(cardFrom.ownerID()) || !userID.equals(cardTo.ownerID())) {
+            log.error("[ERROR] Ошибка! Одна из карт не принадлежит пользователю с ID {}, from={}, to={}",
+                    userID, fromCardID, toCardID);
+            return new CardStatusException(
+                    "Ошибка! Одна из карт не принадлежит пользователю!", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        if (cardFrom.balance().compareTo(amount) < 0) {
+            log.warn("[WARN] Недостаточно средств: баланс={}, требуется={}", cardFrom.balance(), amount);
+            return new InsufficientFundsException(
+                    "Недостаточно средств для перевода", "INSUFFICIENT_FUNDS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        log.warn("[WARN] Состояние карт изменилось во время перевода: from={}, to={}", fromCardID, toCardID);
+        return new ConcurrencyFailureException("Состояние карт изменилось во время перевода");
+    }
+}
@@ -4,11 +4,15 @@ import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardOperation;
 import com.example.bankcards.exception.CardStatusException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.CardBalanceCache;
+import com.example.bankcards.service.CardOwnershipService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static com.example.bankcards.entity.enums.CardOperation.DEEP_DELETE;
 import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
 
@@ -17,6 +21,8 @@ import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
 @RequiredArgsConstructor
 public class DeepDeleteCardHandler implements CardOperationHandler {
     private final CardRepository cardRepository;
+    private final CardOwnershipService cardOwnershipService;
+    private final CardBalanceCache cardBalanceCache;
 
     @Override
     public CardOperation getOperationType() {
@@ -41,6 +47,8 @@ public class DeepDeleteCardHandler implements CardOperationHandler {
         }
 
         cardRepository.deleteById(card.getId());
+        cardOwnershipService.evictAfterCommit(card.getId());
+        cardBalanceCache.evictAfterCommit(List.of(card.getId()));
         log.info("[INFO] Карта с ID [{}] была удалена полностью!", card.getId());
     }
 }
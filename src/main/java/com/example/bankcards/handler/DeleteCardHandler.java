@@ -4,16 +4,25 @@ import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardOperation;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.service.CardBalanceCache;
+import com.example.bankcards.service.CardOwnershipService;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Component;
 
+import java.util.List;
+
 import static com.example.bankcards.entity.enums.CardOperation.DELETE;
 import static com.example.bankcards.entity.enums.CardStatus.DELETED;
 
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class DeleteCardHandler implements CardOperationHandler {
+    private final CardOwnershipService cardOwnershipService;
+    private final CardBalanceCache cardBalanceCache;
+
     @Override
     public CardOperation getOperationType() {
         return DELETE;
@@ -37,6 +46,8 @@ public class DeleteCardHandler implements CardOperationHandler {
         }
 
         card.setCardStatus(DELETED);
+        cardOwnershipService.evictAfterCommit(card.getId());
+        cardBalanceCache.evictAfterCommit(List.of(card.getId()));
         log.info("[INFO] Статус карты с ID {} был изменён на {}", card.getId(), DELETED);
     }
 }
@@ -0,0 +1,22 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.AsyncTransferStatusDto;
+import com.example.bankcards.dto.AsyncTransferTask;
+
+import java.util.List;
+
+/**
+ * Режим перевода, который фиксирует группу независимых переводов одной транзакцией.
+ * Группы остальных режимов выполняются по одному переводу через {@link TransferHandler#transfer}.
+ */
+public interface GroupCommitTransferHandler extends TransferHandler {
+
+    /**
+     * Выполняет группу независимых переводов одной транзакцией: некорректный перевод получает статус
+     * {@code FAILED}, остальные фиксируются вместе.
+     *
+     * @param tasks переводы группы
+     * @return статусы переводов в порядке следования в группе
+     */
+    List<AsyncTransferStatusDto> transferGroup(List<AsyncTransferTask> tasks);
+}
@@ -0,0 +1,197 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.dto.CardLedgerTailDto;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.CardLedgerEntity;
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.TransferMode.LEDGER;
+import static java.util.Objects.isNull;
+
+/**
+ * Перевод средств через журнал движений {@code card_ledger}.
+ * <p>
+ * Карта отправителя блокируется {@code FOR UPDATE}: её несвёрнутый журнал переносится в баланс,
+ * после чего списание выполняется на месте. Карта получателя блокируется только {@code FOR SHARE},
+ * а зачисление добавляется в журнал как несвёрнутая запись, поэтому одновременные зачисления
+ * на одну «горячую» карту не ждут друг друга. Обе записи перевода (списание и зачисление)
+ * сохраняются одним пакетным {@code INSERT}.
+ * </p>
+ *
+ * <p>Зачисление записывает эпоху сворачивания карты получателя ({@code cards.ledger_fold_epoch}), прочитанную
+ * под {@code FOR SHARE}: пока транзакция держит блокировку, сворачивание не может увеличить эпоху, поэтому
+ * зачисление попадает в текущий хвост. Порядок ID журнала для этого не нужен: ID выделяются блоками
+ * (pooled-lo) и не возрастают в порядке фиксации между узлами.</p>
+ *
+ * <p>Первое зачисление эпохи отмечает карту в {@code card_ledger_pending} для задачи сворачивания. Если хвост
+ * текущей эпохи уже есть, отметка тоже уже зафиксирована вместе с ним, и запрос не выполняется.</p>
+ *
+ * <p>Блокировки берутся в порядке возрастания ID карт, как и в остальных режимах.
+ * Хвост журнала периодически сворачивается в {@code cards.balance} через
+ * {@code CardLedgerService.foldLedger}.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerTransferHandler implements TransferHandler {
+    private final RepositoryHelper repositoryHelper;
+    private final CardLedgerRepository cardLedgerRepository;
+    private final CardMapper cardMapper;
+
+    @Override
+    public TransferMode getMode() {
+        return LEDGER;
+    }
+
+    /**
+     * Выполняет перевод с записью движений в журнал.
+     *
+     * @param userID             идентификатор пользователя, выполняющего перевод
+     * @param transferRequestDto DTO с параметрами перевода (ID карт и сумма)
+     * @return DTO с информацией об успешном переводе
+     * @throws IllegalArgumentException   если сумма некорректна
+     * @throws EntityNotFoundException    если одна из карт или пользователь не найдены
+     * @throws InsufficientFundsException если на карте отправителя недостаточно средств
+     * @throws CardStatusException        если одна из карт имеет неподходящий статус или чужая
+     */
+    @Override
+    @Transactional
+    public TransferInfoDto transfer(Long userID, TransferRequestDto transferRequestDto) {
+        var amount = transferRequestDto.amount();
+        var fromCardID = transferRequestDto.fromCardId();
+        var toCardID = transferRequestDto.toCardId();
+
+        if (isNull(amount) || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            log.warn("[WARN] Некорректная сумма перевода: {}", amount);
+            throw new IllegalArgumentException("Сумма перевода должна быть больше 0");
+        }
+
+        CardEntity cardFrom;
+        CardEntity cardTo;
+        if (fromCardID.equals(toCardID)) {
+            cardFrom = lockForDebit(fromCardID);
+            cardTo = cardFrom;
+        } else if (fromCardID < toCardID) {
+            cardFrom = lockForDebit(fromCardID);
+            cardTo = repositoryHelper.findCardEntityByIDAndShareLock(toCardID);
+        } else {
+            cardTo = repositoryHelper.findCardEntityByIDAndShareLock(toCardID);
+            cardFrom = lockForDebit(fromCardID);
+        }
+
+        isCardStatusValid(cardFrom, cardTo);
+        repositoryHelper.isUserExists(userID);
+        isCardOwner(userID, cardFrom, cardTo);
+        isEnoughAmount(cardFrom, amount);
+
+        cardFrom.setBalance(cardFrom.getBalance().subtract(amount));
+
+        BigDecimal balanceTo;
+        boolean creditFolded = cardFrom == cardTo;
+        if (creditFolded) {
+            cardTo.setBalance(cardTo.getBalance().add(amount));
+            balanceTo = cardTo.getBalance();
+        } else {
+            var tail = unfoldedAmount(toCardID);
+            if (tail.isEmpty()) {
+                cardLedgerRepository.markFoldPending(toCardID);
+            }
+            balanceTo = cardTo.getBalance().add(tail.orElse(BigDecimal.ZERO)).add(amount);
+        }
+
+        cardLedgerRepository.saveAll(List.of(
+                CardLedgerEntity.builder()
+                        .cardID(fromCardID)
+                        .counterpartyCardID(toCardID)
+                        .amount(amount.negate())
+                        .folded(true)
+                        .build(),
+                CardLedgerEntity.builder()
+                        .cardID(toCardID)
+                        .counterpartyCardID(fromCardID)
+                        .amount(amount)
+                        .folded(creditFolded)
+                        .foldEpoch(cardTo.getLedgerFoldEpoch())
+                        .build()
+        ));
+
+        log.info("""
+                        [INFO] Перевод выполнен успешно. userId={}, fromCard={}, toCard={}, amount={},
+                        newBalances: {} -> {}, {} -> {}
+                        """,
+                userID,
+                fromCardID, toCardID,
+                amount,
+                fromCardID, cardFrom.getBalance(),
+                toCardID, balanceTo
+        );
+
+        return cardMapper.toTransferInfoDto(
+                new CardBalanceDto(fromCardID, cardFrom.getLast4(), cardFrom.getNumberLength(), cardFrom.getNumber(),
+                        cardFrom.getBalance()),
+                new CardBalanceDto(toCardID, cardTo.getLast4(), cardTo.getNumberLength(), cardTo.getNumber(), balanceTo),
+                amount
+        );
+    }
+
+    /**
+     * Блокирует карту отправителя {@code FOR UPDATE}; её журнал при этом сворачивается в баланс.
+     */
+    private CardEntity lockForDebit(Long cardID) {
+        return repositoryHelper.findCardEntitiesByIDsAndLockModeType(cardID).get(cardID);
+    }
+
+    private Optional<BigDecimal> unfoldedAmount(Long cardID) {
+        return cardLedgerRepository.sumUnfoldedByCardIDs(List.of(cardID))
+                .stream()
+                .map(CardLedgerTailDto::amount)
+                .findFirst();
+    }
+
+    private static void isCardStatusValid(CardEntity cardFrom, CardEntity cardTo) {
+        if (ACTIVE != cardFrom.getCardStatus() || ACTIVE != cardTo.getCardStatus()) {
+            log.error("[ERROR] Одна из карт не активна: from={}, to={}", cardFrom.getCardStatus(), cardTo.getCardStatus());
+            throw new CardStatusException(
+                    "Нельзя перевести средства! Одна из карт не активна", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+
+    private static void isCardOwner(Long userID, CardEntity cardFrom, CardEntity cardTo) {
+        if (!userID.equals(cardFrom.getOwner().getId()) || !userID.equals(cardTo.getOwner().getId())) {
+            log.error("[ERROR] Ошибка! Одна из карт не принадлежит пользователю с ID {}, from={}, to={}",
+                    userID, cardFrom.getId(), cardTo.getId());
+            throw new CardStatusException(
+                    "Ошибка! Одна из карт не принадлежит пользователю!", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+
+    private static void isEnoughAmount(CardEntity cardFrom, BigDecimal amount) {
+        if (cardFrom.getBalance().compareTo(amount) < 0) {
+            log.warn("[WARN] Недостаточно средств: баланс={}, требуется={}", cardFrom.getBalance(), amount);
+            throw new InsufficientFundsException(
+                    "Недостаточно средств для перевода", "INSUFFICIENT_FUNDS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+}
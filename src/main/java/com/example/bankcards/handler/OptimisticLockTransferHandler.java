@@ -0,0 +1,137 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.TransferMode.OPTIMISTIC_LOCK;
+import static java.util.Objects.isNull;
+
+/**
+ * Перевод средств с оптимистичной блокировкой по колонке {@code cards.version}.
+ * <p>
+ * Карты читаются обычным {@code SELECT} без {@code FOR UPDATE}, балансы изменяются в памяти,
+ * а при фиксации Hibernate выполняет {@code UPDATE ... WHERE id = ? AND version = ?}.
+ * Если карту успел изменить другой перевод, фиксация завершается
+ * {@link ObjectOptimisticLockingFailureException}, и {@code TransferService} повторяет перевод
+ * с той же случайной задержкой, что и при deadlock.
+ * </p>
+ *
+ * <p>Режим выгоден, когда переводы редко затрагивают одни и те же карты. Проверка средств учитывает
+ * только {@code cards.balance}: несвёрнутые зачисления журнала и слотов баланса станут доступны
+ * после сворачивания.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OptimisticLockTransferHandler implements TransferHandler {
+    private final CardRepository cardRepository;
+    private final RepositoryHelper repositoryHelper;
+    private final CardMapper cardMapper;
+
+    @Override
+    public TransferMode getMode() {
+        return OPTIMISTIC_LOCK;
+    }
+
+    /**
+     * Выполняет перевод без блокировки строк карт.
+     *
+     * @param userID             идентификатор пользователя, выполняющего перевод
+     * @param transferRequestDto DTO с параметрами перевода (ID карт и сумма)
+     * @return DTO с информацией об успешном переводе
+     * @throws IllegalArgumentException                если сумма некорректна
+     * @throws EntityNotFoundException                 если одна из карт или пользователь не найдены
+     * @throws InsufficientFundsException              если на карте отправителя недостаточно средств
+     * @throws CardStatusException                     если одна из карт имеет неподходящий статус или чужая
+     * @throws ObjectOptimisticLockingFailureException если карту одновременно изменил другой перевод
+     */
+    @Override
+    @Transactional
+    public TransferInfoDto transfer(Long userID, TransferRequestDto transferRequestDto) {
+        var amount = transferRequestDto.amount();
+        var fromCardID = transferRequestDto.fromCardId();
+        var toCardID = transferRequestDto.toCardId();
+
+        if (isNull(amount) || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            log.warn("[WARN] Некорректная сумма перевода: {}", amount);
+            throw new IllegalArgumentException("Сумма перевода должна быть больше 0");
+        }
+
+        Map<Long, CardEntity> cards = StreamSupport
+                .stream(cardRepository.findAllById(List.of(fromCardID, toCardID)).spliterator(), false)
+                .collect(Collectors.toMap(CardEntity::getId, Function.identity()));
+        var cardFrom = findCard(cards, fromCardID);
+        var cardTo = findCard(cards, toCardID);
+
+        if (ACTIVE != cardFrom.getCardStatus() || ACTIVE != cardTo.getCardStatus()) {
+            log.error("[ERROR] Одна из карт не активна: from={}, to={}", cardFrom.getCardStatus(), cardTo.getCardStatus());
+            throw new CardStatusException(
+                    "Нельзя перевести средства! Одна из карт не активна", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        repositoryHelper.isUserExists(userID);
+
+        if (!userID.equals(cardFrom.getOwner().getId()) || !userID.equals(cardTo.getOwner().getId())) {
+            log.error("[ERROR] Ошибка! Одна из карт не принадлежит пользователю с ID {}, from={}, to={}",
+                    userID, fromCardID, toCardID);
+            throw new CardStatusException(
+                    "Ошибка! Одна из карт не принадлежит пользователю!", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        if (cardFrom.getBalance().compareTo(amount) < 0) {
+            log.warn("[WARN] Недостаточно средств: баланс={}, требуется={}", cardFrom.getBalance(), amount);
+            throw new InsufficientFundsException(
+                    "Недостаточно средств для перевода", "INSUFFICIENT_FUNDS", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        cardFrom.setBalance(cardFrom.getBalance().subtract(amount));
+        cardTo.setBalance(cardTo.getBalance().add(amount));
+
+        log.info("""
+                        [INFO] Перевод выполнен успешно. userId={}, fromCard={}, toCard={}, amount={},
+                        newBalances: {} -> {}, {} -> {}
+                        """,
+                userID,
+                fromCardID, toCardID,
+                amount,
+                fromCardID, cardFrom.getBalance(),
+                toCardID, cardTo.getBalance()
+        );
+
+        return cardMapper.toTransferInfoDto(cardFrom, cardTo, amount);
+    }
+
+    private static CardEntity findCard(Map<Long, CardEntity> cards, Long cardID) {
+        var card = cards.get(cardID);
+        if (isNull(card)) {
+            log.error("[ERROR] Карта с ID: [{}] не найден!", cardID);
+            throw new EntityNotFoundException("Card not found with ID: " + cardID);
+        }
+        return card;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.AsyncTransferStatusDto;
+import com.example.bankcards.dto.AsyncTransferTask;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+import static com.example.bankcards.entity.enums.TransferMode.PESSIMISTIC_LOCK;
+
+@Component
+@RequiredArgsConstructor
+public class PessimisticLockTransferHandler implements GroupCommitTransferHandler {
+    private final UserService userService;
+
+    @Override
+    public TransferMode getMode() {
+        return PESSIMISTIC_LOCK;
+    }
+
+    /**
+     * Выполняет перевод через {@link UserService#transferMoney}: обе карты загружаются
+     * с блокировкой {@code PESSIMISTIC_WRITE}, балансы изменяются через dirty checking.
+     */
+    @Override
+    public TransferInfoDto transfer(Long userID, TransferRequestDto transferRequestDto) {
+        return userService.transferMoney(userID, transferRequestDto);
+    }
+
+    /**
+     * Выполняет группу через {@link UserService#transferMoneyGroup}: карты всех переводов загружаются
+     * одним запросом с блокировкой {@code PESSIMISTIC_WRITE}.
+     */
+    @Override
+    public List<AsyncTransferStatusDto> transferGroup(List<AsyncTransferTask> tasks) {
+        return userService.transferMoneyGroup(tasks);
+    }
+}
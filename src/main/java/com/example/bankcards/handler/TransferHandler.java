@@ -0,0 +1,10 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.TransferMode;
+
+public interface TransferHandler {
+    TransferMode getMode();
+    TransferInfoDto transfer(Long userID, TransferRequestDto transferRequestDto);
+}
@@ -1,5 +1,6 @@
 package com.example.bankcards.mapper;
 
+import com.example.bankcards.dto.CardBalanceDto;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.TransferInfoDto;
@@ -11,6 +12,7 @@ import java.math.BigDecimal;
 @Mapper(componentModel = "spring", builder = @Builder(disableBuilder = false))
 public interface CardMapper {
 
+    // owner — ленивый прокси: getId() возвращает внешний ключ и не инициализирует владельца
     @Mapping(target = "ownerID", source = "owner.id")
     @Mapping(target = "cardID", source = "id")
     @Mapping(target = "number", source = "cardEntity", qualifiedByName = "defaultMaskCardNumber")
@@ -24,9 +26,24 @@ public interface CardMapper {
     @Mapping(target = "amount", source = "amount")
     TransferInfoDto toTransferInfoDto(CardEntity cardFrom, CardEntity cardTo, BigDecimal amount);
 
+    @Mapping(target = "numberCardFrom", expression = "java(cardFrom.maskedNumber())")
+    @Mapping(target = "numberCardTo", expression = "java(cardTo.maskedNumber())")
+    @Mapping(target = "cardFromBalance", source = "cardFrom.balance")
+    @Mapping(target = "cardBalanceTo", source = "cardTo.balance")
+    @Mapping(target = "transferDate",  expression = "java(java.time.LocalDateTime.now())")
+    @Mapping(target = "amount", source = "amount")
+    TransferInfoDto toTransferInfoDto(CardBalanceDto cardFrom, CardBalanceDto cardTo, BigDecimal amount);
+
 
+    /**
+     * Маска строится по {@code last4} без расшифровки номера. Полный номер загружается (и расшифровывается)
+     * только для карт, у которых фоновая задача ещё не заполнила последние цифры.
+     */
     @Named("defaultMaskCardNumber")
     default String getMaskedCardNumber(CardEntity entity) {
+        if (entity.getLast4() != null && entity.getNumberLength() != null) {
+            return MaskCardNumber.mask(entity.getLast4(), entity.getNumberLength());
+        }
         return MaskCardNumber.mask(entity.getNumber());
     }
 }
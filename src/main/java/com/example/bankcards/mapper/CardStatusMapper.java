@@ -1,7 +1,7 @@
 package com.example.bankcards.mapper;
 
+import com.example.bankcards.dto.CardBalanceDto;
 import com.example.bankcards.dto.CardStatusRequestDto;
-import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.CardStatusRequestEntity;
 import com.example.bankcards.entity.UserEntity;
 import org.mapstruct.Builder;
@@ -13,6 +13,6 @@ public interface CardStatusMapper {
 
     @Mapping(target = "userID", source = "status.ownerID")
     @Mapping(target = "username", source = "user.username")
-    @Mapping(target = "cardNumber", source = "card.number")
-    CardStatusRequestDto toDto(CardStatusRequestEntity status, CardEntity card, UserEntity user);
+    @Mapping(target = "cardNumber", expression = "java(card.maskedNumber())")
+    CardStatusRequestDto toDto(CardStatusRequestEntity status, CardBalanceDto card, UserEntity user);
 }
@@ -0,0 +1,12 @@
+package com.example.bankcards.mapper;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.entity.TransferIdempotencyEntity;
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+
+@Mapper(componentModel = "spring", builder = @Builder(disableBuilder = false))
+public interface TransferIdempotencyMapper {
+
+    TransferInfoDto toTransferInfoDto(TransferIdempotencyEntity entity);
+}
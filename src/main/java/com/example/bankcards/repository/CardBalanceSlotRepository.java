@@ -0,0 +1,48 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardBalanceSlotEntity;
+import com.example.bankcards.entity.enums.CardStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CardBalanceSlotRepository extends JpaRepository<CardBalanceSlotEntity, Long> {
+
+    @Modifying
+    @Query("""
+            UPDATE CardBalanceSlotEntity s
+            SET s.balance = s.balance + :amount
+            WHERE s.cardID = :cardID
+              AND s.slot = MOD(:hash, (
+                  SELECT c.balanceSlots
+                  FROM CardEntity c
+                  WHERE c.id = :cardID
+                    AND c.owner.id = :userID
+                    AND c.cardStatus = :status
+                    AND c.balanceSlots > 0
+              ))
+            """)
+    int creditSlot(@Param("cardID") Long cardID,
+                   @Param("userID") Long userID,
+                   @Param("status") CardStatus status,
+                   @Param("hash") int hash,
+                   @Param("amount") BigDecimal amount);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT s
+            FROM CardBalanceSlotEntity s
+            WHERE s.cardID IN :cardIDs
+            ORDER BY s.cardID ASC, s.slot ASC
+            """)
+    List<CardBalanceSlotEntity> findSlotsForUpdate(@Param("cardIDs") Collection<Long> cardIDs);
+}
@@ -0,0 +1,41 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardLedgerTailDto;
+import com.example.bankcards.entity.CardLedgerEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface CardLedgerRepository extends JpaRepository<CardLedgerEntity, Long> {
+
+    @Query("""
+            SELECT new com.example.bankcards.dto.CardLedgerTailDto(l.cardID, SUM(l.amount))
+            FROM CardLedgerEntity l
+            JOIN CardEntity c ON c.id = l.cardID
+            WHERE l.cardID IN :cardIDs AND l.folded = false AND l.foldEpoch = c.ledgerFoldEpoch
+            GROUP BY l.cardID
+            """)
+    List<CardLedgerTailDto> sumUnfoldedByCardIDs(@Param("cardIDs") Collection<Long> cardIDs);
+
+    /**
+     * Отмечает карту как имеющую несвёрнутый хвост журнала. Если отметка уже есть, запрос ничего не меняет
+     * и не блокирует строку, поэтому повторные зачисления на «горячую» карту не ждут друг друга.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO card_ledger_pending (card_id) VALUES (:cardID) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    void markFoldPending(@Param("cardID") Long cardID);
+
+    @Query(value = "SELECT card_id FROM card_ledger_pending ORDER BY card_id LIMIT :limit", nativeQuery = true)
+    List<Long> findFoldPendingCardIDs(@Param("limit") int limit);
+
+    @Modifying
+    @Query(value = "DELETE FROM card_ledger_pending WHERE card_id IN (:cardIDs)", nativeQuery = true)
+    void clearFoldPending(@Param("cardIDs") Collection<Long> cardIDs);
+}
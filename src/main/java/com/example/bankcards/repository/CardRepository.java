@@ -1,15 +1,24 @@
 package com.example.bankcards.repository;
 
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.dto.CardBalanceStateDto;
+import com.example.bankcards.dto.CardNumberDto;
+import com.example.bankcards.dto.CardTransferStateDto;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.enums.CardStatus;
 import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
@@ -26,10 +35,116 @@ public interface CardRepository extends CrudRepository<CardEntity, Long>, JpaSpe
     @Query("SELECT c FROM CardEntity c WHERE c.id = :cardID")
     Optional<CardEntity> findCardForUpdate(@Param("cardID") Long id);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+            SELECT c
+            FROM CardEntity c
+            WHERE c.id IN :cardIDs
+            ORDER BY c.id ASC
+            """)
+    List<CardEntity> findCardsForUpdateOrderedByID(@Param("cardIDs") Collection<Long> cardIDs);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query("SELECT c FROM CardEntity c WHERE c.id = :cardID")
+    Optional<CardEntity> findCardForShare(@Param("cardID") Long id);
+
+    @Query("""
+            SELECT c.balance + COALESCE((
+                SELECT SUM(l.amount)
+                FROM CardLedgerEntity l
+                WHERE l.cardID = c.id AND l.folded = false AND l.foldEpoch = c.ledgerFoldEpoch
+            ), 0) + COALESCE((
+                SELECT SUM(s.balance)
+                FROM CardBalanceSlotEntity s
+                WHERE s.cardID = c.id
+            ), 0)
+            FROM CardEntity c
+            WHERE c.id = :cardID AND c.cardStatus = :status
+            """)
+    Optional<BigDecimal> findAvailableBalance(@Param("cardID") Long cardID, @Param("status") CardStatus status);
+
+    @Query("""
+            SELECT new com.example.bankcards.dto.CardBalanceStateDto(
+                c.id,
+                c.owner.id,
+                c.cardStatus,
+                c.balance + COALESCE((
+                    SELECT SUM(l.amount)
+                    FROM CardLedgerEntity l
+                    WHERE l.cardID = c.id AND l.folded = false AND l.foldEpoch = c.ledgerFoldEpoch
+                ), 0) + COALESCE((
+                    SELECT SUM(s.balance)
+                    FROM CardBalanceSlotEntity s
+                    WHERE s.cardID = c.id
+                ), 0),
+                c.version
+            )
+            FROM CardEntity c
+            WHERE c.id = :cardID
+            """)
+    Optional<CardBalanceStateDto> findCardBalanceState(@Param("cardID") Long cardID);
+
     @Query("""
             SELECT ce
             FROM CardEntity ce
             WHERE ce.id = :cardID AND ce.owner.id = :userID
             """)
-    Optional<CardEntity> findCardEntityByCardAndUserID(Long cardID, Long userID);
-}
\ No newline at end of file
+    Optional<CardEntity> findCardEntityByCardAndUserID(@Param("cardID") Long cardID, @Param("userID") Long userID);
+
+    @Query("SELECT c.owner.id FROM CardEntity c WHERE c.id = :cardID")
+    Optional<Long> findOwnerIDByCardID(@Param("cardID") Long cardID);
+
+    @Modifying
+    @Query("""
+            UPDATE CardEntity c
+            SET c.balance = c.balance - :amount, c.version = c.version + 1
+            WHERE c.id = :cardID
+              AND c.owner.id = :userID
+              AND c.cardStatus = :status
+              AND c.balance >= :amount
+            """)
+    int debitCardIfSufficient(@Param("cardID") Long cardID,
+                              @Param("userID") Long userID,
+                              @Param("status") CardStatus status,
+                              @Param("amount") BigDecimal amount);
+
+    @Modifying
+    @Query("""
+            UPDATE CardEntity c
+            SET c.balance = c.balance + :amount, c.version = c.version + 1
+            WHERE c.id = :cardID
+              AND c.owner.id = :userID
+              AND c.cardStatus = :status
+            """)
+    int creditCard(@Param("cardID") Long cardID,
+                   @Param("userID") Long userID,
+                   @Param("status") CardStatus status,
+                   @Param("amount") BigDecimal amount);
+
+    @Query("""
+            SELECT new com.example.bankcards.dto.CardBalanceDto(
+                c.id, c.last4, c.numberLength, CASE WHEN c.last4 IS NULL THEN c.number END, c.balance
+            )
+            FROM CardEntity c
+            WHERE c.id IN :cardIDs
+            """)
+    List<CardBalanceDto> findCardBalances(@Param("cardIDs") Collection<Long> cardIDs);
+
+    @Query("""
+            SELECT new com.example.bankcards.dto.CardTransferStateDto(c.id, c.owner.id, c.cardStatus, c.balance)
+            FROM CardEntity c
+            WHERE c.id IN :cardIDs
+            """)
+    List<CardTransferStateDto> findCardTransferStates(@Param("cardIDs") Collection<Long> cardIDs);
+
+    Optional<CardEntity> findByNumberHash(String numberHash);
+
+    @Query("""
+            SELECT new com.example.bankcards.dto.CardNumberDto(c.id, c.number, c.numberHash)
+            FROM CardEntity c
+            WHERE ((c.numberHash IS NULL AND c.numberHashConflict = false) OR c.last4 IS NULL)
+              AND c.number IS NOT NULL AND c.id > :afterID
+            ORDER BY c.id ASC
+            """)
+    List<CardNumberDto> findCardNumbersToBackfill(@Param("afterID") Long afterID, Limit limit);
+}
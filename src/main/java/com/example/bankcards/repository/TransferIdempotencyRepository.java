@@ -0,0 +1,45 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.TransferIdempotencyEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface TransferIdempotencyRepository extends JpaRepository<TransferIdempotencyEntity, Long> {
+
+    /**
+     * Ищет ключ без учёта срока хранения: просроченная, но ещё не удалённая строка
+     * по-прежнему занимает уникальный индекс {@code (user_id, idempotency_key)}.
+     */
+    @Query("""
+            SELECT tie
+            FROM TransferIdempotencyEntity tie
+            WHERE tie.userID = :userID
+              AND tie.idempotencyKey = :idempotencyKey
+            """)
+    Optional<TransferIdempotencyEntity> findByUserIDAndKey(@Param("userID") Long userID,
+                                                           @Param("idempotencyKey") String idempotencyKey);
+
+    @Transactional
+    @Modifying
+    @Query("""
+            DELETE FROM TransferIdempotencyEntity tie
+            WHERE tie.userID = :userID
+              AND tie.idempotencyKey = :idempotencyKey
+              AND tie.expiresAt <= :now
+            """)
+    int deleteExpiredKey(@Param("userID") Long userID,
+                         @Param("idempotencyKey") String idempotencyKey,
+                         @Param("now") LocalDateTime now);
+
+    @Modifying
+    @Query("DELETE FROM TransferIdempotencyEntity tie WHERE tie.expiresAt <= :now")
+    int deleteExpired(@Param("now") LocalDateTime now);
+}
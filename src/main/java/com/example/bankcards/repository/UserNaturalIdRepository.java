@@ -0,0 +1,18 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.UserEntity;
+
+import java.util.Optional;
+
+/**
+ * Поиск пользователя по natural id ({@code username}) через кэш второго уровня.
+ * <p>
+ * В отличие от производного запроса {@code findByUsername}, который всегда идёт в базу данных,
+ * повторный поиск по имени разрешается из регионов {@link UserEntity#USERNAME_CACHE_REGION}
+ * и {@link UserEntity#CACHE_REGION} без SQL.
+ * </p>
+ */
+public interface UserNaturalIdRepository {
+
+    Optional<UserEntity> findByNaturalUsername(String username);
+}
@@ -6,21 +6,35 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface UserRepository extends JpaRepository<UserEntity, Long>, JpaSpecificationExecutor<UserEntity> {
+public interface UserRepository extends JpaRepository<UserEntity, Long>,
+        JpaSpecificationExecutor<UserEntity>,
+        UserNaturalIdRepository {
     Optional<UserEntity> findByUsername(String username);
 
     boolean existsByUsername(String username);
 
-    @EntityGraph(attributePaths = {"cards"})
+    @EntityGraph(UserEntity.WITH_CARDS)
+    Optional<UserEntity> findWithCardsById(Long id);
+
+    @EntityGraph(UserEntity.WITH_CARDS)
     @Query("""
             SELECT ue
             FROM UserEntity ue
             """)
     List<UserEntity> findAllWithCards();
+
+    @Query("""
+            SELECT ue.id
+            FROM UserEntity ue
+            WHERE ue.id IN :ids
+            """)
+    List<Long> findExistingIDs(@Param("ids") Collection<Long> ids);
 }
\ No newline at end of file
@@ -14,7 +14,7 @@ public class CustomUserDetailService implements UserDetailsService {
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-        return userRepository.findByUsername(username).orElseThrow(
+        return userRepository.findByNaturalUsername(username).orElseThrow(
                 () -> new UsernameNotFoundException("Пользователь с именем %s не найден!".formatted(username))
         );
     }
@@ -43,7 +43,7 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         String userNameFromToken = authUtil.getUserNameFromToken(token);
 
         if (nonNull(userNameFromToken) && isNull(SecurityContextHolder.getContext().getAuthentication())) {
-            UserEntity userEntity = userRepository.findByUsername(userNameFromToken).orElseThrow(
+            UserEntity userEntity = userRepository.findByNaturalUsername(userNameFromToken).orElseThrow(
                     () -> new EntityNotFoundException("")
             );
             UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
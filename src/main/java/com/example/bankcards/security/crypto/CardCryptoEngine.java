@@ -0,0 +1,20 @@
+package com.example.bankcards.security.crypto;
+
+import com.example.bankcards.entity.enums.CardCipherMode;
+
+/**
+ * Движок шифрования номеров карт.
+ * <p>
+ * Каждая реализация отвечает за один формат шифротекста и по самому значению определяет,
+ * может ли его расшифровать, поэтому значения, записанные в разных режимах, читаются одновременно.
+ * </p>
+ */
+public interface CardCryptoEngine {
+    CardCipherMode getMode();
+
+    boolean canDecrypt(String value);
+
+    String encrypt(String number);
+
+    String decrypt(String value);
+}
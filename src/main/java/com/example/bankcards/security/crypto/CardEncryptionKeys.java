@@ -0,0 +1,80 @@
+package com.example.bankcards.security.crypto;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Версионированные ключи шифрования номеров карт.
+ * <p>
+ * Новые значения шифруются текущим ключом {@code card.encryption.key} с версией {@code card.encryption.key-version}.
+ * Выведенные из оборота ключи перечисляются в {@code card.encryption.retired-keys} в виде {@code <версия>:<Base64>}
+ * и используются только для чтения. Значения без префикса версии (исходный формат CBC)
+ * всегда зашифрованы ключом версии {@value #LEGACY_VERSION}.
+ * </p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   encryption:
+ *     key: 12345678901234567890123456789012
+ *     key-version: 2
+ *     retired-keys: 1:MTIzNDU2Nzg5MDEyMzQ1Njc4OTAxMjM0NTY3ODkwMTI=
+ * </pre>
+ */
+@Component
+public class CardEncryptionKeys {
+    public static final int LEGACY_VERSION = 1;
+
+    @Getter
+    private final int currentVersion;
+
+    private final Map<Integer, SecretKey> keys = new HashMap<>();
+
+    public CardEncryptionKeys(@Value("${card.encryption.key}") String currentKey,
+                              @Value("${card.encryption.key-version:1}") int currentVersion,
+                              @Value("${card.encryption.retired-keys:}") List<String> retiredKeys) {
+        this.currentVersion = currentVersion;
+        for (String retiredKey : retiredKeys) {
+            int separator = retiredKey.indexOf(':');
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid retired key, expected <version>:<base64>");
+            }
+            keys.put(Integer.parseInt(retiredKey.substring(0, separator).trim()),
+                    toKey(retiredKey.substring(separator + 1).trim()));
+        }
+        keys.put(currentVersion, toKey(currentKey));
+    }
+
+    public SecretKey current() {
+        return keys.get(currentVersion);
+    }
+
+    /**
+     * Возвращает ключ указанной версии.
+     *
+     * @param version версия ключа из префикса шифротекста
+     * @return ключ шифрования
+     * @throws IllegalStateException если ключ этой версии не настроен
+     */
+    public SecretKey get(int version) {
+        SecretKey key = keys.get(version);
+        if (isNull(key)) {
+            throw new IllegalStateException("Encryption key version " + version + " is not configured");
+        }
+        return key;
+    }
+
+    private static SecretKey toKey(String base64) {
+        return new SecretKeySpec(Base64.getDecoder().decode(base64), "AES");
+    }
+}
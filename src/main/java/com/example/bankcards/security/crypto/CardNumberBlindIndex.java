@@ -0,0 +1,74 @@
+package com.example.bankcards.security.crypto;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.HexFormat;
+
+/**
+ * Слепой индекс номера карты: {@code HMAC-SHA256(ключ, цифры номера)} в виде hex-строки.
+ * <p>
+ * Номер хранится зашифрованным со случайным nonce, поэтому искать по нему в базе нельзя. Значение индекса
+ * детерминировано и хранится в {@code cards.number_hash} под уникальным индексом: поиск карты по номеру —
+ * одно обращение к индексу, а повторный номер отклоняется базой. Без ключа по значению индекса
+ * номер не подобрать перебором, поэтому ключ хранится отдельно от ключей шифрования.
+ * </p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   blind-index:
+ *     key: bG9va3VwLWtleS1mb3ItY2FyZC1udW1iZXJzLTAxMjM=
+ * </pre>
+ */
+@Component
+public class CardNumberBlindIndex {
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final ThreadLocal<Mac> macs;
+
+    public CardNumberBlindIndex(@Value("${card.blind-index.key}") String key) {
+        var secretKey = new SecretKeySpec(Base64.getDecoder().decode(key), ALGORITHM);
+        this.macs = ThreadLocal.withInitial(() -> {
+            try {
+                Mac mac = Mac.getInstance(ALGORITHM);
+                mac.init(secretKey);
+                return mac;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("Cannot initialize " + ALGORITHM, e);
+            }
+        });
+    }
+
+    /**
+     * Вычисляет слепой индекс номера карты. Пробелы и дефисы в номере не учитываются.
+     *
+     * @param number номер карты
+     * @return HMAC номера в виде 64 hex-символов
+     */
+    public String hash(String number) {
+        return HexFormat.of().formatHex(macs.get().doFinal(digits(number).getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    /**
+     * Оставляет в номере карты только цифры.
+     *
+     * @param number номер карты, возможно с пробелами или дефисами
+     * @return цифры номера
+     */
+    public static String digits(String number) {
+        var digits = new StringBuilder(number.length());
+        for (int i = 0; i < number.length(); i++) {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.bankcards.security.crypto;
+
+import com.example.bankcards.entity.CardEntity;
+import jakarta.persistence.PrePersist;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Заполняет производные от номера столбцы перед вставкой карты: слепой индекс {@link CardEntity#getNumberHash()},
+ * последние четыре цифры и длину номера. Поэтому ни один путь создания карт не может сохранить номер без них.
+ * Номер карты после выпуска не меняется, поэтому при обновлениях индекс не пересчитывается.
+ * <p>
+ * Hibernate получает слушатель из контекста Spring, так что зависимости внедряются обычным образом.
+ * </p>
+ */
+@Component
+@RequiredArgsConstructor
+public class CardNumberIndexListener {
+    private final CardNumberBlindIndex blindIndex;
+
+    @PrePersist
+    public void index(CardEntity card) {
+        if (nonNull(card.getNumber())) {
+            String digits = CardNumberBlindIndex.digits(card.getNumber());
+            card.setNumberHash(blindIndex.hash(digits));
+            card.setLast4(digits.substring(Math.max(digits.length() - 4, 0)));
+            card.setNumberLength(digits.length());
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.bankcards.security.crypto;
+
+import com.example.bankcards.entity.enums.CardCipherMode;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+
+import static com.example.bankcards.entity.enums.CardCipherMode.CBC;
+
+/**
+ * Исходный формат номеров карт: AES/CBC/PKCS5Padding с фиксированным вектором {@code card.encryption.vector},
+ * Base64 без префикса, ключ версии {@value CardEncryptionKeys#LEGACY_VERSION}.
+ * <p>
+ * Шифр с фиксированным вектором после {@code doFinal} возвращается в начальное состояние, поэтому
+ * у каждого потока есть по одному уже инициализированному шифру для шифрования и расшифровки:
+ * поиск провайдера и расписание ключа выполняются один раз на поток, а не на каждую строку.
+ * </p>
+ */
+@Component
+public class CbcCardCryptoEngine implements CardCryptoEngine {
+    private static final String TRANSFORMATION = "AES/CBC/PKCS5Padding";
+
+    private final ThreadLocal<Cipher> encryptors;
+    private final ThreadLocal<Cipher> decryptors;
+
+    public CbcCardCryptoEngine(CardEncryptionKeys keys,
+                               @Value("${card.encryption.vector}") String initVector) {
+        SecretKey key = keys.get(CardEncryptionKeys.LEGACY_VERSION);
+        var iv = new IvParameterSpec(initVector.getBytes(StandardCharsets.UTF_8));
+        this.encryptors = ThreadLocal.withInitial(() -> newCipher(Cipher.ENCRYPT_MODE, key, iv));
+        this.decryptors = ThreadLocal.withInitial(() -> newCipher(Cipher.DECRYPT_MODE, key, iv));
+    }
+
+    @Override
+    public CardCipherMode getMode() {
+        return CBC;
+    }
+
+    @Override
+    public boolean canDecrypt(String value) {
+        return !GcmCardCryptoEngine.hasVersionPrefix(value);
+    }
+
+    @Override
+    public String encrypt(String number) {
+        try {
+            byte[] encryptedBytes = encryptors.get().doFinal(number.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(encryptedBytes);
+        } catch (GeneralSecurityException e) {
+            encryptors.remove();
+            throw new RuntimeException("Encryption error", e);
+        }
+    }
+
+    @Override
+    public String decrypt(String value) {
+        try {
+            byte[] decryptedBytes = decryptors.get().doFinal(Base64.getDecoder().decode(value));
+            return new String(decryptedBytes, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException e) {
+            decryptors.remove();
+            throw new RuntimeException("Decryption error", e);
+        }
+    }
+
+    private static Cipher newCipher(int mode, SecretKey key, IvParameterSpec iv) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key, iv);
+            return cipher;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + TRANSFORMATION, e);
+        }
+    }
+}
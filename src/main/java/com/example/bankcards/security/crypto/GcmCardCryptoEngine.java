@@ -0,0 +1,116 @@
+package com.example.bankcards.security.crypto;
+
+import com.example.bankcards.entity.enums.CardCipherMode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+import static com.example.bankcards.entity.enums.CardCipherMode.GCM;
+
+/**
+ * Аутентифицированное шифрование номеров карт AES/GCM.
+ * <p>
+ * Формат значения: {@code v<версия ключа>:Base64(nonce || шифротекст || тег)}. Nonce длиной 12 байт
+ * генерируется заново для каждой записи, поэтому одинаковые номера дают разные шифротексты,
+ * а изменённое в базе значение не расшифруется. По версии в префиксе выбирается ключ,
+ * так что после смены ключа старые значения остаются читаемыми.
+ * </p>
+ *
+ * <p>GCM запрещает повторно использовать nonce, поэтому шифр инициализируется на каждую запись,
+ * но сам объект {@link Cipher} берётся из потока: поиска провайдера нет, а расписание ключа
+ * JDK пересчитывает только при смене ключа.</p>
+ */
+@Component
+@RequiredArgsConstructor
+public class GcmCardCryptoEngine implements CardCryptoEngine {
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int NONCE_LENGTH = 12;
+    private static final int TAG_LENGTH_BITS = 128;
+    private static final char VERSION_PREFIX = 'v';
+    private static final char VERSION_SEPARATOR = ':';
+
+    private static final ThreadLocal<Cipher> CIPHERS = ThreadLocal.withInitial(GcmCardCryptoEngine::newCipher);
+
+    private final SecureRandom random = new SecureRandom();
+
+    private final CardEncryptionKeys keys;
+
+    @Override
+    public CardCipherMode getMode() {
+        return GCM;
+    }
+
+    @Override
+    public boolean canDecrypt(String value) {
+        return hasVersionPrefix(value);
+    }
+
+    @Override
+    public String encrypt(String number) {
+        var nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        byte[] plain = number.getBytes(StandardCharsets.UTF_8);
+
+        try {
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.ENCRYPT_MODE, keys.current(), new GCMParameterSpec(TAG_LENGTH_BITS, nonce));
+            var out = ByteBuffer.allocate(NONCE_LENGTH + cipher.getOutputSize(plain.length)).put(nonce);
+            cipher.doFinal(ByteBuffer.wrap(plain), out);
+            return VERSION_PREFIX + Integer.toString(keys.getCurrentVersion()) + VERSION_SEPARATOR
+                    + Base64.getEncoder().encodeToString(out.array());
+        } catch (GeneralSecurityException e) {
+            CIPHERS.remove();
+            throw new RuntimeException("Encryption error", e);
+        }
+    }
+
+    @Override
+    public String decrypt(String value) {
+        int separator = value.indexOf(VERSION_SEPARATOR);
+
+        try {
+            int version = Integer.parseInt(value, 1, separator, 10);
+            byte[] payload = Base64.getDecoder().decode(value.substring(separator + 1));
+
+            Cipher cipher = CIPHERS.get();
+            cipher.init(Cipher.DECRYPT_MODE, keys.get(version),
+                    new GCMParameterSpec(TAG_LENGTH_BITS, payload, 0, NONCE_LENGTH));
+            byte[] plain = cipher.doFinal(payload, NONCE_LENGTH, payload.length - NONCE_LENGTH);
+            return new String(plain, StandardCharsets.UTF_8);
+        } catch (GeneralSecurityException | IllegalArgumentException | IndexOutOfBoundsException e) {
+            CIPHERS.remove();
+            throw new RuntimeException("Decryption error", e);
+        }
+    }
+
+    /**
+     * Проверяет префикс {@code v<цифры>:}. Двоеточия нет в алфавите Base64,
+     * поэтому значение исходного формата с таким префиксом совпасть не может.
+     */
+    static boolean hasVersionPrefix(String value) {
+        if (value.length() < 3 || value.charAt(0) != VERSION_PREFIX) {
+            return false;
+        }
+
+        int i = 1;
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            i++;
+        }
+        return i > 1 && i < value.length() && value.charAt(i) == VERSION_SEPARATOR;
+    }
+
+    private static Cipher newCipher() {
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot initialize " + TRANSFORMATION, e);
+        }
+    }
+}
@@ -1,33 +1,45 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardBalanceDto;
 import com.example.bankcards.dto.CardStatusRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.entity.CardBalanceSlotEntity;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.CardStatusRequestEntity;
+import com.example.bankcards.entity.UserEntity;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.entity.enums.CardOperation;
 import com.example.bankcards.entity.enums.CardStatus;
+import com.example.bankcards.exception.BalanceSlotsException;
+import com.example.bankcards.exception.PaginationException;
 import com.example.bankcards.handler.CardOperationHandler;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.mapper.CardStatusMapper;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
 import com.example.bankcards.repository.CardRepository;
-import com.example.bankcards.repository.CardStatusRequestRepository;
-import com.example.bankcards.util.GenerateCardNumber;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.crypto.CardNumberBlindIndex;
+import com.example.bankcards.util.PageCursor;
 import com.example.bankcards.util.RepositoryHelper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.Page;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static com.example.bankcards.entity.enums.CardStatus.*;
 import static com.example.bankcards.util.RepositoryHelper.getCardDtos;
@@ -43,7 +55,6 @@ import static java.util.Objects.isNull;
 @RequiredArgsConstructor
 public class AdminCardService {
     private final CardRepository cardRepository;
-    private final CardStatusRequestRepository statusRequestRepository;
     private final RepositoryHelper repositoryHelper;
     private final CardMapper cardMapper;
 
@@ -55,6 +66,16 @@ public class AdminCardService {
 
     private final Map<CardOperation, CardOperationHandler> cardOperationsHandler;
     private final CardStatusMapper cardStatusMapper;
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
+    private final UserRepository userRepository;
+    private final CardNumberBlindIndex cardNumberBlindIndex;
+    private final CardNumberAllocator cardNumberAllocator;
+
+    /**
+     * Максимальное количество слотов баланса для одной карты.
+     */
+    @Value("${card.balance-slots.max:64}")
+    private int maxBalanceSlots;
 
     /**
      * Возвращает список всех карт с возможностью фильтрации по статусу, владельцу и дате истечения срока действия.
@@ -79,11 +100,53 @@ public class AdminCardService {
                 .expirationDate(expirationDate)
                 .build();
 
-        Specification<CardEntity> spec = repositoryHelper.getSpecificationWithParams(specificationData);
+        return getCardDtos(pageable, specificationData, repositoryHelper, cardMapper);
+    }
 
-        return getCardDtos(pageable, spec, repositoryHelper, cardMapper);
+    /**
+     * Возвращает страницу карт для курсорной пагинации с теми же фильтрами, что и {@link #getAllCards}.
+     * Запрос {@code COUNT(*)} не выполняется.
+     *
+     * @param after          курсор предыдущей страницы (может быть {@code null} — первая страница)
+     * @param size           количество элементов на странице
+     * @param status         статус карты (может быть {@code null})
+     * @param ownerID        идентификатор владельца карты (может быть {@code null})
+     * @param expirationDate дата истечения срока действия карты (может быть {@code null})
+     * @return карты страницы и курсор следующей страницы
+     * @throws PaginationException если курсор или размер страницы некорректны
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardDto> getAllCardsAfter(String after,
+                                                   int size,
+                                                   CardStatus status,
+                                                   Long ownerID,
+                                                   LocalDate expirationDate) {
+        PageCursor.isSizeValid(size);
+        var specificationData = SpecificationData.builder()
+                .status(status)
+                .ownerID(ownerID)
+                .expirationDate(expirationDate)
+                .afterID(PageCursor.decode(after))
+                .build();
+
+        return repositoryHelper.getCardCursorPage(
+                specificationData, size, cards -> cards.stream().map(cardMapper::toDto).toList()
+        );
     }
 
+    /**
+     * Возвращает заявки на изменение статуса карт с фильтрацией по типу заявки, владельцу, карте и дате.
+     * Владельцы и номера карт загружаются пакетно, см. {@link #toCardStatusRequestDtos}.
+     *
+     * @param page          номер страницы (начиная с 0)
+     * @param size          количество элементов на странице
+     * @param statusRequest тип заявки (может быть {@code null})
+     * @param ownerID       идентификатор владельца карты (может быть {@code null})
+     * @param cardID        идентификатор карты (может быть {@code null})
+     * @param requestedAt   дата создания заявки (может быть {@code null})
+     * @return список {@link CardStatusRequestDto}
+     * @throws EntityNotFoundException если владелец или карта заявки не найдены
+     */
     @Transactional(readOnly = true)
     public List<CardStatusRequestDto> getAllCardsRequests(int page,
                                                           int size,
@@ -99,16 +162,79 @@ public class AdminCardService {
                 .requestedAt(requestedAt)
                 .build();
 
-        Specification<CardStatusRequestEntity> specificationWithParams =
-                repositoryHelper.getSpecificationWithParams(specificationData);
+        List<CardStatusRequestEntity> requests =
+                repositoryHelper.findPage(CardStatusRequestEntity.class, specificationData, pageable).getContent();
+
+        return toCardStatusRequestDtos(requests);
+    }
+
+    /**
+     * Возвращает страницу заявок на изменение статуса карт для курсорной пагинации
+     * с теми же фильтрами, что и {@link #getAllCardsRequests}. Запрос {@code COUNT(*)} не выполняется.
+     *
+     * @param after         курсор предыдущей страницы (может быть {@code null} — первая страница)
+     * @param size          количество элементов на странице
+     * @param statusRequest тип заявки (может быть {@code null})
+     * @param ownerID       идентификатор владельца карты (может быть {@code null})
+     * @param cardID        идентификатор карты (может быть {@code null})
+     * @param requestedAt   дата создания заявки (может быть {@code null})
+     * @return заявки страницы и курсор следующей страницы
+     * @throws PaginationException     если курсор или размер страницы некорректны
+     * @throws EntityNotFoundException если владелец или карта заявки не найдены
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardStatusRequestDto> getAllCardsRequestsAfter(String after,
+                                                                        int size,
+                                                                        CardOperation statusRequest,
+                                                                        Long ownerID,
+                                                                        Long cardID,
+                                                                        LocalDateTime requestedAt) {
+        PageCursor.isSizeValid(size);
+        var specificationData = SpecificationData.builder()
+                .statusRequest(statusRequest)
+                .ownerID(ownerID)
+                .cardID(cardID)
+                .requestedAt(requestedAt)
+                .afterID(PageCursor.decode(after))
+                .build();
+
+        return repositoryHelper.getCursorPage(
+                CardStatusRequestEntity.class, specificationData, size,
+                CardStatusRequestEntity::getId, this::toCardStatusRequestDtos
+        );
+    }
+
+    /**
+     * Преобразует заявки страницы в DTO. Владельцы и номера карт загружаются двумя пакетными
+     * запросами {@code IN (...)} по уникальным ID, поэтому количество запросов не зависит от размера страницы.
+     */
+    private List<CardStatusRequestDto> toCardStatusRequestDtos(List<CardStatusRequestEntity> requests) {
+        if (requests.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        Set<Long> ownerIDs = requests.stream().map(CardStatusRequestEntity::getOwnerID).collect(Collectors.toSet());
+        Set<Long> cardIDs = requests.stream().map(CardStatusRequestEntity::getCardID).collect(Collectors.toSet());
 
-        Page<CardStatusRequestEntity> pageStatus = statusRequestRepository.findAll(specificationWithParams, pageable);
+        Map<Long, UserEntity> owners = userRepository.findAllById(ownerIDs).stream()
+                .collect(Collectors.toMap(UserEntity::getId, Function.identity()));
+        Map<Long, CardBalanceDto> cards = cardRepository.findCardBalances(cardIDs).stream()
+                .collect(Collectors.toMap(CardBalanceDto::cardID, Function.identity()));
 
-        return pageStatus.stream().map(entity -> {
-            var userEntityByID = repositoryHelper.findUserEntityByID(entity.getOwnerID());
-            var cardEntityByID = repositoryHelper.findCardEntityByID(entity.getCardID());
+        return requests.stream().map(entity -> {
+            var owner = owners.get(entity.getOwnerID());
+            if (isNull(owner)) {
+                log.error("[ERROR] Пользователь с ID: [{}] не найден!", entity.getOwnerID());
+                throw new EntityNotFoundException("User not found with id %s: ".formatted(entity.getOwnerID()));
+            }
 
-            return cardStatusMapper.toDto(entity, cardEntityByID, userEntityByID);
+            var card = cards.get(entity.getCardID());
+            if (isNull(card)) {
+                log.error("[ERROR] Карта с ID: [{}] не найден!", entity.getCardID());
+                throw new EntityNotFoundException("Card not found with ID: " + entity.getCardID());
+            }
+
+            return cardStatusMapper.toDto(entity, card, owner);
         }).toList();
     }
 
@@ -125,6 +251,25 @@ public class AdminCardService {
         return cardMapper.toDto(repositoryHelper.findCardEntityByID(cardID));
     }
 
+    /**
+     * Находит карту по её номеру одним обращением к уникальному индексу {@code cards.number_hash}.
+     * Номер в лог не пишется.
+     *
+     * @param number номер карты (пробелы и дефисы допускаются)
+     * @return {@link CardDto} найденной карты
+     * @throws EntityNotFoundException если карты с таким номером нет
+     */
+    @Transactional(readOnly = true)
+    public CardDto findCardByNumber(String number) throws EntityNotFoundException {
+        log.info("[INFO] Запрос на поиск карты по номеру");
+        return cardRepository.findByNumberHash(cardNumberBlindIndex.hash(number))
+                .map(cardMapper::toDto)
+                .orElseThrow(() -> {
+                    log.error("[ERROR] Карта с указанным номером не найдена!");
+                    return new EntityNotFoundException("Card not found by number");
+                });
+    }
+
     /**
      * Создаёт новую карту для указанного пользователя.
      *
@@ -138,7 +283,7 @@ public class AdminCardService {
         log.info("[INFO] Создаём карту для пользователя с ID: [{}]", ownerId);
         var userEntity = repositoryHelper.findUserEntityByID(ownerId);
 
-        String cardNumber = GenerateCardNumber.generateCardNumber();
+        String cardNumber = cardNumberAllocator.allocate();
 
         var cardEntity = new CardEntity();
         cardEntity.setBalance(BigDecimal.ZERO);
@@ -177,5 +322,50 @@ public class AdminCardService {
         return cardMapper.toDto(cardEntity);
     }
 
+    /**
+     * Включает, изменяет или отключает слоты баланса карты.
+     * <p>
+     * Слоты предназначены для «горячих» карт, на которые одновременно поступает много зачислений:
+     * каждое зачисление в режиме {@code CONDITIONAL_UPDATE} блокирует только один из {@code slots} слотов.
+     * Перед изменением карта блокируется {@code FOR UPDATE}, а текущие слоты сворачиваются в баланс,
+     * поэтому деньги при смене количества слотов не теряются. Значение {@code 0} отключает слоты.
+     * </p>
+     *
+     * @param cardID идентификатор карты
+     * @param slots  количество слотов (от 0 до {@code card.balance-slots.max})
+     * @return {@link CardDto} карты после изменения
+     * @throws EntityNotFoundException если карта с указанным ID не найдена
+     * @throws BalanceSlotsException   если количество слотов вне допустимого диапазона
+     */
+    @Transactional
+    public CardDto changeBalanceSlots(Long cardID, int slots) throws EntityNotFoundException {
+        if (slots < 0 || slots > maxBalanceSlots) {
+            log.warn("[WARN] Некорректное количество слотов баланса: {}", slots);
+            throw new BalanceSlotsException(
+                    "Количество слотов баланса должно быть от 0 до %d".formatted(maxBalanceSlots),
+                    "VALIDATION_ERROR", HttpStatus.BAD_REQUEST.value()
+            );
+        }
 
+        var cardEntity = repositoryHelper.findCardEntitiesByIDsAndLockModeType(cardID).get(cardID);
+
+        if (cardEntity.getBalanceSlots() > 0) {
+            cardBalanceSlotRepository.deleteAll(cardBalanceSlotRepository.findSlotsForUpdate(List.of(cardID)));
+            cardBalanceSlotRepository.flush();
+        }
+
+        var newSlots = new ArrayList<CardBalanceSlotEntity>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            newSlots.add(CardBalanceSlotEntity.builder()
+                    .cardID(cardID)
+                    .slot(slot)
+                    .balance(BigDecimal.ZERO)
+                    .build());
+        }
+        cardBalanceSlotRepository.saveAll(newSlots);
+        cardEntity.setBalanceSlots(slots);
+
+        log.info("[INFO] Для карты с ID: [{}] установлено слотов баланса: {}", cardID, slots);
+        return cardMapper.toDto(cardEntity);
+    }
 }
@@ -1,17 +1,20 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.dto.SpecificationData;
 import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.UserEntity;
 import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.exception.PaginationException;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.PageCursor;
 import com.example.bankcards.util.RepositoryHelper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -42,6 +45,7 @@ public class AdminUserService {
     private final UserRepository userRepository;
     private final RepositoryHelper repositoryHelper;
     private final UserMapper userMapper;
+    private final CardBalanceCache cardBalanceCache;
 
     /**
      * Возвращает список пользователей с поддержкой пагинации, фильтрации и сортировки по возрастанию ID.
@@ -64,10 +68,7 @@ public class AdminUserService {
                 .createdDate(createdDate)
                 .build();
 
-        Specification<UserEntity> specificationWithParams
-                = repositoryHelper.getSpecificationWithParams(specificationData);
-
-        Page<UserEntity> allUsers = userRepository.findAll(specificationWithParams, pageable);
+        Page<UserEntity> allUsers = repositoryHelper.findPage(UserEntity.class, specificationData, pageable);
 
         if (allUsers.isEmpty()) {
             return Collections.emptyList();
@@ -79,6 +80,35 @@ public class AdminUserService {
                 .toList();
     }
 
+    /**
+     * Возвращает страницу пользователей для курсорной пагинации с теми же фильтрами, что и {@link #getAllUsers}.
+     * Запрос {@code COUNT(*)} не выполняется.
+     *
+     * @param after       курсор предыдущей страницы (может быть {@code null} — первая страница)
+     * @param size        количество элементов на странице
+     * @param enabled     фильтр по доступности аккаунта пользователя (может быть {@code null})
+     * @param createdDate фильтр по дате создания пользователя (может быть {@code null})
+     * @return пользователи страницы и курсор следующей страницы
+     * @throws PaginationException если курсор или размер страницы некорректны
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<UserDto> getAllUsersAfter(String after,
+                                                   int size,
+                                                   Boolean enabled,
+                                                   LocalDateTime createdDate) {
+        PageCursor.isSizeValid(size);
+        var specificationData = SpecificationData.builder()
+                .enabled(enabled)
+                .createdDate(createdDate)
+                .afterID(PageCursor.decode(after))
+                .build();
+
+        return repositoryHelper.getCursorPage(
+                UserEntity.class, specificationData, size,
+                UserEntity::getId, users -> users.stream().map(userMapper::toUserDto).toList()
+        );
+    }
+
     /**
      * Возвращает информацию о пользователе по его идентификатору.
      *
@@ -98,6 +128,7 @@ public class AdminUserService {
      * Перед удалением выполняется бизнес-проверка — наличие активных карт у пользователя.
      * Если хотя бы одна из карт имеет статус {@code ACTIVE},
      * операция удаления будет отклонена с выбрасыванием исключения {@link CardStatusException}.
+     * Балансы удалённых карт сбрасываются из {@link CardBalanceCache} после фиксации транзакции.
      *
      * @param userID идентификатор пользователя, которого требуется удалить
      * @throws CardStatusException если у пользователя есть хотя бы одна активная карта
@@ -110,7 +141,7 @@ public class AdminUserService {
     @Transactional
     public void deleteUserByID(Long userID) {
         log.info("[INFO] Запрос на удаление пользователя по ID: {}", userID);
-        var userEntityByID = repositoryHelper.findUserEntityByID(userID);
+        var userEntityByID = repositoryHelper.findUserEntityWithCardsByID(userID);
         if (userEntityByID.getCards().stream()
                 .anyMatch(card -> ACTIVE == card.getCardStatus())) {
             throw new CardStatusException(
@@ -119,6 +150,7 @@ public class AdminUserService {
             );
         }
         userRepository.delete(userEntityByID);
+        cardBalanceCache.evictAfterCommit(userEntityByID.getCards().stream().map(CardEntity::getId).toList());
         log.info("[INFO] Пользователь был удалён");
     }
 
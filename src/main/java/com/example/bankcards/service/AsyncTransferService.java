@@ -0,0 +1,229 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AsyncTransferStatusDto;
+import com.example.bankcards.dto.AsyncTransferTask;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import com.example.bankcards.exception.AsyncTransferException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Асинхронное выполнение переводов с групповой фиксацией (group commit).
+ * <p>
+ * Перевод помещается в ограниченную очередь в памяти, а клиент сразу получает ID перевода
+ * со статусом {@link AsyncTransferStatus#PENDING}. Очереди разбиты на {@code transfer.async.partitions}
+ * разделов по ID карты отправителя; каждый раздел обслуживает единственный поток-писатель.
+ * Писатель забирает из очереди до {@code transfer.async.group-size} переводов и передаёт их
+ * в {@link TransferService#transferMoneyGroup}, который выполняет группу в режиме {@code transfer.mode}:
+ * режимы с групповой фиксацией фиксируют её одной транзакцией, поэтому количество фиксаций
+ * в базе данных не растёт линейно с количеством переводов.
+ * </p>
+ *
+ * <p>Если очередь раздела заполнена, перевод отклоняется с кодом 429. Статусы хранятся в памяти узла:
+ * ожидающие переводы — без вытеснения (их количество ограничено ёмкостью очередей), завершённые —
+ * в кэше Caffeine не больше {@code transfer.async.status-cache-size}. Переводы, не выполненные
+ * до остановки приложения, теряются.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * transfer:
+ *   async:
+ *     partitions: 8
+ *     queue-capacity: 10000
+ *     group-size: 100
+ *     status-cache-size: 100000
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AsyncTransferService {
+    private final TransferService transferService;
+
+    /**
+     * Количество разделов (и потоков-писателей).
+     */
+    @Value("${transfer.async.partitions:8}")
+    private int partitions;
+
+    /**
+     * Ёмкость очереди одного раздела.
+     */
+    @Value("${transfer.async.queue-capacity:10000}")
+    private int queueCapacity;
+
+    /**
+     * Максимальное количество переводов в одной транзакции.
+     */
+    @Value("${transfer.async.group-size:100}")
+    private int groupSize;
+
+    /**
+     * Максимальное количество хранимых статусов завершённых переводов.
+     */
+    @Value("${transfer.async.status-cache-size:100000}")
+    private int statusCacheSize;
+
+    private List<BlockingQueue<AsyncTransferTask>> queues;
+    private Map<UUID, TransferEntry> pending;
+    private Cache<UUID, TransferEntry> resolved;
+    private ExecutorService writers;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void init() {
+        pending = new ConcurrentHashMap<>();
+        resolved = Caffeine.newBuilder()
+                .maximumSize(statusCacheSize)
+                .build();
+
+        queues = new ArrayList<>(partitions);
+        running = true;
+        writers = Executors.newFixedThreadPool(partitions, Thread.ofPlatform().name("async-transfer-", 0).factory());
+        for (int i = 0; i < partitions; i++) {
+            var queue = new ArrayBlockingQueue<AsyncTransferTask>(queueCapacity);
+            queues.add(queue);
+            writers.submit(() -> drain(queue));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writers.shutdown();
+        if (!writers.awaitTermination(10, TimeUnit.SECONDS)) {
+            writers.shutdownNow();
+        }
+    }
+
+    /**
+     * Принимает перевод в очередь.
+     *
+     * @param userID             идентификатор пользователя, выполняющего перевод
+     * @param transferRequestDto DTO с параметрами перевода (ID карт и сумма)
+     * @return статус {@link AsyncTransferStatus#PENDING} с ID перевода
+     * @throws AsyncTransferException если очередь раздела заполнена
+     */
+    public AsyncTransferStatusDto submit(Long userID, TransferRequestDto transferRequestDto) {
+        var task = new AsyncTransferTask(UUID.randomUUID(), userID, transferRequestDto);
+        var accepted = AsyncTransferStatusDto.builder()
+                .transferID(task.transferID())
+                .status(AsyncTransferStatus.PENDING)
+                .build();
+
+        pending.put(task.transferID(), new TransferEntry(userID, accepted));
+        if (!queues.get(partitionOf(transferRequestDto.fromCardId())).offer(task)) {
+            pending.remove(task.transferID());
+            log.warn("[WARN] Очередь асинхронных переводов заполнена, перевод отклонён. userId={}", userID);
+            throw new AsyncTransferException(
+                    "Очередь переводов заполнена, повторите запрос позже",
+                    "TOO_MANY_REQUESTS", HttpStatus.TOO_MANY_REQUESTS.value()
+            );
+        }
+
+        log.info("[INFO] Перевод [{}] принят в очередь. userId={}", task.transferID(), userID);
+        return accepted;
+    }
+
+    /**
+     * Возвращает статус асинхронного перевода пользователя.
+     *
+     * @param userID     идентификатор пользователя
+     * @param transferID идентификатор перевода
+     * @return текущий статус перевода
+     * @throws EntityNotFoundException если перевод не найден или принадлежит другому пользователю
+     */
+    public AsyncTransferStatusDto getStatus(Long userID, UUID transferID) {
+        var entry = pending.get(transferID);
+        if (isNull(entry)) {
+            entry = resolved.getIfPresent(transferID);
+        }
+        if (isNull(entry) || !entry.userID().equals(userID)) {
+            throw new EntityNotFoundException("Transfer not found with ID: " + transferID);
+        }
+        return entry.status();
+    }
+
+    private void drain(BlockingQueue<AsyncTransferTask> queue) {
+        var group = new ArrayList<AsyncTransferTask>(groupSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (isNull(first)) {
+                    continue;
+                }
+                group.add(first);
+                queue.drainTo(group, groupSize - 1);
+                commitGroup(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException ex) {
+                log.error("[ERROR] Ошибка обработки группы переводов", ex);
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    void commitGroup(List<AsyncTransferTask> group) {
+        List<AsyncTransferStatusDto> results;
+        try {
+            results = transferService.transferMoneyGroup(group);
+        } catch (RuntimeException ex) {
+            log.error("[ERROR] Группа из {} переводов не зафиксирована: {}", group.size(), ex.getMessage());
+            for (AsyncTransferTask task : group) {
+                updateStatus(task, AsyncTransferStatusDto.builder()
+                        .transferID(task.transferID())
+                        .status(AsyncTransferStatus.FAILED)
+                        .errorCode("TRANSFER_FAILED")
+                        .errorMessage(ex.getMessage())
+                        .build());
+            }
+            return;
+        }
+
+        for (int i = 0; i < group.size(); i++) {
+            updateStatus(group.get(i), results.get(i));
+        }
+    }
+
+    /**
+     * Переносит статус в кэш завершённых переводов. Запись сначала добавляется в кэш и только потом
+     * удаляется из ожидающих, поэтому опрос статуса не видит промежутка, в котором перевода нет.
+     */
+    private void updateStatus(AsyncTransferTask task, AsyncTransferStatusDto status) {
+        resolved.put(task.transferID(), new TransferEntry(task.userID(), status));
+        pending.remove(task.transferID());
+    }
+
+    private int partitionOf(Long cardID) {
+        return Math.floorMod(Long.hashCode(cardID), partitions);
+    }
+
+    private record TransferEntry(Long userID, AsyncTransferStatusDto status) {
+    }
+}
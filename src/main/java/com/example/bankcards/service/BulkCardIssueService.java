@@ -0,0 +1,268 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkCardIssueRequestDto;
+import com.example.bankcards.dto.BulkCardIssueRequestDto.OwnerCards;
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.enums.converter.CardEncryptorConverter;
+import com.example.bankcards.exception.BulkIssueException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.crypto.CardNumberBlindIndex;
+import com.example.bankcards.util.MaskCardNumber;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+
+/**
+ * Массовый выпуск карт для нескольких пользователей одним запросом.
+ * <p>
+ * Правила те же, что у {@link AdminCardService#createCard}: статус {@code ACTIVE}, нулевой баланс,
+ * срок действия {@code data.expired.value} лет. Владельцы проверяются одним запросом {@code IN} до начала выпуска.
+ * Карты выпускаются порциями по {@code card.bulk.chunk-size}:
+ * <ul>
+ *     <li>номера берутся из {@link CardNumberAllocator}, ID — блоками из {@code cards_seq} (как pooled-lo у Hibernate);</li>
+ *     <li>шифрование номера и слепой индекс считаются параллельно на {@code card.bulk.parallelism} потоках;</li>
+ *     <li>порция вставляется одним пакетом JDBC в своей транзакции, после коммита карты пишутся в ответ (NDJSON).</li>
+ * </ul>
+ * </p>
+ *
+ * <p>Каждая строка ответа — уже сохранённая карта. Если выпуск прервался, ответ обрывается, а выпущенные
+ * до этого порции остаются в базе; по полученным строкам клиент видит, сколько карт выпущено.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   bulk:
+ *     max-cards: 100000
+ *     chunk-size: 1000
+ *     parallelism: 0 # 0 — по количеству ядер
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkCardIssueService {
+    /**
+     * Шаг {@code cards_seq}, совпадает с {@code allocationSize} в {@code CardEntity}: одно значение
+     * последовательности резервирует диапазон {@code [value, value + 50)}.
+     */
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    private static final String RESERVE_IDS = "SELECT nextval('cards_seq') FROM generate_series(1, ?)";
+    private static final String INSERT_CARD = """
+            INSERT INTO cards (id, number, last4, number_length, number_hash, owner_id,
+                               card_status, expiration_date, balance, balance_slots, version)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0, 0)
+            """;
+
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final CardNumberAllocator cardNumberAllocator;
+    private final CardEncryptorConverter cardEncryptorConverter;
+    private final CardNumberBlindIndex cardNumberBlindIndex;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Срок действия карты в годах, как у {@link AdminCardService#createCard}.
+     */
+    @Value("${data.expired.value}")
+    private int expiredValue;
+
+    /**
+     * Максимальное количество карт в одном запросе.
+     */
+    @Value("${card.bulk.max-cards:100000}")
+    private int maxCards;
+
+    /**
+     * Количество карт в одной транзакции и одном пакете JDBC.
+     */
+    @Value("${card.bulk.chunk-size:1000}")
+    private int chunkSize;
+
+    /**
+     * Количество потоков для шифрования номеров; {@code 0} — по количеству ядер.
+     */
+    @Value("${card.bulk.parallelism:0}")
+    private int parallelism;
+
+    private ForkJoinPool workers;
+
+    @PostConstruct
+    public void init() {
+        workers = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * Проверяет запрос до начала выпуска: общее количество карт и существование всех владельцев
+     * (один запрос {@code IN}). Повторяющиеся владельцы объединяются.
+     *
+     * @param request владельцы и количество карт для каждого
+     * @return количество карт по владельцам в порядке запроса
+     * @throws BulkIssueException      если карт больше {@code card.bulk.max-cards}
+     * @throws EntityNotFoundException если часть владельцев не найдена
+     */
+    public List<OwnerCards> validate(BulkCardIssueRequestDto request) {
+        var counts = new LinkedHashMap<Long, Integer>();
+        long total = 0;
+        for (OwnerCards owner : request.owners()) {
+            total += owner.count();
+            if (total > maxCards) {
+                log.warn("[WARN] Превышен размер массового выпуска карт: больше {}", maxCards);
+                throw new BulkIssueException(
+                        "За один запрос можно выпустить не больше %d карт".formatted(maxCards),
+                        "VALIDATION_ERROR", HttpStatus.BAD_REQUEST.value()
+                );
+            }
+            counts.merge(owner.ownerID(), owner.count(), Integer::sum);
+        }
+
+        var existing = new HashSet<>(userRepository.findExistingIDs(counts.keySet()));
+        var missing = counts.keySet().stream().filter(ownerID -> !existing.contains(ownerID)).toList();
+        if (!missing.isEmpty()) {
+            log.error("[ERROR] Пользователи с ID: {} не найдены!", missing);
+            throw new EntityNotFoundException("Users not found with ids: %s".formatted(missing));
+        }
+
+        return counts.entrySet().stream()
+                .map(entry -> new OwnerCards(entry.getKey(), entry.getValue()))
+                .toList();
+    }
+
+    /**
+     * Выпускает карты и пишет их в поток ответа по одной на строку (NDJSON) с маскированными номерами.
+     *
+     * @param owners владельцы после {@link #validate}
+     * @param out    поток ответа
+     * @return количество выпущенных карт
+     * @throws IOException если запись в поток ответа не удалась (например, клиент отключился)
+     */
+    public long issue(List<OwnerCards> owners, OutputStream out) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        var expirationDate = LocalDate.now().plusYears(expiredValue);
+
+        long issued = 0;
+        var chunk = new ArrayList<Long>(chunkSize);
+        for (OwnerCards owner : owners) {
+            for (int i = 0; i < owner.count(); i++) {
+                chunk.add(owner.ownerID());
+                if (chunk.size() == chunkSize) {
+                    issued += issueChunk(chunk, expirationDate, writer);
+                    chunk.clear();
+                }
+            }
+        }
+        if (!chunk.isEmpty()) {
+            issued += issueChunk(chunk, expirationDate, writer);
+        }
+
+        writer.flush();
+        log.info("[INFO] Массовый выпуск карт завершён: owners={}, cards={}", owners.size(), issued);
+        return issued;
+    }
+
+    private int issueChunk(List<Long> ownerIDs, LocalDate expirationDate, Writer writer) throws IOException {
+        int size = ownerIDs.size();
+        var numbers = cardNumberAllocator.allocate(size);
+        var ids = reserveIDs(size);
+
+        var cards = new IssuedCard[size];
+        workers.submit(() -> IntStream.range(0, size).parallel()
+                .forEach(i -> cards[i] = prepare(ids.get(i), ownerIDs.get(i), numbers.get(i))))
+                .join();
+
+        transactionTemplate.executeWithoutResult(status ->
+                jdbcTemplate.batchUpdate(INSERT_CARD, Arrays.asList(cards), size, (ps, card) -> {
+                    ps.setLong(1, card.id());
+                    ps.setString(2, card.encryptedNumber());
+                    ps.setString(3, card.last4());
+                    ps.setInt(4, card.numberLength());
+                    ps.setString(5, card.numberHash());
+                    ps.setLong(6, card.ownerID());
+                    ps.setString(7, ACTIVE.name());
+                    ps.setObject(8, expirationDate);
+                    ps.setBigDecimal(9, BigDecimal.ZERO);
+                }));
+        log.debug("[DEBUG] Выпущена порция карт: {}", size);
+
+        for (IssuedCard card : cards) {
+            var dto = new CardDto(card.id(), card.ownerID(), MaskCardNumber.mask(card.last4(), card.numberLength()),
+                    ACTIVE, expirationDate, BigDecimal.ZERO);
+            writer.write(objectMapper.writeValueAsString(dto));
+            writer.write('\n');
+        }
+        writer.flush();
+        return size;
+    }
+
+    /**
+     * Резервирует ID для {@code count} карт: по одному значению {@code cards_seq} на каждые
+     * {@value #ID_ALLOCATION_SIZE} карт, как это делает Hibernate с оптимизатором pooled-lo.
+     */
+    List<Long> reserveIDs(int count) {
+        int blocks = (count + ID_ALLOCATION_SIZE - 1) / ID_ALLOCATION_SIZE;
+        var starts = jdbcTemplate.queryForList(RESERVE_IDS, Long.class, blocks);
+
+        var ids = new ArrayList<Long>(count);
+        for (Long start : starts) {
+            for (int i = 0; i < ID_ALLOCATION_SIZE && ids.size() < count; i++) {
+                ids.add(start + i);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Считает производные от номера столбцы так же, как {@code CardNumberIndexListener} и {@link CardEncryptorConverter}.
+     */
+    private IssuedCard prepare(Long id, Long ownerID, String number) {
+        String digits = CardNumberBlindIndex.digits(number);
+        return new IssuedCard(
+                id,
+                ownerID,
+                cardEncryptorConverter.convertToDatabaseColumn(number),
+                digits.substring(digits.length() - 4),
+                digits.length(),
+                cardNumberBlindIndex.hash(digits)
+        );
+    }
+
+    private record IssuedCard(Long id,
+                              Long ownerID,
+                              String encryptedNumber,
+                              String last4,
+                              int numberLength,
+                              String numberHash) {
+    }
+}
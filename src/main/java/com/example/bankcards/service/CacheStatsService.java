@@ -0,0 +1,59 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CacheRegionStatsDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Статистика регионов кэша второго уровня Hibernate: попадания, промахи, записи и размер.
+ * <p>
+ * Счётчики накапливаются с момента запуска узла, если включено {@code cache.second-level.statistics-enabled}.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CacheStatsService {
+    private static final List<String> REGIONS = List.of(
+            UserEntity.CACHE_REGION, UserEntity.USERNAME_CACHE_REGION, CardEntity.CACHE_REGION
+    );
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Возвращает статистику по всем регионам кэша второго уровня.
+     *
+     * @return статистика регионов; пустой список, если кэш или сбор статистики отключены
+     */
+    public List<CacheRegionStatsDto> getStats() {
+        var sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        var statistics = sessionFactory.getStatistics();
+        if (!sessionFactory.getSessionFactoryOptions().isSecondLevelCacheEnabled() || !statistics.isStatisticsEnabled()) {
+            log.warn("[WARN] Кэш второго уровня или сбор статистики Hibernate отключены");
+            return List.of();
+        }
+
+        return REGIONS.stream()
+                .map(region -> {
+                    var regionStats = statistics.getDomainDataRegionStatistics(region);
+                    long hits = regionStats.getHitCount();
+                    long misses = regionStats.getMissCount();
+                    return CacheRegionStatsDto.builder()
+                            .region(region)
+                            .hits(hits)
+                            .misses(misses)
+                            .puts(regionStats.getPutCount())
+                            .size(regionStats.getElementCountInMemory())
+                            .hitRatio(hits + misses == 0 ? 0 : (double) hits / (hits + misses))
+                            .build();
+                })
+                .toList();
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardBalanceStateDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Ограниченный кэш балансов карт в памяти узла для {@code GET /api/v1/users/{userID}/{cardID}/balance}.
+ * <p>
+ * Хранилище — Caffeine с {@code maximumSize} и {@code expireAfterWrite}: чтения не берут общую блокировку.
+ * Для каждой карты хранится владелец, статус, доступный баланс и версия строки ({@link CardBalanceStateDto}).
+ * Попадание в кэш не открывает транзакцию и не берёт соединение из пула.
+ * Переводы и операции над картами сбрасывают записи после фиксации транзакции ({@link #evictAfterCommit}),
+ * следующее чтение загружает актуальное состояние одним запросом.
+ * </p>
+ *
+ * <p>Загрузка, начавшаяся до сброса, не должна вернуть в кэш старый баланс. Поэтому у каждой полосы ключей
+ * есть счётчик сбросов: запись сохраняется, только если счётчик не изменился за время загрузки.
+ * Проверка счётчика и сброс выполняются в {@code compute} по ключу карты, поэтому не пересекаются.</p>
+ *
+ * <p>Остальные узлы узнают о сбросах через канал Postgres {@code NOTIFY} ({@link CardBalanceNotificationListener}).
+ * Записи также живут не дольше {@code card.balance-cache.ttl} на случай потерянного уведомления.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   balance-cache:
+ *     enabled: true
+ *     size: 100000
+ *     ttl: PT30S
+ *     notify-enabled: true
+ *     channel: card_balance
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardBalanceCache {
+    private static final int STRIPES = 1024;
+
+    /**
+     * Количество ID карт в одном уведомлении: размер payload {@code NOTIFY} ограничен 8000 байтами.
+     */
+    private static final int NOTIFY_CHUNK_SIZE = 200;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Включает кэш балансов.
+     */
+    @Value("${card.balance-cache.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Максимальное количество карт в кэше.
+     */
+    @Value("${card.balance-cache.size:100000}")
+    private int size;
+
+    /**
+     * Максимальное время жизни записи.
+     */
+    @Value("${card.balance-cache.ttl:PT30S}")
+    private Duration ttl;
+
+    /**
+     * Рассылает сбросы остальным узлам через {@code pg_notify}.
+     */
+    @Getter
+    @Value("${card.balance-cache.notify-enabled:true}")
+    private boolean notifyEnabled;
+
+    /**
+     * Канал {@code LISTEN/NOTIFY}.
+     */
+    @Getter
+    @Value("${card.balance-cache.channel:card_balance}")
+    private String channel;
+
+    /**
+     * Идентификатор узла: собственные уведомления узел пропускает.
+     */
+    @Getter
+    private final String nodeID = UUID.randomUUID().toString();
+
+    private final AtomicLongArray evictions = new AtomicLongArray(STRIPES);
+
+    private Cache<Long, CardBalanceStateDto> balances;
+
+    @PostConstruct
+    public void init() {
+        balances = Caffeine.newBuilder()
+                .maximumSize(size)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Возвращает состояние карты из кэша или загружает его.
+     *
+     * @param cardID идентификатор карты
+     * @param loader загрузка состояния из базы данных
+     * @return состояние карты; {@code null}, если карта не найдена
+     */
+    public CardBalanceStateDto getOrLoad(Long cardID, Supplier<Optional<CardBalanceStateDto>> loader) {
+        if (!enabled) {
+            return loader.get().orElse(null);
+        }
+
+        var cached = balances.getIfPresent(cardID);
+        if (!isNull(cached)) {
+            return cached;
+        }
+
+        int stripe = stripeOf(cardID);
+        long evictionsBefore = evictions.get(stripe);
+        var state = loader.get().orElse(null);
+        if (!isNull(state)) {
+            balances.asMap().compute(cardID,
+                    (id, current) -> evictions.get(stripe) == evictionsBefore ? state : current);
+        }
+        return state;
+    }
+
+    /**
+     * Сбрасывает записи карт после фиксации текущей транзакции и рассылает сброс остальным узлам.
+     * Вне транзакции записи сбрасываются сразу.
+     *
+     * @param cardIDs идентификаторы изменённых карт
+     */
+    public void evictAfterCommit(Collection<Long> cardIDs) {
+        if (!enabled || cardIDs.isEmpty()) {
+            return;
+        }
+
+        var ids = List.copyOf(new TreeSet<>(cardIDs));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(ids);
+                }
+            });
+            return;
+        }
+
+        evictAndPublish(ids);
+    }
+
+    /**
+     * Сбрасывает записи карт только на этом узле (по уведомлению с другого узла).
+     *
+     * @param cardIDs идентификаторы карт
+     */
+    public void evict(Collection<Long> cardIDs) {
+        for (Long cardID : cardIDs) {
+            balances.asMap().compute(cardID, (id, current) -> {
+                evictions.incrementAndGet(stripeOf(id));
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Полностью очищает кэш, например после переподключения к каналу уведомлений,
+     * когда часть уведомлений могла быть потеряна.
+     */
+    public void evictAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            evictions.incrementAndGet(i);
+        }
+        balances.invalidateAll();
+    }
+
+    private void evictAndPublish(List<Long> cardIDs) {
+        evict(cardIDs);
+        if (!notifyEnabled) {
+            return;
+        }
+
+        for (int from = 0; from < cardIDs.size(); from += NOTIFY_CHUNK_SIZE) {
+            var chunk = cardIDs.subList(from, Math.min(from + NOTIFY_CHUNK_SIZE, cardIDs.size()));
+            var payload = nodeID + ":" + chunk.stream().map(String::valueOf).collect(Collectors.joining(","));
+            try {
+                jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", Object.class, channel, payload);
+            } catch (RuntimeException ex) {
+                log.warn("[WARN] Не удалось отправить уведомление о сбросе балансов карт {}: {}", chunk, ex.getMessage());
+            }
+        }
+    }
+
+    private static int stripeOf(Long cardID) {
+        return Math.floorMod(Long.hashCode(cardID), STRIPES);
+    }
+}
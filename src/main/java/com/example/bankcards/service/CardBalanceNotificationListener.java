@@ -0,0 +1,134 @@
+package com.example.bankcards.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Принимает сбросы кэша балансов с других узлов через Postgres {@code LISTEN}.
+ * <p>
+ * Слушатель держит одно отдельное соединение из пула и опрашивает его на уведомления
+ * каждые {@code card.balance-cache.poll-ms}. Уведомление имеет вид {@code <nodeID>:<cardID>,<cardID>,...};
+ * собственные уведомления узла пропускаются. Если соединение потеряно, кэш очищается целиком
+ * (уведомления за время разрыва не доставляются), и слушатель переподключается.
+ * </p>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardBalanceNotificationListener {
+    private final DataSource dataSource;
+    private final CardBalanceCache cardBalanceCache;
+
+    /**
+     * Максимальное время ожидания уведомлений за один опрос.
+     */
+    @Value("${card.balance-cache.poll-ms:500}")
+    private int pollMs;
+
+    private volatile boolean running;
+    private ExecutorService listener;
+
+    @PostConstruct
+    public void init() {
+        if (!cardBalanceCache.isNotifyEnabled()) {
+            log.info("[INFO] Уведомления о сбросе балансов карт отключены");
+            return;
+        }
+
+        running = true;
+        listener = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("card-balance-listener").daemon().factory());
+        listener.submit(this::listen);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        if (isNull(listener)) {
+            return;
+        }
+
+        listener.shutdown();
+        if (!listener.awaitTermination(pollMs * 2L, TimeUnit.MILLISECONDS)) {
+            listener.shutdownNow();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                try (var statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + cardBalanceCache.getChannel());
+                }
+                // Уведомления, отправленные до LISTEN, потеряны
+                cardBalanceCache.evictAll();
+                log.info("[INFO] Подписка на канал [{}] установлена", cardBalanceCache.getChannel());
+
+                var pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    var notifications = pgConnection.getNotifications(pollMs);
+                    if (!isNull(notifications)) {
+                        handle(notifications);
+                    }
+                }
+            } catch (SQLException | RuntimeException ex) {
+                log.error("[ERROR] Ошибка канала [{}], кэш балансов очищен: {}",
+                        cardBalanceCache.getChannel(), ex.getMessage());
+                cardBalanceCache.evictAll();
+                pause();
+            }
+        }
+    }
+
+    void handle(PGNotification[] notifications) {
+        var cardIDs = new ArrayList<Long>();
+        for (PGNotification notification : notifications) {
+            cardIDs.addAll(parse(notification.getParameter()));
+        }
+
+        if (!cardIDs.isEmpty()) {
+            cardBalanceCache.evict(cardIDs);
+            log.debug("[DEBUG] Сброшены балансы карт по уведомлению: {}", cardIDs);
+        }
+    }
+
+    private List<Long> parse(String payload) {
+        int separator = payload.indexOf(':');
+        if (separator < 0 || cardBalanceCache.getNodeID().equals(payload.substring(0, separator))) {
+            return List.of();
+        }
+
+        var cardIDs = new ArrayList<Long>();
+        for (String cardID : payload.substring(separator + 1).split(",")) {
+            if (!cardID.isBlank()) {
+                cardIDs.add(Long.valueOf(cardID));
+            }
+        }
+        return cardIDs;
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(pollMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
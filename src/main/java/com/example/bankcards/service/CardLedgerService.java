@@ -0,0 +1,87 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Периодическое сворачивание журнала движений {@code card_ledger} в снимок {@code cards.balance}.
+ * <p>
+ * Карты обрабатываются порциями по {@code transfer.ledger.fold-chunk-size}, каждая порция —
+ * в отдельной транзакции. Сворачивание выполняет {@link RepositoryHelper#findCardEntitiesByIDsAndLockModeType}:
+ * карты блокируются {@code FOR UPDATE} в порядке возрастания ID, поэтому задача не взаимоблокируется с переводами.
+ * Благодаря этому чтение баланса остаётся «снимок + короткий хвост» независимо от длины истории.
+ * </p>
+ *
+ * <p>Прогресс сворачивания — эпоха на карте ({@code cards.ledger_fold_epoch}), строки журнала не изменяются.
+ * Кандидаты берутся из {@code card_ledger_pending}: первое зачисление эпохи отмечает карту, сворачивание
+ * снимает отметку в той же транзакции. Поэтому задача читает только карты с хвостом, а не журнал целиком.
+ * Отметки порции снимаются и для карт без хвоста, чтобы задача не возвращалась к ним.</p>
+ *
+ * <p>Задача создаётся только при {@code transfer.mode: LEDGER}; в остальных режимах журнал не пополняется.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * transfer:
+ *   ledger:
+ *     fold-interval-ms: 1000
+ *     fold-chunk-size: 100
+ * </pre>
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "transfer", name = "mode", havingValue = "LEDGER")
+@RequiredArgsConstructor
+public class CardLedgerService {
+    private final CardLedgerRepository cardLedgerRepository;
+    private final RepositoryHelper repositoryHelper;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Максимальное количество карт, сворачиваемых в одной транзакции.
+     */
+    @Value("${transfer.ledger.fold-chunk-size:100}")
+    private int foldChunkSize;
+
+    /**
+     * Сворачивает несвёрнутые записи журнала в балансы карт.
+     */
+    @Scheduled(fixedDelayString = "${transfer.ledger.fold-interval-ms:1000}")
+    public void foldLedger() {
+        int folded = 0;
+        List<Long> cardIDs;
+
+        do {
+            cardIDs = cardLedgerRepository.findFoldPendingCardIDs(foldChunkSize);
+            if (cardIDs.isEmpty()) {
+                break;
+            }
+
+            var chunk = cardIDs;
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    repositoryHelper.findCardEntitiesByIDsAndLockModeType(chunk);
+                    cardLedgerRepository.clearFoldPending(chunk);
+                });
+            } catch (ConcurrencyFailureException | EntityNotFoundException ex) {
+                log.warn("[WARN] Не удалось свернуть журнал карт, повтор при следующем запуске: {}", ex.getMessage());
+                break;
+            }
+            folded += chunk.size();
+        } while (cardIDs.size() == foldChunkSize);
+
+        if (folded > 0) {
+            log.info("[INFO] Свёрнут журнал движений карт: {}", folded);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardLockStatsDto;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Локальные для узла блокировки карт, разбитые на полосы (stripes) по ID карты.
+ * <p>
+ * Переводы блокируют карту списания и ждут друг друга на этих блокировках до того, как возьмут
+ * соединение из пула и откроют транзакцию. Поэтому конкурирующие списания с «горячей» карты стоят
+ * в очереди в памяти, а не в Postgres, удерживая соединение Hikari. Карта зачисления не блокируется,
+ * чтобы зачисления на одну карту шли параллельно. Блокировки строк в базе данных
+ * по-прежнему берутся и защищают от переводов с других узлов.
+ * </p>
+ *
+ * <p>Полосы захватываются в порядке возрастания номера, поэтому встречные переводы не взаимоблокируются.
+ * Если блокировку не удалось получить за {@code transfer.lock.timeout-ms}, выбрасывается
+ * {@link CannotAcquireLockException}, и перевод повторяется как при deadlock в базе данных.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * transfer:
+ *   lock:
+ *     enabled: true
+ *     stripes: 1024
+ *     timeout-ms: 5000
+ * </pre>
+ */
+@Slf4j
+@Service
+public class CardLockManager {
+    /**
+     * Включает блокировки в памяти.
+     */
+    @Value("${transfer.lock.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Количество полос.
+     */
+    @Value("${transfer.lock.stripes:1024}")
+    private int stripes;
+
+    /**
+     * Максимальное время ожидания одной полосы в миллисекундах.
+     */
+    @Value("${transfer.lock.timeout-ms:5000}")
+    private long timeoutMs;
+
+    private Stripe[] lockStripes;
+
+    @PostConstruct
+    public void init() {
+        lockStripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            lockStripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Выполняет действие, удерживая блокировки всех переданных карт.
+     *
+     * @param cardIDs идентификаторы карт ({@code null} и повторы игнорируются)
+     * @param action  действие, открывающее собственную транзакцию
+     * @return результат действия
+     * @throws CannotAcquireLockException если блокировку не удалось получить за отведённое время
+     */
+    public <T> T executeWithLocks(Collection<Long> cardIDs, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        var stripeIndexes = new TreeSet<Integer>();
+        for (Long cardID : cardIDs) {
+            if (nonNull(cardID)) {
+                stripeIndexes.add(stripeOf(cardID));
+            }
+        }
+
+        List<ReentrantLock> acquired = new ArrayList<>(stripeIndexes.size());
+        try {
+            for (Integer index : stripeIndexes) {
+                acquired.add(lockStripes[index].acquire(index, timeoutMs));
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    /**
+     * Возвращает статистику по полосам, на которых были захваты блокировок.
+     *
+     * @param limit максимальное количество полос в ответе
+     * @return полосы, отсортированные по убыванию длины очереди и среднего времени ожидания
+     */
+    public List<CardLockStatsDto> getStats(int limit) {
+        var stats = new ArrayList<CardLockStatsDto>();
+        for (int i = 0; i < lockStripes.length; i++) {
+            var stripe = lockStripes[i];
+            long acquisitions = stripe.acquisitions.sum();
+            if (acquisitions == 0 && stripe.timeouts.sum() == 0) {
+                continue;
+            }
+
+            stats.add(CardLockStatsDto.builder()
+                    .stripe(i)
+                    .queueLength(stripe.lock.getQueueLength())
+                    .acquisitions(acquisitions)
+                    .timeouts(stripe.timeouts.sum())
+                    .averageWaitMs(acquisitions == 0 ? 0 : stripe.waitNanos.sum() / 1_000_000.0 / acquisitions)
+                    .maxWaitMs(stripe.maxWaitNanos.get() / 1_000_000.0)
+                    .build());
+        }
+
+        return stats.stream()
+                .sorted(Comparator.comparingInt(CardLockStatsDto::queueLength)
+                        .thenComparingDouble(CardLockStatsDto::averageWaitMs)
+                        .reversed())
+                .limit(limit)
+                .toList();
+    }
+
+    int stripeOf(Long cardID) {
+        return Math.floorMod(Long.hashCode(cardID), stripes);
+    }
+
+    private static final class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        private ReentrantLock acquire(int index, long timeoutMs) {
+            long start = System.nanoTime();
+            boolean locked;
+            try {
+                locked = lock.tryLock(timeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CannotAcquireLockException("Ожидание блокировки карты прервано", e);
+            }
+
+            long waited = System.nanoTime() - start;
+            if (!locked) {
+                timeouts.increment();
+                log.warn("[WARN] Не удалось получить блокировку полосы {} за {} мс", index, timeoutMs);
+                throw new CannotAcquireLockException("Карта занята другим переводом");
+            }
+
+            acquisitions.increment();
+            waitNanos.add(waited);
+            maxWaitNanos.accumulateAndGet(waited, Math::max);
+            return lock;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.example.bankcards.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Выпуск номеров карт из диапазонов, зарезервированных узлом в базе данных.
+ * <p>
+ * Номер строится из BIN (из {@code card.issuance.bins}) и порядкового номера выпуска внутри этого BIN:
+ * префикс BIN, номер счёта и контрольная цифра по алгоритму Луна — всего 16 цифр. Порядковые номера
+ * выдаются диапазонами по {@code card.issuance.block-size}: диапазон резервируется одним обновлением
+ * счётчика BIN в таблице {@code card_number_range}, после чего номера выдаются из памяти через
+ * {@link AtomicLong} без блокировок и обращений к базе. Диапазоны разных узлов и разных запусков не пересекаются.
+ * </p>
+ *
+ * <p>Номер зависит только от BIN и порядкового номера внутри него, поэтому добавление, удаление или
+ * перестановка BIN в настройках не приводит к повторному выпуску номеров. Диапазоны берутся из BIN по очереди.</p>
+ *
+ * <p>Номер счёта получается из порядкового номера умножением на число, взаимно простое с 10, по модулю
+ * размера пространства счетов. Это биекция, поэтому номера не повторяются, но и не идут подряд.
+ * Уникальность дополнительно гарантирует уникальный индекс {@code cards.number_hash}.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   issuance:
+ *     bins: 400000,510000
+ *     block-size: 1000
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardNumberAllocator {
+    static final int CARD_NUMBER_LENGTH = 16;
+    private static final long MULTIPLIER = 387_420_489L;
+    private static final long OFFSET = 104_729L;
+
+    private static final String RESERVE_RANGE = """
+            INSERT INTO card_number_range (bin, next_index)
+            VALUES (?, ?)
+            ON CONFLICT (bin) DO UPDATE SET next_index = card_number_range.next_index + EXCLUDED.next_index
+            RETURNING next_index - ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Префиксы номеров (BIN) длиной от 6 до 8 цифр. Диапазоны номеров берутся из них по очереди.
+     */
+    @Value("${card.issuance.bins:400000}")
+    private List<String> bins;
+
+    /**
+     * Количество номеров, резервируемых узлом за одно обращение к базе данных.
+     */
+    @Value("${card.issuance.block-size:1000}")
+    private int blockSize;
+
+    private volatile Block block = new Block("", 0, 0);
+    private int nextBin;
+    private TransactionTemplate reserveTransaction;
+
+    @PostConstruct
+    public void init() {
+        if (bins.isEmpty()) {
+            throw new IllegalStateException("card.issuance.bins must not be empty");
+        }
+
+        for (String bin : bins) {
+            if (!bin.matches("\\d{6,8}")) {
+                throw new IllegalStateException("Invalid BIN %s: expected 6-8 digits".formatted(bin));
+            }
+        }
+
+        if (blockSize <= 0) {
+            throw new IllegalStateException("card.issuance.block-size must be positive");
+        }
+
+        // Резерв фиксируется сразу: откат транзакции выпуска карты не должен вернуть диапазон,
+        // который узел продолжает использовать.
+        reserveTransaction = new TransactionTemplate(transactionManager);
+        reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Выпускает новый номер карты.
+     *
+     * @return номер карты из 16 цифр, разделённых пробелами каждые 4 символа
+     * @throws IllegalStateException если пространство номеров BIN исчерпано
+     */
+    public String allocate() {
+        while (true) {
+            Block current = block;
+            long index = current.next();
+            if (index >= 0) {
+                return toCardNumber(current.bin(), index);
+            }
+            refill(current);
+        }
+    }
+
+    /**
+     * Выпускает несколько номеров карт подряд.
+     *
+     * @param count количество номеров
+     * @return номера карт в формате {@link #allocate()}
+     */
+    public List<String> allocate(int count) {
+        var numbers = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++) {
+            numbers.add(allocate());
+        }
+        return numbers;
+    }
+
+    /**
+     * Резервирует диапазон следующего по очереди BIN, если исчерпанный диапазон ещё не заменил другой поток.
+     */
+    private synchronized void refill(Block exhausted) {
+        if (block != exhausted) {
+            return;
+        }
+
+        String bin = bins.get(nextBin);
+        nextBin = (nextBin + 1) % bins.size();
+        Long start = reserveTransaction.execute(
+                status -> jdbcTemplate.queryForObject(RESERVE_RANGE, Long.class, bin, blockSize, blockSize)
+        );
+        block = new Block(bin, start, start + blockSize);
+        log.info("[INFO] Зарезервирован диапазон номеров карт BIN {}: [{}, {})", bin, start, start + blockSize);
+    }
+
+    /**
+     * Строит номер карты по BIN и порядковому номеру выпуска внутри него.
+     */
+    static String toCardNumber(String bin, long index) {
+        int accountLength = CARD_NUMBER_LENGTH - 1 - bin.length();
+        long accountSpace = pow10(accountLength);
+        if (index >= accountSpace) {
+            throw new IllegalStateException("Card number range of BIN %s is exhausted".formatted(bin));
+        }
+        long account = (index * MULTIPLIER + OFFSET) % accountSpace;
+
+        var digits = new char[CARD_NUMBER_LENGTH];
+        bin.getChars(0, bin.length(), digits, 0);
+        for (int i = CARD_NUMBER_LENGTH - 2; i >= bin.length(); i--) {
+            digits[i] = (char) ('0' + account % 10);
+            account /= 10;
+        }
+        digits[CARD_NUMBER_LENGTH - 1] = (char) ('0' + luhnCheckDigit(digits, CARD_NUMBER_LENGTH - 1));
+
+        return format(digits);
+    }
+
+    /**
+     * Вычисляет контрольную цифру Луна для первых {@code length} цифр: каждая вторая цифра справа удваивается.
+     */
+    static int luhnCheckDigit(char[] digits, int length) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = length - 1; i >= 0; i--) {
+            int n = digits[i] - '0';
+            if (doubled) {
+                n <<= 1;
+                if (n > 9) {
+                    n -= 9;
+                }
+            }
+            sum += n;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private static String format(char[] digits) {
+        var formatted = new char[digits.length + (digits.length - 1) / 4];
+        int position = 0;
+        for (int i = 0; i < digits.length; i++) {
+            if (i > 0 && (i & 3) == 0) {
+                formatted[position++] = ' ';
+            }
+            formatted[position++] = digits[i];
+        }
+        return new String(formatted);
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10;
+        }
+        return result;
+    }
+
+    /**
+     * Диапазон порядковых номеров BIN {@code [next, end)}, выдаваемых из памяти узла.
+     */
+    private static final class Block {
+        private final String bin;
+        private final AtomicLong next;
+        private final long end;
+
+        private Block(String bin, long start, long end) {
+            this.bin = bin;
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+
+        String bin() {
+            return bin;
+        }
+
+        /**
+         * @return следующий порядковый номер или {@code -1}, если блок исчерпан
+         */
+        long next() {
+            long sequence = next.getAndIncrement();
+            return sequence < end ? sequence : -1;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardNumberDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.security.crypto.CardNumberBlindIndex;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Заполнение производных от номера столбцов для карт, созданных до их появления:
+ * слепого индекса {@code cards.number_hash}, последних четырёх цифр {@code last4} и длины номера.
+ * <p>
+ * Карты читаются порциями по {@code card.number-backfill.chunk-size} в порядке возрастания ID,
+ * номера расшифровываются конвертером, а столбцы записываются пакетными {@code UPDATE},
+ * каждая порция — в отдельной транзакции. Версия строки не меняется, поэтому задача не конфликтует с переводами.
+ * </p>
+ *
+ * <p>Если номер уже занят другой картой (дубли, допущенные старым генератором), слепой индекс строки
+ * не заполняется: уникальный индекс не позволяет записать второй такой же индекс. Карта один раз попадает в лог
+ * и отмечается {@code number_hash_conflict}, поэтому следующие запуски её не перечитывают.</p>
+ *
+ * <p>Столбцы пишутся в обход Hibernate, поэтому после фиксации каждой порции её карты вытесняются из кэша
+ * второго уровня {@code cards}. Новые карты заполняют столбцы при создании, поэтому после первого запуска,
+ * не нашедшего карт, задача больше не выполняет запросов до перезапуска приложения.
+ * Кандидаты ищутся по частичному индексу {@code idx_cards_number_backfill}.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   number-backfill:
+ *     interval-ms: 60000
+ *     chunk-size: 500
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardNumberBackfillService {
+    private static final String UPDATE_HASH = """
+            UPDATE cards SET number_hash = ?
+            WHERE id = ? AND number_hash IS NULL
+              AND NOT EXISTS (SELECT 1 FROM cards WHERE number_hash = ?)
+            """;
+    private static final String UPDATE_LAST4 = "UPDATE cards SET last4 = ?, number_length = ? WHERE id = ?";
+    private static final String MARK_CONFLICT = "UPDATE cards SET number_hash_conflict = true WHERE id = ?";
+
+    private final CardRepository cardRepository;
+    private final CardNumberBlindIndex blindIndex;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Максимальное количество карт в одной транзакции.
+     */
+    @Value("${card.number-backfill.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Все карты заполнены; выставляется после запуска, не нашедшего ни одной карты.
+     */
+    private volatile boolean completed;
+
+    /**
+     * Заполняет слепой индекс и последние цифры у всех карт, где они ещё не заполнены.
+     *
+     * @return количество обработанных карт
+     */
+    @Scheduled(fixedDelayString = "${card.number-backfill.interval-ms:60000}")
+    public int backfill() {
+        if (completed) {
+            return 0;
+        }
+
+        int processed = 0;
+        int duplicates = 0;
+        long afterID = 0;
+        List<CardNumberDto> cards;
+
+        do {
+            cards = cardRepository.findCardNumbersToBackfill(afterID, Limit.of(chunkSize));
+            if (cards.isEmpty()) {
+                break;
+            }
+
+            var hashArgs = new ArrayList<Object[]>();
+            var hashCardIDs = new ArrayList<Long>();
+            var last4Args = new ArrayList<Object[]>(cards.size());
+            for (CardNumberDto card : cards) {
+                String digits = CardNumberBlindIndex.digits(card.number());
+                if (isNull(card.numberHash())) {
+                    String hash = blindIndex.hash(digits);
+                    hashArgs.add(new Object[]{hash, card.cardID(), hash});
+                    hashCardIDs.add(card.cardID());
+                }
+                last4Args.add(new Object[]{
+                        digits.substring(Math.max(digits.length() - 4, 0)), digits.length(), card.cardID()
+                });
+            }
+
+            int chunkDuplicates = transactionTemplate.execute(status -> {
+                jdbcTemplate.batchUpdate(UPDATE_LAST4, last4Args);
+                int[] updated = jdbcTemplate.batchUpdate(UPDATE_HASH, hashArgs);
+
+                var conflictArgs = new ArrayList<Object[]>();
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        conflictArgs.add(new Object[]{hashCardIDs.get(i)});
+                        log.warn("[WARN] Номер карты с ID: [{}] совпадает с номером другой карты, индекс не заполнен",
+                                hashCardIDs.get(i));
+                    }
+                }
+                if (!conflictArgs.isEmpty()) {
+                    jdbcTemplate.batchUpdate(MARK_CONFLICT, conflictArgs);
+                }
+                return conflictArgs.size();
+            });
+            var cache = entityManagerFactory.getCache();
+            cards.forEach(card -> cache.evict(CardEntity.class, card.cardID()));
+            duplicates += chunkDuplicates;
+            processed += cards.size();
+            afterID = cards.getLast().cardID();
+        } while (cards.size() == chunkSize);
+
+        if (processed > 0) {
+            log.info("[INFO] Заполнены производные столбцы номеров карт: {}, пропущено дублей: {}",
+                    processed, duplicates);
+        } else {
+            completed = true;
+            log.info("[INFO] Производные столбцы номеров заполнены у всех карт, задача остановлена");
+        }
+        return processed;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Проверка принадлежности карты пользователю без загрузки коллекции {@code UserEntity.getCards()}.
+ * <p>
+ * Принадлежность проверяется одним запросом по первичному ключу карты ({@code cards.owner_id}),
+ * поэтому стоимость проверки не зависит от количества карт пользователя.
+ * Подтверждённые пары карта → владелец хранятся в ограниченном LRU-кэше.
+ * Кэшируется только положительный результат: владелец карты не меняется, а удалённая карта
+ * всё равно не будет найдена при последующей загрузке, поэтому устаревшая запись не открывает доступ
+ * к чужим данным. Обработчики удаления карт сбрасывают запись после фиксации транзакции
+ * ({@link #evictAfterCommit}): сброс до фиксации позволил бы параллельному чтению вернуть запись в кэш
+ * по ещё не изменённой строке.
+ * </p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * card:
+ *   ownership:
+ *     cache-enabled: true
+ *     cache-size: 100000
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CardOwnershipService {
+    private final CardRepository cardRepository;
+    private final RepositoryHelper repositoryHelper;
+
+    /**
+     * Включает кэш принадлежности карт.
+     */
+    @Value("${card.ownership.cache-enabled:true}")
+    private boolean cacheEnabled;
+
+    /**
+     * Максимальное количество карт в кэше.
+     */
+    @Value("${card.ownership.cache-size:100000}")
+    private int cacheSize;
+
+    /**
+     * Владельцы карт по ID карты.
+     */
+    private Map<Long, Long> owners;
+
+    @PostConstruct
+    public void init() {
+        owners = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Находит карту пользователя одним запросом {@code WHERE id = :cardID AND owner_id = :userID}.
+     *
+     * @param userID идентификатор пользователя
+     * @param cardID идентификатор карты
+     * @return сущность карты
+     * @throws EntityNotFoundException если пользователь или карта не найдены
+     * @throws CardStatusException     если карта принадлежит другому пользователю
+     */
+    public CardEntity findOwnedCard(Long userID, Long cardID) throws EntityNotFoundException {
+        var card = cardRepository.findCardEntityByCardAndUserID(cardID, userID).orElse(null);
+        if (isNull(card)) {
+            throw notOwned(userID, cardID);
+        }
+
+        remember(cardID, userID);
+        return card;
+    }
+
+    /**
+     * Проверяет, что карта принадлежит пользователю.
+     * При попадании в кэш запрос к базе данных не выполняется.
+     *
+     * @param userID идентификатор пользователя
+     * @param cardID идентификатор карты
+     * @throws EntityNotFoundException если пользователь или карта не найдены
+     * @throws CardStatusException     если карта принадлежит другому пользователю
+     */
+    public void isCardOwner(Long userID, Long cardID) throws EntityNotFoundException {
+        if (cacheEnabled && userID.equals(owners.get(cardID))) {
+            return;
+        }
+
+        var ownerID = cardRepository.findOwnerIDByCardID(cardID).orElse(null);
+        if (!userID.equals(ownerID)) {
+            throw notOwned(userID, cardID);
+        }
+
+        remember(cardID, userID);
+    }
+
+    /**
+     * Удаляет карту из кэша принадлежности после фиксации текущей транзакции.
+     * Вне транзакции запись удаляется сразу.
+     *
+     * @param cardID идентификатор карты
+     */
+    public void evictAfterCommit(Long cardID) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    owners.remove(cardID);
+                }
+            });
+            return;
+        }
+
+        owners.remove(cardID);
+    }
+
+    private void remember(Long cardID, Long userID) {
+        if (cacheEnabled) {
+            owners.put(cardID, userID);
+        }
+    }
+
+    /**
+     * Определяет причину отказа: отсутствует пользователь, карта или карта чужая.
+     * Выполняется только на неуспешном пути.
+     */
+    private RuntimeException notOwned(Long userID, Long cardID) {
+        repositoryHelper.isUserExists(userID);
+
+        if (!cardRepository.existsById(cardID)) {
+            log.error("[ERROR] Карта с ID: [{}] не найден!", cardID);
+            return new EntityNotFoundException("Card not found with ID: " + cardID);
+        }
+
+        log.warn("[WARN] Карта с ID: {} не принадлежит пользователю с ID {}", cardID, userID);
+        return new CardStatusException(
+                "Карта не принадлежит данному пользователю!", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
+        );
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.dto.UserDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.entity.enums.ExportFormat;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.mapper.UserMapper;
+import com.example.bankcards.util.FilterQueryCompiler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.example.bankcards.entity.enums.ExportFormat.CSV;
+import static java.util.Objects.isNull;
+
+/**
+ * Потоковая выгрузка карт и пользователей в формате NDJSON или CSV.
+ * <p>
+ * Строки читаются из базы данных курсором ({@code getResultStream()} с {@code fetchSize}) в порядке
+ * возрастания ID и сразу записываются в ответ. Каждые {@code export.fetch-size} строк контекст
+ * персистентности очищается, поэтому потребление памяти не зависит от размера таблицы.
+ * Фильтры совпадают со списками ({@link SpecificationData}), номера карт маскируются {@link CardMapper}.
+ * </p>
+ *
+ * <p>Методы выгрузки открывают read-only транзакцию сами: они вызываются из {@code StreamingResponseBody}
+ * уже после выхода из контроллера, в отдельном потоке.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * export:
+ *   fetch-size: 1000
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ExportService {
+    private static final List<String> CARD_COLUMNS =
+            List.of("cardID", "ownerID", "number", "cardStatus", "expirationDate", "balance");
+    private static final List<String> USER_COLUMNS =
+            List.of("id", "username", "role", "enabled", "created_date", "updated_date");
+
+    private final EntityManager entityManager;
+    private final FilterQueryCompiler filterQueryCompiler;
+    private final CardMapper cardMapper;
+    private final UserMapper userMapper;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Количество строк, читаемых из базы данных за один раз; после каждой такой порции
+     * контекст персистентности очищается.
+     */
+    @Value("${export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Выгружает карты, удовлетворяющие фильтрам.
+     *
+     * @param filters фильтры (статус, владелец, дата истечения)
+     * @param format  формат выгрузки
+     * @param out     поток ответа
+     * @throws IOException если запись в поток ответа не удалась (например, клиент отключился)
+     */
+    @Transactional(readOnly = true)
+    public void exportCards(SpecificationData filters, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<CardEntity> cards = streamEntities(CardEntity.class, filters)) {
+            long rows = writeCards(cards, format, out);
+            log.info("[INFO] Выгрузка карт завершена: format={}, rows={}", format, rows);
+        }
+    }
+
+    /**
+     * Выгружает пользователей, удовлетворяющих фильтрам.
+     *
+     * @param filters фильтры (доступность аккаунта, дата создания)
+     * @param format  формат выгрузки
+     * @param out     поток ответа
+     * @throws IOException если запись в поток ответа не удалась (например, клиент отключился)
+     */
+    @Transactional(readOnly = true)
+    public void exportUsers(SpecificationData filters, ExportFormat format, OutputStream out) throws IOException {
+        try (Stream<UserEntity> users = streamEntities(UserEntity.class, filters)) {
+            long rows = writeUsers(users, format, out);
+            log.info("[INFO] Выгрузка пользователей завершена: format={}, rows={}", format, rows);
+        }
+    }
+
+    long writeCards(Stream<CardEntity> cards, ExportFormat format, OutputStream out) throws IOException {
+        return write(cards, format, out, cardMapper::toDto, CARD_COLUMNS, (CardDto card) -> Arrays.asList(
+                card.getCardID(), card.getOwnerID(), card.getNumber(),
+                card.getCardStatus(), card.getExpirationDate(), card.getBalance()
+        ));
+    }
+
+    long writeUsers(Stream<UserEntity> users, ExportFormat format, OutputStream out) throws IOException {
+        return write(users, format, out, userMapper::toUserDto, USER_COLUMNS, (UserDto user) -> Arrays.asList(
+                user.getId(), user.getUsername(), user.getRole(),
+                user.isEnabled(), user.getCreatedDate(), user.getUpdatedDate()
+        ));
+    }
+
+    /**
+     * Открывает поток сущностей с курсором базы данных в порядке возрастания ID.
+     * Владелец карты не подгружается: в выгрузку попадает только {@code owner_id}.
+     */
+    private <T> Stream<T> streamEntities(Class<T> type, SpecificationData filters) {
+        return filterQueryCompiler.select(type, filters)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private <T, D> long write(Stream<T> entities,
+                              ExportFormat format,
+                              OutputStream out,
+                              Function<T, D> mapper,
+                              List<String> columns,
+                              Function<D, List<?>> csvRow) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (CSV == format) {
+            writeCsvRow(writer, columns);
+        }
+
+        long rows = 0;
+        Iterator<T> iterator = entities.iterator();
+        while (iterator.hasNext()) {
+            D dto = mapper.apply(iterator.next());
+            if (CSV == format) {
+                writeCsvRow(writer, csvRow.apply(dto));
+            } else {
+                writer.write(objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+            }
+
+            if (++rows % fetchSize == 0) {
+                entityManager.clear();
+                writer.flush();
+            }
+        }
+
+        writer.flush();
+        return rows;
+    }
+
+    private static void writeCsvRow(Writer writer, List<?> values) throws IOException {
+        for (int i = 0; i < values.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escapeCsv(values.get(i)));
+        }
+        writer.write("\r\n");
+    }
+
+    private static String escapeCsv(Object value) {
+        if (isNull(value)) {
+            return "";
+        }
+
+        var text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
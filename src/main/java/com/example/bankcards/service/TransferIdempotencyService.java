@@ -0,0 +1,245 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.TransferIdempotencyEntity;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.example.bankcards.mapper.TransferIdempotencyMapper;
+import com.example.bankcards.repository.TransferIdempotencyRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
+
+/**
+ * Сервис идемпотентности переводов по заголовку {@code Idempotency-Key}.
+ * <p>
+ * Результат успешного перевода сохраняется в таблицу {@code transfer_idempotency_key}
+ * в той же транзакции, что и сам перевод, и хранится {@code transfer.idempotency.ttl}.
+ * Перед таблицей стоит ограниченный LRU-кэш в памяти: повторный запрос с тем же ключом
+ * возвращает сохранённый результат без блокировки карт.
+ * </p>
+ *
+ * <p>Одновременные запросы с одинаковым ключом на одном узле объединяются: выполняется только первый,
+ * остальные ждут его результат. Между узлами дубликаты отсекает уникальный индекс
+ * {@code (user_id, idempotency_key)}.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * transfer:
+ *   idempotency:
+ *     ttl: PT24H
+ *     cache-size: 10000
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferIdempotencyService {
+    /**
+     * Максимальная длина ключа идемпотентности.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    private final TransferIdempotencyRepository transferIdempotencyRepository;
+    private final TransferIdempotencyMapper transferIdempotencyMapper;
+
+    /**
+     * Время хранения результата перевода.
+     */
+    @Value("${transfer.idempotency.ttl:PT24H}")
+    private Duration ttl;
+
+    /**
+     * Максимальное количество результатов в кэше.
+     */
+    @Value("${transfer.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    /**
+     * Переводы, выполняющиеся в данный момент, по ключу {@code userID:idempotencyKey}.
+     */
+    private final Map<String, CompletableFuture<CachedResult>> inFlight = new ConcurrentHashMap<>();
+
+    private Map<String, CachedResult> completed;
+
+    @PostConstruct
+    public void init() {
+        completed = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Выполняет перевод не более одного раза для пары пользователь/ключ.
+     *
+     * @param userID         идентификатор пользователя
+     * @param idempotencyKey значение заголовка {@code Idempotency-Key}
+     * @param request        параметры перевода (должны совпадать для повторов с тем же ключом)
+     * @param transfer       перевод; обязан сохранить результат через {@link #saveResult} в своей транзакции
+     * @return результат первого успешного выполнения перевода с этим ключом
+     * @throws IdempotencyKeyException если ключ некорректен или уже использован для другого перевода
+     */
+    public TransferInfoDto execute(Long userID,
+                                   String idempotencyKey,
+                                   TransferRequestDto request,
+                                   Supplier<TransferInfoDto> transfer) {
+        isKeyValid(idempotencyKey);
+        var cacheKey = userID + ":" + idempotencyKey;
+
+        var cached = completed.get(cacheKey);
+        if (nonNull(cached) && cached.expiresAt().isAfter(LocalDateTime.now())) {
+            isSameRequest(cached.request(), request);
+            log.info("[INFO] Повторный перевод с ключом [{}] обслужен из кэша", idempotencyKey);
+            return cached.result();
+        }
+
+        var future = new CompletableFuture<CachedResult>();
+        var running = inFlight.putIfAbsent(cacheKey, future);
+        if (nonNull(running)) {
+            log.info("[INFO] Перевод с ключом [{}] уже выполняется, ожидаем результат", idempotencyKey);
+            var runningResult = await(running);
+            isSameRequest(runningResult.request(), request);
+            return runningResult.result();
+        }
+
+        try {
+            var result = findOrExecute(userID, idempotencyKey, request, transfer);
+            var cachedResult = new CachedResult(request, result, LocalDateTime.now().plus(ttl));
+            completed.put(cacheKey, cachedResult);
+            future.complete(cachedResult);
+            return result;
+        } catch (RuntimeException ex) {
+            future.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(cacheKey, future);
+        }
+    }
+
+    /**
+     * Сохраняет результат перевода. Вызывается внутри транзакции перевода,
+     * чтобы перевод и ключ фиксировались атомарно.
+     *
+     * @throws DataIntegrityViolationException если ключ уже сохранён другим запросом
+     */
+    public void saveResult(Long userID, String idempotencyKey, TransferRequestDto request, TransferInfoDto result) {
+        transferIdempotencyRepository.saveAndFlush(
+                TransferIdempotencyEntity.builder()
+                        .idempotencyKey(idempotencyKey)
+                        .userID(userID)
+                        .fromCardID(request.fromCardId())
+                        .toCardID(request.toCardId())
+                        .amount(request.amount())
+                        .transferDate(result.transferDate())
+                        .numberCardFrom(result.numberCardFrom())
+                        .cardFromBalance(result.cardFromBalance())
+                        .numberCardTo(result.numberCardTo())
+                        .cardBalanceTo(result.cardBalanceTo())
+                        .expiresAt(LocalDateTime.now().plus(ttl))
+                        .build()
+        );
+    }
+
+    /**
+     * Удаляет просроченные ключи идемпотентности.
+     */
+    @Transactional
+    @Scheduled(fixedDelayString = "${transfer.idempotency.cleanup-interval-ms:3600000}")
+    public void deleteExpired() {
+        int deleted = transferIdempotencyRepository.deleteExpired(LocalDateTime.now());
+        log.info("[INFO] Удалено просроченных ключей идемпотентности: {}", deleted);
+    }
+
+    private TransferInfoDto findOrExecute(Long userID,
+                                          String idempotencyKey,
+                                          TransferRequestDto request,
+                                          Supplier<TransferInfoDto> transfer) {
+        var stored = transferIdempotencyRepository.findByUserIDAndKey(userID, idempotencyKey);
+        if (stored.isPresent()) {
+            if (isActive(stored.get())) {
+                log.info("[INFO] Повторный перевод с ключом [{}] обслужен из хранилища", idempotencyKey);
+                return toResult(stored.get(), request);
+            }
+
+            log.info("[INFO] Ключ [{}] просрочен и ещё не удалён, освобождаем его", idempotencyKey);
+            transferIdempotencyRepository.deleteExpiredKey(userID, idempotencyKey, LocalDateTime.now());
+        }
+
+        try {
+            return transfer.get();
+        } catch (DataIntegrityViolationException ex) {
+            log.warn("[WARN] Перевод с ключом [{}] уже выполнен другим запросом", idempotencyKey);
+            return transferIdempotencyRepository.findByUserIDAndKey(userID, idempotencyKey)
+                    .filter(TransferIdempotencyService::isActive)
+                    .map(entity -> toResult(entity, request))
+                    .orElseThrow(() -> ex);
+        }
+    }
+
+    private static boolean isActive(TransferIdempotencyEntity entity) {
+        return entity.getExpiresAt().isAfter(LocalDateTime.now());
+    }
+
+    private TransferInfoDto toResult(TransferIdempotencyEntity entity, TransferRequestDto request) {
+        isSameRequest(new TransferRequestDto(entity.getFromCardID(), entity.getToCardID(), entity.getAmount()), request);
+        return transferIdempotencyMapper.toTransferInfoDto(entity);
+    }
+
+    private static CachedResult await(CompletableFuture<CachedResult> running) {
+        try {
+            return running.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private static void isKeyValid(String idempotencyKey) {
+        if (isNull(idempotencyKey) || idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IdempotencyKeyException(
+                    "Некорректный ключ идемпотентности", "IDEMPOTENCY_KEY_INVALID", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+
+    private static void isSameRequest(TransferRequestDto stored, TransferRequestDto request) {
+        if (!Objects.equals(stored.fromCardId(), request.fromCardId())
+                || !Objects.equals(stored.toCardId(), request.toCardId())
+                || isNull(request.amount())
+                || stored.amount().compareTo(request.amount()) != 0) {
+            log.warn("[WARN] Ключ идемпотентности повторно использован для другого перевода");
+            throw new IdempotencyKeyException(
+                    "Ключ идемпотентности уже использован для другого перевода",
+                    "IDEMPOTENCY_KEY_REUSED", HttpStatus.UNPROCESSABLE_ENTITY.value()
+            );
+        }
+    }
+
+    private record CachedResult(TransferRequestDto request, TransferInfoDto result, LocalDateTime expiresAt) {
+    }
+}
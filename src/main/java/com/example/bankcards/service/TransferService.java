@@ -0,0 +1,287 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AsyncTransferStatusDto;
+import com.example.bankcards.dto.AsyncTransferTask;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.exception.ApiException;
+import com.example.bankcards.exception.TransferBatchException;
+import com.example.bankcards.handler.GroupCommitTransferHandler;
+import com.example.bankcards.handler.TransferHandler;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Точка входа для переводов между картами пользователя.
+ * <p>
+ * Сам сервис не открывает транзакцию: каждая попытка перевода выполняется
+ * в отдельной транзакции выбранного {@link TransferHandler}. Режим задаётся свойством
+ * {@code transfer.mode} ({@link TransferMode}). Если база данных
+ * откатывает транзакцию из-за deadlock или ошибки сериализации, либо в режиме {@code OPTIMISTIC_LOCK}
+ * карту изменил другой перевод ({@link ConcurrencyFailureException}), перевод повторяется ограниченное число раз
+ * с небольшой случайной задержкой.
+ * </p>
+ *
+ * <p>Перед каждой попыткой карта списания блокируется в памяти через {@link CardLockManager},
+ * поэтому конкурирующие списания с одной карты на узле ждут друг друга до получения соединения с базой данных.
+ * Карта зачисления в памяти не блокируется: зачисления на «горячую» карту идут параллельно.
+ * После успешного перевода балансы карт сбрасываются в {@link CardBalanceCache}.</p>
+ *
+ * <p>Пример настройки в application.yml:</p>
+ * <pre>
+ * transfer:
+ *   mode: PESSIMISTIC_LOCK
+ *   retry:
+ *     max-attempts: 3
+ *     backoff-ms: 50
+ *   batch:
+ *     max-size: 1000
+ *   lock:
+ *     stripes: 1024
+ * </pre>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TransferService {
+    private final Map<TransferMode, TransferHandler> transferHandlers;
+    private final UserService userService;
+    private final TransferIdempotencyService transferIdempotencyService;
+    private final TransactionTemplate transactionTemplate;
+    private final CardLockManager cardLockManager;
+    private final CardBalanceCache cardBalanceCache;
+
+    /**
+     * Способ выполнения перевода.
+     */
+    @Value("${transfer.mode:PESSIMISTIC_LOCK}")
+    private TransferMode transferMode;
+
+    /**
+     * Максимальное количество попыток выполнения перевода.
+     */
+    @Value("${transfer.retry.max-attempts:3}")
+    private int maxAttempts;
+
+    /**
+     * Базовая задержка между попытками в миллисекундах.
+     */
+    @Value("${transfer.retry.backoff-ms:50}")
+    private long backoffMs;
+
+    /**
+     * Максимальное количество переводов в одном пакете.
+     */
+    @Value("${transfer.batch.max-size:1000}")
+    private int batchMaxSize;
+
+    /**
+     * Выполняет перевод средств между картами пользователя с повтором при конфликте блокировок.
+     *
+     * @param userID             идентификатор пользователя, выполняющего перевод
+     * @param transferRequestDto DTO с параметрами перевода (ID карт и сумма)
+     * @return DTO с информацией об успешном переводе
+     * @throws ConcurrencyFailureException если перевод не удался после всех попыток
+     */
+    public TransferInfoDto transferMoney(Long userID, TransferRequestDto transferRequestDto) {
+        var transferHandler = transferHandlers.get(transferMode);
+        var result = executeWithRetry(() -> cardLockManager.executeWithLocks(
+                debitCardIDs(transferRequestDto), () -> transferHandler.transfer(userID, transferRequestDto)
+        ));
+        cardBalanceCache.evictAfterCommit(cardIDs(transferRequestDto));
+        return result;
+    }
+
+    /**
+     * Выполняет перевод не более одного раза для переданного ключа идемпотентности.
+     * <p>
+     * Перевод и сохранение его результата выполняются в одной транзакции. Повторы с тем же ключом
+     * получают сохранённый результат без повторного списания. Если ключ не передан,
+     * перевод выполняется как обычно.
+     * </p>
+     *
+     * @param userID             идентификатор пользователя, выполняющего перевод
+     * @param idempotencyKey     значение заголовка {@code Idempotency-Key} (может быть {@code null})
+     * @param transferRequestDto DTO с параметрами перевода (ID карт и сумма)
+     * @return DTO с информацией о переводе
+     * @see TransferIdempotencyService
+     */
+    public TransferInfoDto transferMoney(Long userID, String idempotencyKey, TransferRequestDto transferRequestDto) {
+        if (isNull(idempotencyKey)) {
+            return transferMoney(userID, transferRequestDto);
+        }
+
+        var transferHandler = transferHandlers.get(transferMode);
+        var transferInfo = transferIdempotencyService.execute(userID, idempotencyKey, transferRequestDto,
+                () -> executeWithRetry(() -> cardLockManager.executeWithLocks(debitCardIDs(transferRequestDto),
+                        () -> transactionTemplate.execute(status -> {
+                            var result = transferHandler.transfer(userID, transferRequestDto);
+                            transferIdempotencyService.saveResult(userID, idempotencyKey, transferRequestDto, result);
+                            return result;
+                        })
+                ))
+        );
+        cardBalanceCache.evictAfterCommit(cardIDs(transferRequestDto));
+        return transferInfo;
+    }
+
+    /**
+     * Выполняет пакет переводов в одной транзакции с повтором при конфликте блокировок.
+     * Пакет всегда выполняется через {@link UserService#transferMoneyBatch} независимо от {@code transfer.mode}.
+     *
+     * @param userID    идентификатор пользователя, выполняющего переводы
+     * @param transfers список переводов (не пустой, не больше {@code transfer.batch.max-size})
+     * @return результаты переводов в порядке следования в запросе
+     * @throws TransferBatchException если пакет пуст или превышает допустимый размер
+     */
+    public List<TransferInfoDto> transferMoneyBatch(Long userID, List<TransferRequestDto> transfers) {
+        if (isNull(transfers) || transfers.isEmpty() || transfers.size() > batchMaxSize) {
+            log.warn("[WARN] Некорректный размер пакета переводов: {}", isNull(transfers) ? null : transfers.size());
+            throw new TransferBatchException(
+                    "Пакет должен содержать от 1 до %d переводов".formatted(batchMaxSize),
+                    "VALIDATION_ERROR", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+
+        var cardIDs = new ArrayList<Long>(transfers.size() * 2);
+        var debitCardIDs = new ArrayList<Long>(transfers.size());
+        for (TransferRequestDto transfer : transfers) {
+            cardIDs.addAll(cardIDs(transfer));
+            debitCardIDs.add(transfer.fromCardId());
+        }
+
+        var results = executeWithRetry(() -> cardLockManager.executeWithLocks(
+                debitCardIDs, () -> userService.transferMoneyBatch(userID, transfers)
+        ));
+        cardBalanceCache.evictAfterCommit(cardIDs);
+        return results;
+    }
+
+    /**
+     * Выполняет группу асинхронных переводов в режиме {@code transfer.mode}.
+     * <p>
+     * Если обработчик режима поддерживает групповую фиксацию ({@link GroupCommitTransferHandler}),
+     * группа фиксируется одной транзакцией с повтором при конфликте блокировок. Иначе каждый перевод выполняется
+     * через {@link #transferMoney(Long, TransferRequestDto)} со своей транзакцией и повтором, а ошибка перевода
+     * переводит в {@link AsyncTransferStatus#FAILED} только его.
+     * </p>
+     *
+     * @param tasks переводы группы
+     * @return статусы переводов в порядке следования в группе
+     */
+    public List<AsyncTransferStatusDto> transferMoneyGroup(List<AsyncTransferTask> tasks) {
+        if (!(transferHandlers.get(transferMode) instanceof GroupCommitTransferHandler transferHandler)) {
+            return tasks.stream().map(this::transferMoneyTask).toList();
+        }
+
+        var cardIDs = new ArrayList<Long>(tasks.size() * 2);
+        var debitCardIDs = new ArrayList<Long>(tasks.size());
+        for (AsyncTransferTask task : tasks) {
+            cardIDs.addAll(cardIDs(task.request()));
+            debitCardIDs.add(task.request().fromCardId());
+        }
+
+        var results = executeWithRetry(() -> cardLockManager.executeWithLocks(
+                debitCardIDs, () -> transferHandler.transferGroup(tasks)
+        ));
+        cardBalanceCache.evictAfterCommit(cardIDs);
+        return results;
+    }
+
+    private AsyncTransferStatusDto transferMoneyTask(AsyncTransferTask task) {
+        try {
+            return AsyncTransferStatusDto.builder()
+                    .transferID(task.transferID())
+                    .status(AsyncTransferStatus.COMPLETED)
+                    .result(transferMoney(task.userID(), task.request()))
+                    .build();
+        } catch (ApiException ex) {
+            return failed(task, ex.getErrorCode(), ex.getMessage());
+        } catch (IllegalArgumentException ex) {
+            return failed(task, "VALIDATION_ERROR", ex.getMessage());
+        } catch (EntityNotFoundException ex) {
+            return failed(task, "ENTITY_NOT_FOUND", ex.getMessage());
+        } catch (RuntimeException ex) {
+            return failed(task, "TRANSFER_FAILED", ex.getMessage());
+        }
+    }
+
+    private static AsyncTransferStatusDto failed(AsyncTransferTask task, String errorCode, String errorMessage) {
+        log.warn("[WARN] Перевод [{}] отклонён: {}", task.transferID(), errorMessage);
+        return AsyncTransferStatusDto.builder()
+                .transferID(task.transferID())
+                .status(AsyncTransferStatus.FAILED)
+                .errorCode(errorCode)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
+    /**
+     * Выполняет транзакционное действие, повторяя его при {@link ConcurrencyFailureException}.
+     *
+     * @param action действие, открывающее собственную транзакцию
+     * @return результат действия
+     * @throws ConcurrencyFailureException если все попытки завершились конфликтом
+     */
+    <T> T executeWithRetry(Supplier<T> action) {
+        int attempt = 1;
+
+        while (true) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    log.error("[ERROR] Перевод не выполнен после {} попыток: {}", attempt, ex.getMessage());
+                    throw ex;
+                }
+
+                log.warn("[WARN] Конфликт блокировок при переводе, попытка {} из {}: {}",
+                        attempt, maxAttempts, ex.getMessage());
+                pause(attempt, ex);
+                attempt++;
+            }
+        }
+    }
+
+    private static List<Long> cardIDs(TransferRequestDto transferRequestDto) {
+        return Arrays.asList(transferRequestDto.fromCardId(), transferRequestDto.toCardId());
+    }
+
+    /**
+     * Карта списания — единственная, которую нужно блокировать в памяти: зачисления на карту
+     * ({@code LEDGER}, слоты баланса) рассчитаны на параллельное выполнение, а строки карт
+     * в режимах с блокировкой строк по-прежнему защищает база данных.
+     */
+    private static List<Long> debitCardIDs(TransferRequestDto transferRequestDto) {
+        return Collections.singletonList(transferRequestDto.fromCardId());
+    }
+
+    private void pause(int attempt, ConcurrencyFailureException cause) {
+        long delay = backoffMs * attempt + ThreadLocalRandom.current().nextLong(backoffMs + 1);
+
+        try {
+            Thread.sleep(delay);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
@@ -3,34 +3,39 @@ package com.example.bankcards.service;
 import com.example.bankcards.dto.*;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.CardStatusRequestEntity;
-import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import com.example.bankcards.exception.ApiException;
 import com.example.bankcards.exception.CardStatusException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.PaginationException;
+import com.example.bankcards.exception.TransferBatchException;
 import com.example.bankcards.mapper.UserMapper;
 import com.example.bankcards.repository.CardStatusRequestRepository;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.PageCursor;
 import com.example.bankcards.util.RepositoryHelper;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.hibernate.exception.ConstraintViolationException;
-import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.Map;
 
 import static com.example.bankcards.entity.enums.CardOperation.BLOCK;
 import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
 import static com.example.bankcards.util.RepositoryHelper.getCardDtos;
 import static com.example.bankcards.util.RepositoryHelper.getPageableSortingByAscID;
 import static java.util.Objects.isNull;
+import static java.util.Objects.nonNull;
 
 /**
  * Сервисный слой, предоставляющий операции для пользователей,
@@ -49,6 +54,8 @@ public class UserService {
     private final CardMapper cardMapper;
     private final UserMapper userMapper;
     private final UserRepository userRepository;
+    private final CardOwnershipService cardOwnershipService;
+    private final CardBalanceCache cardBalanceCache;
 
     /**
      * Возвращает список всех карт пользователя с возможностью фильтрации по статусу и дате истечения.
@@ -74,9 +81,40 @@ public class UserService {
                 .status(status)
                 .expirationDate(expirationDate)
                 .ownerID(userID).build();
-        Specification<CardEntity> spec = repositoryHelper.getSpecificationWithParams(specificationData);
+        return getCardDtos(pageable, specificationData, repositoryHelper, cardMapper);
+    }
 
-        return getCardDtos(pageable, spec, repositoryHelper, cardMapper);
+    /**
+     * Возвращает страницу карт пользователя для курсорной пагинации с теми же фильтрами,
+     * что и {@link #findAllUserCards}. Запрос {@code COUNT(*)} не выполняется.
+     *
+     * @param userID         идентификатор пользователя
+     * @param after          курсор предыдущей страницы (может быть {@code null} — первая страница)
+     * @param size           количество элементов на странице
+     * @param status         статус карты (может быть {@code null})
+     * @param expirationDate дата истечения срока действия карты (может быть {@code null})
+     * @return карты страницы и курсор следующей страницы
+     * @throws EntityNotFoundException если пользователь с указанным {@code userID} не найден
+     * @throws PaginationException     если курсор или размер страницы некорректны
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDto<CardDto> findAllUserCardsAfter(Long userID,
+                                                        String after,
+                                                        int size,
+                                                        CardStatus status,
+                                                        LocalDate expirationDate) throws EntityNotFoundException {
+        PageCursor.isSizeValid(size);
+        repositoryHelper.isUserExists(userID);
+
+        var specificationData = SpecificationData.builder()
+                .status(status)
+                .expirationDate(expirationDate)
+                .ownerID(userID)
+                .afterID(PageCursor.decode(after))
+                .build();
+        return repositoryHelper.getCardCursorPage(
+                specificationData, size, cards -> cards.stream().map(cardMapper::toDto).toList()
+        );
     }
 
     /**
@@ -98,27 +136,19 @@ public class UserService {
 
     /**
      * Возвращает информацию о конкретной карте пользователя по её идентификатору.
+     * Принадлежность карты проверяется в том же запросе, что и её загрузка.
      *
      * @param userID идентификатор пользователя
      * @param cardID идентификатор карты
      * @return DTO найденной карты
      * @throws EntityNotFoundException если пользователь или карта не найдены
+     * @throws CardStatusException     если карта не принадлежит пользователю
      */
     @Transactional(readOnly = true)
     public CardDto findCardByID(
             Long userID,
             Long cardID) throws EntityNotFoundException {
-        var userEntityByID = repositoryHelper.findUserEntityByID(userID);
-        var cardEntityByID = repositoryHelper.findCardEntityByID(cardID);
-
-        if (!userEntityByID.getCards().contains(cardEntityByID)) {
-            log.warn("Карта с ID: {} не принадлежит пользователю с ID {}", cardID, cardEntityByID);
-            throw new CardStatusException(
-                    "Карта не принадлежит данному пользователю!", "CARD_STATUS", HttpStatus.BAD_REQUEST.value()
-            );
-        }
-
-        return cardMapper.toDto(cardEntityByID);
+        return cardMapper.toDto(cardOwnershipService.findOwnedCard(userID, cardID));
     }
 
     /**
@@ -169,28 +199,39 @@ public class UserService {
 
     /**
      * Возвращает текущий баланс активной карты пользователя.
+     * Баланс считается одним запросом как снимок {@code cards.balance} плюс несвёрнутые записи журнала.
+     * <p>
+     * Состояние карты берётся из {@link CardBalanceCache}, поэтому повторные запросы не обращаются к базе данных
+     * и не открывают транзакцию. Если карта не найдена, не принадлежит пользователю или не активна,
+     * выполняются обычные проверки, чтобы вернуть ту же ошибку, что и без кэша.
+     * </p>
      *
      * @param userID идентификатор пользователя
      * @param cardID идентификатор карты
      * @return текущий баланс карты
      * @throws EntityNotFoundException если пользователь не найден или карта отсутствует/не активна
+     * @throws CardStatusException     если карта не принадлежит пользователю
      */
-    @Transactional(readOnly = true)
     public BigDecimal findUserCardBalance(
             Long userID,
             Long cardID) throws EntityNotFoundException {
-        repositoryHelper.isUserExists(userID);
-        var cardEntity = repositoryHelper.findCardEntityByIDAndStatus(cardID, CardStatus.ACTIVE);
+        var state = cardBalanceCache.getOrLoad(cardID, () -> repositoryHelper.findCardBalanceState(cardID));
+        if (nonNull(state) && userID.equals(state.ownerID()) && CardStatus.ACTIVE == state.cardStatus()) {
+            return state.balance();
+        }
+
+        cardOwnershipService.isCardOwner(userID, cardID);
 
-        return cardEntity.getBalance();
+        return repositoryHelper.findCardAvailableBalance(cardID, CardStatus.ACTIVE);
     }
 
     /**
      * Выполняет перевод денежных средств между двумя картами пользователя в рамках одной транзакции.
      * Для предотвращения конкурентных изменений балансов используется
      * блокировка записей в базе данных с режимом {@code PESSIMISTIC_WRITE}
-     * при извлечении сущностей карт (через {@code repositoryHelper.findCardEntityByIDAndLockModeType()}).
+     * при извлечении сущностей карт (через {@code repositoryHelper.findCardEntitiesByIDsAndLockModeType()}).
      * Это гарантирует, что одновременные транзакции не смогут изменить одни и те же карты до завершения текущей.
+     * Обе карты блокируются одним запросом в порядке возрастания ID, поэтому встречные переводы не взаимоблокируются.
      *
      * <p><b>Особенности:</b></p>
      * <ul>
@@ -219,14 +260,17 @@ public class UserService {
         isAmountValid(transferRequestDto.amount());
         var amount = transferRequestDto.amount();
 
-        var cardFromByID = repositoryHelper.findCardEntityByIDAndLockModeType(transferRequestDto.fromCardId());
-        var cardTobyID = repositoryHelper.findCardEntityByIDAndLockModeType(transferRequestDto.toCardId());
+        var lockedCards = repositoryHelper.findCardEntitiesByIDsAndLockModeType(
+                transferRequestDto.fromCardId(), transferRequestDto.toCardId()
+        );
+        var cardFromByID = lockedCards.get(transferRequestDto.fromCardId());
+        var cardTobyID = lockedCards.get(transferRequestDto.toCardId());
 
         isCardStatusValid(cardFromByID, cardTobyID);
 
-        var userEntityByID = repositoryHelper.findUserEntityByID(userID);
+        repositoryHelper.isUserExists(userID);
 
-        isUserContainsCards(userID, userEntityByID, cardFromByID, cardTobyID);
+        isCardOwner(userID, cardFromByID, cardTobyID);
         isEnoughAmount(cardFromByID, amount);
 
         cardFromByID.setBalance(cardFromByID.getBalance().subtract(transferRequestDto.amount()));
@@ -246,6 +290,155 @@ public class UserService {
         return cardMapper.toTransferInfoDto(cardFromByID, cardTobyID, transferRequestDto.amount());
     }
 
+    /**
+     * Выполняет пакет переводов пользователя в одной транзакции по принципу «всё или ничего».
+     * <p>
+     * Все карты, участвующие в пакете, блокируются один раз одним запросом
+     * в порядке возрастания ID. Переводы применяются к балансам в памяти строго в порядке
+     * следования в запросе, поэтому каждый следующий перевод видит результат предыдущих.
+     * Изменённые карты сохраняются одним flush при фиксации транзакции (с JDBC batching).
+     * </p>
+     *
+     * <p>Если хотя бы один перевод некорректен, транзакция откатывается целиком,
+     * а в ошибке указывается порядковый номер перевода (начиная с 0).</p>
+     *
+     * @param userID    идентификатор пользователя, выполняющего переводы
+     * @param transfers список переводов
+     * @return результаты переводов в порядке следования в запросе
+     * @throws EntityNotFoundException если одна из карт или пользователь не найдены
+     * @throws TransferBatchException  если один из переводов не может быть выполнен
+     */
+    @Transactional
+    public List<TransferInfoDto> transferMoneyBatch(Long userID, List<TransferRequestDto> transfers) {
+        repositoryHelper.isUserExists(userID);
+
+        var cardIDs = new ArrayList<Long>(transfers.size() * 2);
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            if (isNull(transfer.fromCardId()) || isNull(transfer.toCardId())) {
+                throw new TransferBatchException(
+                        "Перевод #%d: не указан ID карты".formatted(i), "VALIDATION_ERROR", HttpStatus.BAD_REQUEST.value()
+                );
+            }
+            cardIDs.add(transfer.fromCardId());
+            cardIDs.add(transfer.toCardId());
+        }
+
+        var lockedCards = repositoryHelper.findCardEntitiesByIDsAndLockModeType(cardIDs);
+        var results = new ArrayList<TransferInfoDto>(transfers.size());
+
+        for (int i = 0; i < transfers.size(); i++) {
+            var transfer = transfers.get(i);
+            var cardFrom = lockedCards.get(transfer.fromCardId());
+            var cardTo = lockedCards.get(transfer.toCardId());
+
+            try {
+                results.add(applyLockedTransfer(userID, transfer, cardFrom, cardTo));
+            } catch (ApiException ex) {
+                throw new TransferBatchException(
+                        "Перевод #%d: %s".formatted(i, ex.getMessage()), ex.getErrorCode(), ex.getHttpStatus()
+                );
+            } catch (IllegalArgumentException ex) {
+                throw new TransferBatchException(
+                        "Перевод #%d: %s".formatted(i, ex.getMessage()), "VALIDATION_ERROR", HttpStatus.BAD_REQUEST.value()
+                );
+            }
+        }
+
+        log.info("[INFO] Пакет переводов выполнен успешно. userId={}, transfers={}, cards={}",
+                userID, transfers.size(), lockedCards.size());
+
+        return results;
+    }
+
+    /**
+     * Выполняет группу независимых переводов разных пользователей в одной транзакции (group commit).
+     * <p>
+     * Карты всех переводов группы блокируются одним запросом в порядке возрастания ID.
+     * Каждый перевод проверяется по тем же правилам, что и {@link #transferMoney}, и применяется к балансам
+     * в памяти. В отличие от {@link #transferMoneyBatch}, некорректный перевод не откатывает группу:
+     * он получает статус {@link AsyncTransferStatus#FAILED} с причиной ошибки, остальные фиксируются вместе.
+     * </p>
+     *
+     * @param tasks переводы группы
+     * @return статусы переводов в порядке следования в группе
+     */
+    @Transactional
+    public List<AsyncTransferStatusDto> transferMoneyGroup(List<AsyncTransferTask> tasks) {
+        var cardIDs = new ArrayList<Long>(tasks.size() * 2);
+        for (AsyncTransferTask task : tasks) {
+            cardIDs.add(task.request().fromCardId());
+            cardIDs.add(task.request().toCardId());
+        }
+
+        var lockedCards = repositoryHelper.lockExistingCardEntities(cardIDs);
+        var results = new ArrayList<AsyncTransferStatusDto>(tasks.size());
+        int completed = 0;
+
+        for (AsyncTransferTask task : tasks) {
+            var transfer = task.request();
+            try {
+                var cardFrom = findLockedCard(lockedCards, transfer.fromCardId());
+                var cardTo = findLockedCard(lockedCards, transfer.toCardId());
+                var result = applyLockedTransfer(task.userID(), transfer, cardFrom, cardTo);
+
+                results.add(AsyncTransferStatusDto.builder()
+                        .transferID(task.transferID())
+                        .status(AsyncTransferStatus.COMPLETED)
+                        .result(result)
+                        .build());
+                completed++;
+            } catch (ApiException ex) {
+                results.add(failed(task, ex.getErrorCode(), ex.getMessage()));
+            } catch (IllegalArgumentException ex) {
+                results.add(failed(task, "VALIDATION_ERROR", ex.getMessage()));
+            } catch (EntityNotFoundException ex) {
+                results.add(failed(task, "ENTITY_NOT_FOUND", ex.getMessage()));
+            }
+        }
+
+        log.info("[INFO] Группа переводов зафиксирована. transfers={}, completed={}, cards={}",
+                tasks.size(), completed, lockedCards.size());
+
+        return results;
+    }
+
+    /**
+     * Проверяет перевод по правилам {@link #transferMoney} и применяет его к заблокированным картам.
+     */
+    private TransferInfoDto applyLockedTransfer(Long userID,
+                                                TransferRequestDto transfer,
+                                                CardEntity cardFrom,
+                                                CardEntity cardTo) {
+        isAmountValid(transfer.amount());
+        isCardStatusValid(cardFrom, cardTo);
+        isCardOwner(userID, cardFrom, cardTo);
+        isEnoughAmount(cardFrom, transfer.amount());
+
+        cardFrom.setBalance(cardFrom.getBalance().subtract(transfer.amount()));
+        cardTo.setBalance(cardTo.getBalance().add(transfer.amount()));
+        return cardMapper.toTransferInfoDto(cardFrom, cardTo, transfer.amount());
+    }
+
+    private static CardEntity findLockedCard(Map<Long, CardEntity> lockedCards, Long cardID) {
+        var card = lockedCards.get(cardID);
+        if (isNull(card)) {
+            log.error("[ERROR] Карта с ID: [{}] не найден!", cardID);
+            throw new EntityNotFoundException("Card not found with ID: " + cardID);
+        }
+        return card;
+    }
+
+    private static AsyncTransferStatusDto failed(AsyncTransferTask task, String errorCode, String errorMessage) {
+        log.warn("[WARN] Перевод [{}] отклонён: {}", task.transferID(), errorMessage);
+        return AsyncTransferStatusDto.builder()
+                .transferID(task.transferID())
+                .status(AsyncTransferStatus.FAILED)
+                .errorCode(errorCode)
+                .errorMessage(errorMessage)
+                .build();
+    }
+
     private static void isEnoughAmount(CardEntity cardFromByID, BigDecimal amount) {
         if (cardFromByID.getBalance().compareTo(amount) < 0) {
             log.warn("[WARN] Недостаточно средств: баланс={}, требуется={}",
@@ -256,11 +449,8 @@ public class UserService {
         }
     }
 
-    private static void isUserContainsCards(Long userID,
-                                            UserEntity userEntityByID,
-                                            CardEntity cardFromByID,
-                                            CardEntity cardTobyID) {
-        if (!userEntityByID.getCards().contains(cardFromByID) || !userEntityByID.getCards().contains(cardTobyID)) {
+    private static void isCardOwner(Long userID, CardEntity cardFromByID, CardEntity cardTobyID) {
+        if (!userID.equals(cardFromByID.getOwner().getId()) || !userID.equals(cardTobyID.getOwner().getId())) {
             log.error("[ERROR] Ошибка! Одна из карт не принадлежит пользователю с ID {}, from={}, to={}",
                     userID,
                     cardFromByID.getId(),
@@ -0,0 +1,188 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.SpecificationData;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Компилирует фильтры {@link SpecificationData} в JPQL и кэширует шаблоны запросов.
+ * <p>
+ * Набор непустых полей {@link SpecificationData} кодируется битовой маской, поэтому для каждой сущности
+ * существует не больше {@code 2^}{@link #FILTERS}{@code .size()} разных запросов. Для пары (сущность, маска)
+ * текст запроса страницы и запроса {@code COUNT} строится один раз, а при каждом вызове
+ * привязываются только параметры.
+ * </p>
+ *
+ * <p>Одинаковый текст запроса даёт повторное использование плана на всех уровнях: Hibernate берёт разобранный
+ * запрос из своего кэша интерпретаций (для criteria-запросов этот кэш не работает), а pgjdbc после
+ * нескольких выполнений переходит на серверный prepared statement.</p>
+ *
+ * <p>Все запросы сортируются по {@code id} по возрастанию, как и {@link RepositoryHelper#getPageableSortingByAscID}.</p>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilterQueryCompiler {
+    /**
+     * Фильтры в порядке битов маски. Для поля может быть несколько путей: берётся первый,
+     * корневой атрибут которого есть у сущности (например, {@code owner.id} у карт и {@code ownerID} у заявок).
+     */
+    static final List<Filter> FILTERS = List.of(
+            new Filter("status", SpecificationData::status, "=", "cardStatus"),
+            new Filter("enabled", SpecificationData::enabled, "=", "enabled"),
+            new Filter("createdDate", SpecificationData::createdDate, "=", "createdDate"),
+            new Filter("ownerID", SpecificationData::ownerID, "=", "owner.id", "ownerID"),
+            new Filter("expirationDate", SpecificationData::expirationDate, "=", "expirationDate"),
+            new Filter("cardID", SpecificationData::cardID, "=", "cardID"),
+            new Filter("statusRequest", SpecificationData::statusRequest, "=", "status"),
+            new Filter("requestedAt", SpecificationData::requestedAt, "=", "requestedAt"),
+            new Filter("afterID", SpecificationData::afterID, ">", "id")
+    );
+
+    private final EntityManager entityManager;
+
+    private final Map<TemplateKey, Template> templates = new ConcurrentHashMap<>();
+
+    /**
+     * Возвращает страницу сущностей. Запрос {@code COUNT} выполняется, только если по размеру
+     * страницы нельзя определить общее количество.
+     *
+     * @param type     класс сущности
+     * @param data     фильтры
+     * @param pageable номер и размер страницы
+     * @return страница сущностей в порядке возрастания {@code id}
+     */
+    public <T> Page<T> findPage(Class<T> type, SpecificationData data, Pageable pageable) {
+        var template = template(type, data);
+        List<T> content = bind(entityManager.createQuery(template.select(), type), data, template.mask())
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> bind(entityManager.createQuery(template.count(), Long.class), data, template.mask())
+                        .getSingleResult());
+    }
+
+    /**
+     * Возвращает первые {@code limit} сущностей, удовлетворяющих фильтрам.
+     *
+     * @param type  класс сущности
+     * @param data  фильтры (для курсорной пагинации — вместе с {@link SpecificationData#afterID()})
+     * @param limit максимальное количество сущностей
+     * @return сущности в порядке возрастания {@code id}
+     */
+    public <T> List<T> findFirst(Class<T> type, SpecificationData data, int limit) {
+        var template = template(type, data);
+        return bind(entityManager.createQuery(template.select(), type), data, template.mask())
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Возвращает запрос всех сущностей, удовлетворяющих фильтрам, для потокового чтения.
+     *
+     * @param type класс сущности
+     * @param data фильтры
+     * @return запрос с привязанными параметрами, отсортированный по {@code id}
+     */
+    public <T> TypedQuery<T> select(Class<T> type, SpecificationData data) {
+        var template = template(type, data);
+        return bind(entityManager.createQuery(template.select(), type), data, template.mask());
+    }
+
+    /**
+     * Кодирует набор непустых полей фильтра битовой маской.
+     *
+     * @param data фильтры
+     * @return маска, где бит {@code i} соответствует фильтру {@code FILTERS.get(i)}
+     */
+    static int mask(SpecificationData data) {
+        int mask = 0;
+        for (int i = 0; i < FILTERS.size(); i++) {
+            if (nonNull(FILTERS.get(i).value().apply(data))) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    int cachedTemplates() {
+        return templates.size();
+    }
+
+    Template template(Class<?> type, SpecificationData data) {
+        return templates.computeIfAbsent(new TemplateKey(type, mask(data)), this::compile);
+    }
+
+    private Template compile(TemplateKey key) {
+        var entityType = entityManager.getMetamodel().entity(key.type());
+        Set<String> attributes = entityType.getAttributes().stream()
+                .map(Attribute::getName)
+                .collect(Collectors.toSet());
+
+        var where = new StringBuilder();
+        for (int i = 0; i < FILTERS.size(); i++) {
+            if ((key.mask() & 1 << i) == 0) {
+                continue;
+            }
+
+            var filter = FILTERS.get(i);
+            where.append(where.isEmpty() ? " WHERE " : " AND ")
+                    .append("e.").append(filter.pathFor(attributes, entityType.getName()))
+                    .append(' ').append(filter.operator())
+                    .append(" :").append(filter.name());
+        }
+
+        var from = " FROM " + entityType.getName() + " e" + where;
+        var template = new Template(key.mask(), "SELECT e" + from + " ORDER BY e.id ASC", "SELECT COUNT(e)" + from);
+        log.debug("[DEBUG] Скомпилирован шаблон запроса {}: {}", key, template.select());
+        return template;
+    }
+
+    private static <Q extends TypedQuery<?>> Q bind(Q query, SpecificationData data, int mask) {
+        for (int i = 0; i < FILTERS.size(); i++) {
+            if ((mask & 1 << i) != 0) {
+                var filter = FILTERS.get(i);
+                query.setParameter(filter.name(), filter.value().apply(data));
+            }
+        }
+        return query;
+    }
+
+    record Filter(String name, Function<SpecificationData, Object> value, String operator, String... paths) {
+
+        String pathFor(Set<String> attributes, String entityName) {
+            for (String path : paths) {
+                int dot = path.indexOf('.');
+                if (attributes.contains(dot < 0 ? path : path.substring(0, dot))) {
+                    return path;
+                }
+            }
+
+            throw new IllegalArgumentException("Фильтр %s не поддерживается для %s".formatted(name, entityName));
+        }
+    }
+
+    record TemplateKey(Class<?> type, int mask) {
+    }
+
+    record Template(int mask, String select, String count) {
+    }
+}
@@ -21,6 +21,10 @@ import lombok.experimental.UtilityClass;
  */
 @UtilityClass
 public class MaskCardNumber  {
+    /**
+     * Максимальная длина замаскированного номера: 19 цифр и 4 пробела.
+     */
+    public static final int MAX_MASKED_LENGTH = 23;
 
     /**
      * Маскирует номер карты, оставляя видимыми только последние 4 цифры.
@@ -41,14 +45,102 @@ public class MaskCardNumber  {
             throw new RuntimeException("Card number is null");
         }
 
-        String digitsOnly = cardNumber.replaceAll("\\D", "");
+        var masked = new char[MAX_MASKED_LENGTH];
+        return new String(masked, 0, maskInto(cardNumber, masked));
+    }
+
+    /**
+     * Маскирует номер карты в переданный буфер за один проход, без регулярных выражений
+     * и промежуточных строк. Результат совпадает с {@link #mask(String)}.
+     *
+     * @param cardNumber номер карты (может содержать пробелы или другие символы)
+     * @param out        буфер длиной не меньше {@value #MAX_MASKED_LENGTH}
+     * @return количество записанных символов
+     * @throws RuntimeException если длина номера некорректна
+     */
+    public int maskInto(CharSequence cardNumber, char[] out) {
+        var last4 = new char[4];
+        int digits = 0;
+        for (int i = 0; i < cardNumber.length(); i++) {
+            char c = cardNumber.charAt(i);
+            if (c >= '0' && c <= '9') {
+                last4[digits & 3] = c;
+                digits++;
+            }
+        }
+
+        if (digits < 16 || digits > 19) {
+            throw new RuntimeException("Invalid card number");
+        }
+
+        // последние четыре цифры лежат в кольцевом буфере начиная с позиции digits & 3
+        return fill(out, digits, last4, digits & 3);
+    }
+
+    /**
+     * Строит замаскированный номер по последним четырём цифрам и длине номера, без полного номера.
+     * Результат совпадает с {@link #mask(String)} для того же номера.
+     *
+     * @param last4  последние четыре цифры номера
+     * @param length количество цифр в номере
+     * @return замаскированный номер карты в формате с пробелами каждые 4 цифры
+     * @throws RuntimeException если последние цифры или длина номера некорректны
+     */
+    public String mask(String last4, int length) {
+        if (last4 == null || last4.length() != 4) {
+            throw new RuntimeException("Invalid last four digits");
+        }
 
-        if (digitsOnly.length() < 16 || digitsOnly.length() > 19) {
+        if (length < 16 || length > 19) {
             throw new RuntimeException("Invalid card number");
         }
 
-        String maskedDigits = digitsOnly.replaceAll("\\d(?=\\d{4})", "*");
+        var masked = new char[MAX_MASKED_LENGTH];
+        return new String(masked, 0, fill(masked, length, last4.toCharArray(), 0));
+    }
+
+    /**
+     * Проверяет, что значение в точности совпадает с форматом {@link #mask(String)}: 16–19 символов номера
+     * группами по 4 через пробел, все символы, кроме последних четырёх, — {@code *}, последние четыре — цифры.
+     *
+     * @param value проверяемое значение
+     * @return {@code true}, если значение уже замаскировано
+     */
+    public boolean isMasked(CharSequence value) {
+        int length = value.length() - value.length() / 5;
+        if (length < 16 || length > 19 || value.length() != length + (length - 1) / 4) {
+            return false;
+        }
+
+        int digit = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (i % 5 == 4) {
+                if (c != ' ') {
+                    return false;
+                }
+                continue;
+            }
+            boolean valid = digit < length - 4 ? c == '*' : c >= '0' && c <= '9';
+            if (!valid) {
+                return false;
+            }
+            digit++;
+        }
+        return true;
+    }
 
-        return maskedDigits.replaceAll("(.{4})(?=.)", "$1 ");
+    /**
+     * Записывает в буфер {@code length - 4} звёздочек и последние четыре цифры, разделяя группы по 4 пробелом.
+     */
+    private int fill(char[] out, int length, char[] last4, int last4Start) {
+        int position = 0;
+        for (int i = 0; i < length; i++) {
+            if (i > 0 && (i & 3) == 0) {
+                out[position++] = ' ';
+            }
+            out[position++] = i < length - 4 ? '*' : last4[(last4Start + i - (length - 4)) & 3];
+        }
+        return position;
     }
 }
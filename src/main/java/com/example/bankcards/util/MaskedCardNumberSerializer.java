@@ -0,0 +1,52 @@
+package com.example.bankcards.util;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+
+/**
+ * Сериализует номер карты только в замаскированном виде.
+ * <p>
+ * Значение в точности в формате {@link MaskCardNumber#mask(String)} (например, из
+ * {@link com.example.bankcards.mapper.CardMapper}) записывается как есть. Полный номер маскируется в буфер символов
+ * и передаётся генератору напрямую, без промежуточной строки, поэтому незамаскированный номер не попадёт
+ * в ответ даже по ошибке маппинга. Любое другое значение заменяется на {@value #REDACTED}: сериализация не падает,
+ * и содержимое не раскрывается.
+ * </p>
+ */
+public class MaskedCardNumberSerializer extends StdSerializer<String> {
+    static final String REDACTED = "****";
+
+    public MaskedCardNumberSerializer() {
+        super(String.class);
+    }
+
+    @Override
+    public void serialize(String value, JsonGenerator gen, SerializerProvider provider) throws IOException {
+        if (MaskCardNumber.isMasked(value)) {
+            gen.writeString(value);
+            return;
+        }
+
+        if (!hasCardNumberLength(value)) {
+            gen.writeString(REDACTED);
+            return;
+        }
+
+        var masked = new char[MaskCardNumber.MAX_MASKED_LENGTH];
+        gen.writeString(masked, 0, MaskCardNumber.maskInto(value, masked));
+    }
+
+    private static boolean hasCardNumberLength(String value) {
+        int digits = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits++;
+            }
+        }
+        return digits >= 16 && digits <= 19;
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.exception.PaginationException;
+import lombok.experimental.UtilityClass;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.Objects.isNull;
+
+/**
+ * Утилитный класс для курсорной (keyset) пагинации по полю {@code id}.
+ * <p>
+ * Курсор — непрозрачная для клиента строка (Base64url), содержащая ID последней записи страницы.
+ * Следующая страница выбирается условием {@code id > :afterID ORDER BY id LIMIT :size},
+ * поэтому её стоимость не зависит от глубины, а запрос {@code COUNT(*)} не выполняется.
+ * Курсор следующей страницы передаётся в заголовке {@value #NEXT_CURSOR_HEADER};
+ * на последней странице заголовок отсутствует.
+ * </p>
+ */
+@UtilityClass
+public class PageCursor {
+    /**
+     * Заголовок ответа с курсором следующей страницы.
+     */
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    /**
+     * Максимальный размер страницы.
+     */
+    public static final int MAX_PAGE_SIZE = 1000;
+
+    private static final String PREFIX = "id:";
+
+    /**
+     * Кодирует ID последней записи страницы в курсор.
+     *
+     * @param lastID ID последней записи
+     * @return непрозрачный курсор
+     */
+    public String encode(Long lastID) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((PREFIX + lastID).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует курсор в ID, после которого начинается страница.
+     *
+     * @param cursor курсор из запроса (может быть {@code null} или пустым — первая страница)
+     * @return ID последней записи предыдущей страницы или {@code null} для первой страницы
+     * @throws PaginationException если курсор повреждён
+     */
+    public Long decode(String cursor) {
+        if (isNull(cursor) || cursor.isBlank()) {
+            return null;
+        }
+
+        try {
+            var value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (!value.startsWith(PREFIX)) {
+                throw new IllegalArgumentException(value);
+            }
+            return Long.parseLong(value.substring(PREFIX.length()));
+        } catch (IllegalArgumentException ex) {
+            throw new PaginationException("Некорректный курсор страницы", "INVALID_CURSOR", HttpStatus.BAD_REQUEST.value());
+        }
+    }
+
+    /**
+     * Проверяет размер страницы.
+     *
+     * @param size количество элементов на странице
+     * @throws PaginationException если размер вне диапазона {@code 1..}{@value #MAX_PAGE_SIZE}
+     */
+    public void isSizeValid(int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            throw new PaginationException(
+                    "Размер страницы должен быть от 1 до %d".formatted(MAX_PAGE_SIZE),
+                    "INVALID_PAGE_SIZE", HttpStatus.BAD_REQUEST.value()
+            );
+        }
+    }
+
+    /**
+     * Формирует страницу из записей, выбранных с запасом в одну запись.
+     * Если записей больше {@code size}, лишняя отбрасывается, а ID последней оставшейся становится курсором.
+     *
+     * @param entities записи, выбранные с {@code LIMIT size + 1} в порядке возрастания ID
+     * @param size     количество элементов на странице
+     * @param idGetter функция получения ID записи
+     * @param mapper   преобразование записей страницы в DTO
+     * @return элементы страницы и курсор следующей страницы ({@code null} для последней)
+     */
+    public <T, D> CursorPageDto<D> toPage(List<T> entities,
+                                          int size,
+                                          Function<T, Long> idGetter,
+                                          Function<List<T>, List<D>> mapper) {
+        if (entities.isEmpty()) {
+            return new CursorPageDto<>(Collections.emptyList(), null);
+        }
+
+        if (entities.size() <= size) {
+            return new CursorPageDto<>(mapper.apply(entities), null);
+        }
+
+        var pageEntities = entities.subList(0, size);
+        return new CursorPageDto<>(mapper.apply(pageEntities), encode(idGetter.apply(pageEntities.getLast())));
+    }
+
+    /**
+     * Формирует ответ со списком элементов страницы и заголовком {@value #NEXT_CURSOR_HEADER}.
+     *
+     * @param page страница
+     * @return ответ {@code 200 OK}
+     */
+    public <T> ResponseEntity<List<T>> toResponseEntity(CursorPageDto<T> page) {
+        var response = ResponseEntity.ok();
+        if (!isNull(page.nextCursor())) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
+    }
+}
@@ -1,11 +1,17 @@
 package com.example.bankcards.util;
 
+import com.example.bankcards.dto.CardBalanceStateDto;
 import com.example.bankcards.dto.SpecificationData;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.UserEntity;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CursorPageDto;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.dto.CardLedgerTailDto;
+import com.example.bankcards.entity.CardBalanceSlotEntity;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardLedgerRepository;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.UserRepository;
 import jakarta.persistence.EntityNotFoundException;
@@ -15,15 +21,18 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
-import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.stereotype.Component;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
-
-import static java.util.Objects.nonNull;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * Утилитный Spring-компонент, содержащий вспомогательные методы для работы с репозиториями
@@ -32,7 +41,7 @@ import static java.util.Objects.nonNull;
  * Класс предназначен для:
  * <ul>
  *     <li>поиска сущностей {@link CardEntity} и {@link UserEntity} с обработкой ошибок;</li>
- *     <li>формирования динамических {@link Specification} для фильтрации данных;</li>
+ *     <li>выборки страниц по фильтрам {@link SpecificationData} через {@link FilterQueryCompiler};</li>
  *     <li>построения {@link Pageable} и пагинации;</li>
  *     <li>преобразования страниц сущностей в DTO-объекты.</li>
  * </ul>
@@ -53,6 +62,21 @@ public class RepositoryHelper {
      */
     private final UserRepository userRepository;
 
+    /**
+     * Репозиторий журнала движений по картам.
+     */
+    private final CardLedgerRepository cardLedgerRepository;
+
+    /**
+     * Репозиторий слотов баланса «горячих» карт.
+     */
+    private final CardBalanceSlotRepository cardBalanceSlotRepository;
+
+    /**
+     * Компилятор фильтров списков в кэшируемые JPQL-запросы.
+     */
+    private final FilterQueryCompiler filterQueryCompiler;
+
     /**
      * Находит пользователя по его идентификатору.
      *
@@ -69,6 +93,22 @@ public class RepositoryHelper {
         );
     }
 
+    /**
+     * Находит пользователя вместе с его картами одним запросом (план {@link UserEntity#WITH_CARDS}).
+     *
+     * @param userID идентификатор пользователя
+     * @return сущность {@link UserEntity} с инициализированной коллекцией карт
+     * @throws EntityNotFoundException если пользователь не найден
+     */
+    public UserEntity findUserEntityWithCardsByID(Long userID) throws EntityNotFoundException {
+        return userRepository.findWithCardsById(userID).orElseThrow(
+                () -> {
+                    log.error("[ERROR] Пользователь с ID: [{}] не найден!", userID);
+                    return new EntityNotFoundException("User not found with id %s: ".formatted(userID));
+                }
+        );
+    }
+
     /**
      * Находит карту по её идентификатору.
      *
@@ -101,6 +141,164 @@ public class RepositoryHelper {
         );
     }
 
+    /**
+     * Находит карту по ID с разделяемой блокировкой ({@code FOR SHARE}).
+     * <p>
+     * Разделяемые блокировки не конфликтуют друг с другом, поэтому одновременные зачисления
+     * в журнал на одну карту не ждут друг друга, но не пересекаются со сворачиванием журнала,
+     * которое берёт {@code FOR UPDATE}.
+     *
+     * @param cardID идентификатор карты
+     * @return сущность {@link CardEntity}
+     * @throws EntityNotFoundException если карта не найдена
+     */
+    public CardEntity findCardEntityByIDAndShareLock(Long cardID) throws EntityNotFoundException {
+        return cardRepository.findCardForShare(cardID).orElseThrow(
+                () -> {
+                    log.error("[ERROR] Карта с ID: [{}] не найден!", cardID);
+                    return new EntityNotFoundException("Card not found with ID: " + cardID);
+                }
+        );
+    }
+
+    /**
+     * Блокирует несколько карт одним запросом {@code SELECT ... FOR UPDATE}.
+     * <p>
+     * Строки блокируются строго в порядке возрастания ID, поэтому встречные переводы
+     * (A → B и B → A) захватывают блокировки в одинаковом порядке и не приводят к deadlock.
+     * Повторяющиеся ID допустимы — каждая карта блокируется один раз.
+     * Несвёрнутые записи журнала и слоты баланса заблокированных карт сразу переносятся в баланс.
+     *
+     * @param cardIDs идентификаторы карт
+     * @return карты, проиндексированные по ID
+     * @throws EntityNotFoundException если хотя бы одна из карт не найдена
+     */
+    public Map<Long, CardEntity> findCardEntitiesByIDsAndLockModeType(Long... cardIDs) throws EntityNotFoundException {
+        return findCardEntitiesByIDsAndLockModeType(List.of(cardIDs));
+    }
+
+    /**
+     * Блокирует все переданные карты одним запросом {@code SELECT ... FOR UPDATE} в порядке возрастания ID.
+     *
+     * @param cardIDs идентификаторы карт (повторы допустимы)
+     * @return карты, проиндексированные по ID
+     * @throws EntityNotFoundException если хотя бы одна из карт не найдена
+     * @see #findCardEntitiesByIDsAndLockModeType(Long...)
+     */
+    public Map<Long, CardEntity> findCardEntitiesByIDsAndLockModeType(Collection<Long> cardIDs)
+            throws EntityNotFoundException {
+        var lockedCards = lockExistingCardEntities(cardIDs);
+
+        for (Long cardID : new TreeSet<>(cardIDs)) {
+            if (!lockedCards.containsKey(cardID)) {
+                log.error("[ERROR] Карта с ID: [{}] не найден!", cardID);
+                throw new EntityNotFoundException("Card not found with ID: " + cardID);
+            }
+        }
+
+        return lockedCards;
+    }
+
+    /**
+     * Блокирует существующие карты из переданных одним запросом {@code SELECT ... FOR UPDATE}
+     * в порядке возрастания ID. В отличие от {@link #findCardEntitiesByIDsAndLockModeType(Collection)}
+     * отсутствующие карты не считаются ошибкой и просто не попадают в результат.
+     *
+     * @param cardIDs идентификаторы карт (повторы допустимы)
+     * @return найденные карты, проиндексированные по ID
+     */
+    public Map<Long, CardEntity> lockExistingCardEntities(Collection<Long> cardIDs) {
+        Map<Long, CardEntity> lockedCards = cardRepository.findCardsForUpdateOrderedByID(new TreeSet<>(cardIDs))
+                .stream()
+                .collect(Collectors.toMap(CardEntity::getId, Function.identity()));
+
+        foldLedger(lockedCards);
+        foldBalanceSlots(lockedCards);
+
+        return lockedCards;
+    }
+
+    /**
+     * Возвращает доступный баланс карты: снимок {@code cards.balance}, несвёрнутый хвост журнала
+     * и сумма слотов баланса. Все значения читаются одним запросом, поэтому сворачивание
+     * не даёт промежуточного результата.
+     *
+     * @param cardID идентификатор карты
+     * @param status статус карты
+     * @return доступный баланс
+     * @throws EntityNotFoundException если карта с указанным ID и статусом не найдена
+     */
+    public BigDecimal findCardAvailableBalance(Long cardID, CardStatus status) {
+        return cardRepository.findAvailableBalance(cardID, status).orElseThrow(
+                () -> {
+                    log.error("[ERROR] Карта с ID: [{}] и статусом [{}] не найдена!", cardID, status.name());
+                    return new EntityNotFoundException("Card with ID %s and status %s not found!: "
+                            .formatted(cardID, status.name())
+                    );
+                }
+        );
+    }
+
+    /**
+     * Загружает владельца, статус, доступный баланс и версию карты одним запросом.
+     *
+     * @param cardID идентификатор карты
+     * @return состояние карты или пустой {@link Optional}, если карта не найдена
+     */
+    public Optional<CardBalanceStateDto> findCardBalanceState(Long cardID) {
+        return cardRepository.findCardBalanceState(cardID);
+    }
+
+    /**
+     * Переносит несвёрнутые записи журнала в баланс карт, заблокированных {@code FOR UPDATE}.
+     * <p>
+     * Зачисления в журнал выполняются под {@code FOR SHARE} на карте получателя, поэтому после
+     * получения {@code FOR UPDATE} все такие транзакции уже завершены, а новые ждут окончания текущей.
+     * Сумма хвоста читается отдельным запросом уже после блокировки и видит все зафиксированные записи.
+     * Новый баланс и следующая эпоха сворачивания ({@code cards.ledger_fold_epoch}) сохраняются через dirty checking
+     * вместе с остальными изменениями транзакции; строки журнала не изменяются. Отметки свёрнутых карт
+     * в {@code card_ledger_pending} снимаются одним запросом.
+     */
+    private void foldLedger(Map<Long, CardEntity> lockedCards) {
+        List<CardLedgerTailDto> tails = cardLedgerRepository.sumUnfoldedByCardIDs(lockedCards.keySet());
+        if (tails.isEmpty()) {
+            return;
+        }
+
+        for (CardLedgerTailDto tail : tails) {
+            var card = lockedCards.get(tail.cardID());
+            card.setBalance(card.getBalance().add(tail.amount()));
+            card.setLedgerFoldEpoch(card.getLedgerFoldEpoch() + 1);
+        }
+        cardLedgerRepository.clearFoldPending(tails.stream().map(CardLedgerTailDto::cardID).toList());
+
+        log.info("[INFO] Журнал свёрнут в баланс карт: {}", tails.size());
+    }
+
+    /**
+     * Переносит слоты баланса «горячих» карт в {@code cards.balance} и обнуляет их.
+     * <p>
+     * Слоты блокируются {@code FOR UPDATE} после карты, поэтому зачисления в слоты, начатые раньше,
+     * уже зафиксированы, а новые дождутся окончания транзакции. Для карт без слотов запрос не выполняется.
+     */
+    private void foldBalanceSlots(Map<Long, CardEntity> lockedCards) {
+        var stripedCardIDs = lockedCards.values().stream()
+                .filter(card -> card.getBalanceSlots() > 0)
+                .map(CardEntity::getId)
+                .toList();
+        if (stripedCardIDs.isEmpty()) {
+            return;
+        }
+
+        for (CardBalanceSlotEntity slot : cardBalanceSlotRepository.findSlotsForUpdate(stripedCardIDs)) {
+            if (slot.getBalance().signum() != 0) {
+                var card = lockedCards.get(slot.getCardID());
+                card.setBalance(card.getBalance().add(slot.getBalance()));
+                slot.setBalance(BigDecimal.ZERO);
+            }
+        }
+    }
+
     /**
      * Находит карту по ID и статусу.
      *
@@ -122,12 +320,16 @@ public class RepositoryHelper {
 
     /**
      * Проверяет существование пользователя по его ID.
+     * <p>
+     * Пользователь ищется через {@code findById}, а не {@code existsById}: поиск по ID обслуживается
+     * кэшем второго уровня, а запрос {@code existsById} всегда идёт в базу данных.
+     * </p>
      *
      * @param userID идентификатор пользователя
      * @throws EntityNotFoundException если пользователь не существует
      */
     public void isUserExists(Long userID) throws EntityNotFoundException {
-        if (!userRepository.existsById(userID)) {
+        if (userRepository.findById(userID).isEmpty()) {
             throw new EntityNotFoundException("Пользователь с ID: [%s] не найден!".formatted(userID));
         }
     }
@@ -136,16 +338,16 @@ public class RepositoryHelper {
      * Преобразует страницу сущностей {@link CardEntity} в список {@link CardDto}.
      *
      * @param pageable         параметры пагинации
-     * @param spec             спецификация для фильтрации данных
+     * @param data             параметры фильтрации
      * @param repositoryHelper экземпляр {@link RepositoryHelper}
      * @param cardMapper       маппер для преобразования {@link CardEntity} → {@link CardDto}
      * @return список DTO-объектов карт
      */
     public static List<CardDto> getCardDtos(Pageable pageable,
-                                            Specification<CardEntity> spec,
+                                            SpecificationData data,
                                             RepositoryHelper repositoryHelper,
                                             CardMapper cardMapper) {
-        Page<CardEntity> allCards = repositoryHelper.getPageCardEntity(spec, pageable);
+        Page<CardEntity> allCards = repositoryHelper.getPageCardEntity(data, pageable);
         if (allCards.hasContent()) {
             List<CardEntity> list = allCards.getContent();
             return list.stream().map(cardMapper::toDto).toList();
@@ -155,78 +357,78 @@ public class RepositoryHelper {
     }
 
     /**
-     * Возвращает страницу сущностей {@link CardEntity} согласно спецификации и пагинации.
+     * Возвращает страницу сущностей {@link CardEntity} согласно фильтрам и пагинации.
      *
-     * @param spec     спецификация фильтрации
+     * @param data     параметры фильтрации
      * @param pageable параметры пагинации
      * @return объект {@link Page} с картами
      */
-    public Page<CardEntity> getPageCardEntity(Specification<CardEntity> spec, Pageable pageable) {
-        return cardRepository.findAll(spec, pageable);
+    public Page<CardEntity> getPageCardEntity(SpecificationData data, Pageable pageable) {
+        return findPage(CardEntity.class, data, pageable);
     }
 
     /**
-     * Создаёт {@link Pageable}, сортируя результаты по возрастанию поля {@code id}.
+     * Возвращает страницу сущностей согласно фильтрам и пагинации в порядке возрастания {@code id}.
+     * <p>
+     * Запрос берётся из кэша шаблонов {@link FilterQueryCompiler}, поэтому для одинакового набора
+     * фильтров текст JPQL не строится заново.
      *
-     * @param page номер страницы (начиная с 0)
-     * @param size количество элементов на странице
-     * @return объект {@link Pageable} с сортировкой по возрастанию ID
+     * @param type     класс сущности
+     * @param data     параметры фильтрации
+     * @param pageable параметры пагинации (сортировка всегда по {@code id})
+     * @return объект {@link Page} с сущностями
      */
-    public static Pageable getPageableSortingByAscID(int page, int size) {
-        return PageRequest.of(page, size, Sort.by("id").ascending());
+    public <T> Page<T> findPage(Class<T> type, SpecificationData data, Pageable pageable) {
+        return filterQueryCompiler.findPage(type, data, pageable);
     }
 
     /**
-     * Формирует {@link Specification} для {@link CardEntity} на основе переданных параметров фильтрации.
+     * Возвращает страницу для курсорной пагинации: до {@code size} записей, удовлетворяющих фильтрам,
+     * в порядке возрастания {@code id}.
      * <p>
-     * Если какое-то из значений в {@link SpecificationData} равно {@code null}, оно просто пропускается.
+     * Фильтры должны содержать курсор {@link SpecificationData#afterID()} (условие {@code id > afterID}).
+     * Запрашивается на одну запись больше, чтобы без {@code COUNT(*)} понять, есть ли следующая страница.
      *
-     * @param data параметры фильтрации (статус карты, владелец, дата истечения и т.д.)
-     * @return объект {@link Specification}, который можно передать в {@link JpaSpecificationExecutor}
+     * @param type     класс сущности
+     * @param data     параметры фильтрации вместе с курсором
+     * @param size     количество элементов на странице
+     * @param idGetter функция получения ID сущности
+     * @param mapper   преобразование сущностей страницы в DTO
+     * @return элементы страницы и курсор следующей страницы ({@code null} для последней)
      */
-    public <T> Specification<T> getSpecificationWithParams(SpecificationData data) {
-        Specification<T> spec = Specification.unrestricted();
-
-        if (nonNull(data.status())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("cardStatus"), data.status()));
-        }
-
-        if (nonNull(data.enabled())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("enabled"), data.enabled()));
-        }
-
-        if (nonNull(data.createdDate())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("createdDate"), data.createdDate()));
-        }
-
-        if (nonNull(data.ownerID())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("owner").get("id"), data.ownerID()));
-        }
-
-        if (nonNull(data.expirationDate())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("expirationDate"), data.expirationDate()));
-        }
-
-        if (nonNull(data.cardID())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("cardID"), data.cardID()));
-        }
+    public <T, D> CursorPageDto<D> getCursorPage(Class<T> type,
+                                                 SpecificationData data,
+                                                 int size,
+                                                 Function<T, Long> idGetter,
+                                                 Function<List<T>, List<D>> mapper) {
+        List<T> entities = filterQueryCompiler.findFirst(type, data, size + 1);
 
-        if (nonNull(data.statusRequest())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("status"), data.statusRequest()));
-        }
+        return PageCursor.toPage(entities, size, idGetter, mapper);
+    }
 
-        if (nonNull(data.requestedAt())) {
-            spec = spec.and((root, query, builder) ->
-                    builder.equal(root.get("requestedAt"), data.requestedAt()));
-        }
+    /**
+     * Возвращает страницу карт для курсорной пагинации.
+     *
+     * @param data   параметры фильтрации вместе с курсором
+     * @param size   количество элементов на странице
+     * @param mapper преобразование карт страницы в DTO
+     * @return элементы страницы и курсор следующей страницы
+     * @see #getCursorPage(Class, SpecificationData, int, Function, Function)
+     */
+    public <D> CursorPageDto<D> getCardCursorPage(SpecificationData data,
+                                                  int size,
+                                                  Function<List<CardEntity>, List<D>> mapper) {
+        return getCursorPage(CardEntity.class, data, size, CardEntity::getId, mapper);
+    }
 
-        return spec;
+    /**
+     * Создаёт {@link Pageable}, сортируя результаты по возрастанию поля {@code id}.
+     *
+     * @param page номер страницы (начиная с 0)
+     * @param size количество элементов на странице
+     * @return объект {@link Pageable} с сортировкой по возрастанию ID
+     */
+    public static Pageable getPageableSortingByAscID(int page, int size) {
+        return PageRequest.of(page, size, Sort.by("id").ascending());
     }
 }
@@ -0,0 +1,153 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardNumberAllocator;
+import com.example.bankcards.service.TransferService;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.Role.USER;
+
+/**
+ * Сравнение пакета переводов ({@link TransferService#transferMoneyBatch}) с тем же количеством
+ * одиночных вызовов {@link TransferService#transferMoney}.
+ * <p>
+ * Запускается только явно на базе данных из application.yml:
+ * {@code mvn test -Dtest=BatchTransferBenchmarkTest -Dbenchmark=true}.
+ * Переводы идут по кругу между картами одного пользователя, как у задач начисления зарплаты.
+ * Для каждого размера в лог выводятся общее время, время на перевод, количество SQL-запросов и транзакций
+ * обоих способов. Сравнение выполняется на уровне сервиса: разбор JWT и HTTP-обработка одиночных вызовов
+ * в замер не входят, поэтому реальный выигрыш пакета больше.
+ * </p>
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "transfer.batch.max-size=1000"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BatchTransferBenchmarkTest {
+    private static final int CARDS = 50;
+    private static final int WARMUP = 100;
+    private static final int[] SIZES = {10, 100, 1000};
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UserEntity user;
+    private List<CardEntity> cards;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(UserEntity.builder()
+                .username("benchmark-" + UUID.randomUUID())
+                .password("benchmark")
+                .role(USER)
+                .enabled(true)
+                .build());
+
+        var newCards = new ArrayList<CardEntity>(CARDS);
+        for (int i = 0; i < CARDS; i++) {
+            newCards.add(CardEntity.builder()
+                    .number(cardNumberAllocator.allocate())
+                    .owner(user)
+                    .cardStatus(ACTIVE)
+                    .expirationDate(LocalDate.now().plusYears(1))
+                    .balance(BigDecimal.valueOf(1_000_000))
+                    .build());
+        }
+        cards = new ArrayList<>(CARDS);
+        cardRepository.saveAll(newCards).forEach(cards::add);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void compareBatchWithSingleTransfers() {
+        runSingle(transfers(WARMUP));
+        transferService.transferMoneyBatch(user.getId(), transfers(WARMUP));
+
+        for (int size : SIZES) {
+            var transfers = transfers(size);
+
+            statistics.clear();
+            long singleStart = System.nanoTime();
+            runSingle(transfers);
+            long singleNanos = System.nanoTime() - singleStart;
+            long singleStatements = statistics.getPrepareStatementCount();
+            long singleTransactions = statistics.getSuccessfulTransactionCount();
+
+            statistics.clear();
+            long batchStart = System.nanoTime();
+            transferService.transferMoneyBatch(user.getId(), transfers);
+            long batchNanos = System.nanoTime() - batchStart;
+
+            log.info("""
+                            [INFO] transfers={}: single={} ms ({} ms/transfer, statements={}, transactions={}), \
+                            batch={} ms ({} ms/transfer, statements={}, transactions={}), speedup={}x""",
+                    size,
+                    "%.1f".formatted(singleNanos / 1_000_000.0),
+                    "%.3f".formatted(singleNanos / 1_000_000.0 / size),
+                    singleStatements,
+                    singleTransactions,
+                    "%.1f".formatted(batchNanos / 1_000_000.0),
+                    "%.3f".formatted(batchNanos / 1_000_000.0 / size),
+                    statistics.getPrepareStatementCount(),
+                    statistics.getSuccessfulTransactionCount(),
+                    "%.1f".formatted((double) singleNanos / batchNanos));
+        }
+    }
+
+    private void runSingle(List<TransferRequestDto> transfers) {
+        for (TransferRequestDto transfer : transfers) {
+            transferService.transferMoney(user.getId(), transfer);
+        }
+    }
+
+    private List<TransferRequestDto> transfers(int count) {
+        var transfers = new ArrayList<TransferRequestDto>(count);
+        for (int i = 0; i < count; i++) {
+            var from = cards.get(i % CARDS).getId();
+            var to = cards.get((i + 1) % CARDS).getId();
+            transfers.add(new TransferRequestDto(from, to, BigDecimal.ONE));
+        }
+        return transfers;
+    }
+}
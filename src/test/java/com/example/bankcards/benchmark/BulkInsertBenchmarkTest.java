@@ -0,0 +1,108 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardNumberAllocator;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.Role.USER;
+
+/**
+ * Пропускная способность массовой вставки 100 000 карт через Hibernate.
+ * <p>
+ * Идентификаторы выдаются последовательностью с оптимизатором pooled-lo, поэтому Hibernate может
+ * группировать INSERT в пакеты. Для сравнения тот же объём вставляется с размером пакета 1 —
+ * так вставка вела себя при {@code GenerationType.IDENTITY}: один INSERT на каждую строку.
+ * Запускается только явно: {@code mvn test -Dtest=BulkInsertBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class BulkInsertBenchmarkTest {
+    private static final int CARDS = 100_000;
+    private static final int FLUSH_SIZE = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    private final List<Long> userIDs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Long userID : userIDs) {
+            jdbcTemplate.update("DELETE FROM cards WHERE owner_id = ?", userID);
+        }
+        userRepository.deleteAllById(userIDs);
+    }
+
+    @Test
+    void batchedInsertShouldOutperformRowByRowInsert() {
+        double rowByRow = cardsPerSecond(1);
+        double batched = cardsPerSecond(FLUSH_SIZE);
+
+        log.info("[INFO] Вставка {} карт: по одной={} карт/с, пакетами по {}={} карт/с",
+                CARDS, "%.0f".formatted(rowByRow), FLUSH_SIZE, "%.0f".formatted(batched));
+    }
+
+    private double cardsPerSecond(int jdbcBatchSize) {
+        var owner = userRepository.save(UserEntity.builder()
+                .username("benchmark-" + UUID.randomUUID())
+                .password("benchmark")
+                .role(USER)
+                .enabled(true)
+                .build());
+        userIDs.add(owner.getId());
+        var numbers = cardNumberAllocator.allocate(CARDS);
+
+        long start = System.nanoTime();
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(jdbcBatchSize);
+            var ownerReference = entityManager.getReference(UserEntity.class, owner.getId());
+            for (int i = 0; i < CARDS; i++) {
+                entityManager.persist(CardEntity.builder()
+                        .number(numbers.get(i))
+                        .owner(ownerReference)
+                        .cardStatus(ACTIVE)
+                        .expirationDate(LocalDate.now().plusYears(1))
+                        .balance(BigDecimal.ZERO)
+                        .build());
+                if ((i + 1) % FLUSH_SIZE == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+        });
+        return CARDS / ((System.nanoTime() - start) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.security.crypto.CardEncryptionKeys;
+import com.example.bankcards.security.crypto.CbcCardCryptoEngine;
+import com.example.bankcards.security.crypto.GcmCardCryptoEngine;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+/**
+ * Пропускная способность шифрования и расшифровки номеров карт в одном потоке:
+ * прежняя реализация ({@code Cipher.getInstance} и {@code init} на каждое значение)
+ * против движков CBC и GCM с шифрами потока.
+ * <p>
+ * База данных не нужна. Запускается только явно:
+ * {@code mvn test -Dtest=CardCryptoBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardCryptoBenchmarkTest {
+    private static final String KEY = "12345678901234567890123456789012";
+    private static final String VECTOR = "1234567890123456";
+    private static final int WARMUP = 200_000;
+    private static final int OPERATIONS = 1_000_000;
+    private static final SecretKey LEGACY_KEY = new SecretKeySpec(Base64.getDecoder().decode(KEY), "AES");
+    private static final IvParameterSpec LEGACY_IV = new IvParameterSpec(VECTOR.getBytes(StandardCharsets.UTF_8));
+
+    private final CardEncryptionKeys keys = new CardEncryptionKeys(KEY, 1, List.of());
+
+    @Test
+    void encryptAndDecryptThroughput() throws Exception {
+        var cbc = new CbcCardCryptoEngine(keys, VECTOR);
+        var gcm = new GcmCardCryptoEngine(keys);
+        var numbers = new String[1024];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = "4000%012d".formatted(i * 7919L);
+        }
+
+        report("per-call CBC", numbers, CardCryptoBenchmarkTest::perCallEncrypt, CardCryptoBenchmarkTest::perCallDecrypt);
+        report("pooled CBC", numbers, cbc::encrypt, cbc::decrypt);
+        report("pooled GCM", numbers, gcm::encrypt, gcm::decrypt);
+    }
+
+    private static void report(String name,
+                               String[] numbers,
+                               UnaryOperator<String> encrypt,
+                               UnaryOperator<String> decrypt) {
+        var encrypted = new String[numbers.length];
+        for (int i = 0; i < numbers.length; i++) {
+            encrypted[i] = encrypt.apply(numbers[i]);
+        }
+
+        run(numbers, encrypt, WARMUP);
+        run(encrypted, decrypt, WARMUP);
+        double encryptOps = run(numbers, encrypt, OPERATIONS);
+        double decryptOps = run(encrypted, decrypt, OPERATIONS);
+
+        log.info("[INFO] {}: encrypt={} ops/s, decrypt={} ops/s",
+                name, "%.0f".formatted(encryptOps), "%.0f".formatted(decryptOps));
+    }
+
+    private static double run(String[] values, UnaryOperator<String> operation, int count) {
+        long blackhole = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            blackhole += operation.apply(values[i & (values.length - 1)]).length();
+        }
+        long elapsed = System.nanoTime() - start;
+        if (blackhole == 0) {
+            throw new IllegalStateException();
+        }
+        return count * 1_000_000_000.0 / elapsed;
+    }
+
+    private static String perCallEncrypt(String number) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.ENCRYPT_MODE, LEGACY_KEY, LEGACY_IV);
+            return Base64.getEncoder().encodeToString(cipher.doFinal(number.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new RuntimeException("Encryption error", e);
+        }
+    }
+
+    private static String perCallDecrypt(String value) {
+        try {
+            Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            cipher.init(Cipher.DECRYPT_MODE, LEGACY_KEY, LEGACY_IV);
+            return new String(cipher.doFinal(Base64.getDecoder().decode(value)), StandardCharsets.UTF_8);
+        } catch (Exception e) {
+            throw new RuntimeException("Decryption error", e);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardNumberAllocator;
+import com.example.bankcards.service.UserService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.Role.USER;
+
+/**
+ * Задержка чтения карты пользователя и её баланса в зависимости от количества карт пользователя.
+ * <p>
+ * Проверка принадлежности не загружает коллекцию карт, поэтому p50/p99 должны оставаться
+ * примерно одинаковыми для 10, 100 и 1000 карт.
+ * Запускается только явно: {@code mvn test -Dtest=CardOwnershipBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@Slf4j
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class CardOwnershipBenchmarkTest {
+    private static final int[] CARDS_PER_USER = {10, 100, 1000};
+    private static final int READS = 2000;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    private final List<Long> userIDs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(userIDs);
+    }
+
+    @Test
+    void readLatencyShouldNotDependOnCardCount() {
+        for (int cardCount : CARDS_PER_USER) {
+            var user = userRepository.save(UserEntity.builder()
+                    .username("benchmark-" + UUID.randomUUID())
+                    .password("benchmark")
+                    .role(USER)
+                    .enabled(true)
+                    .build());
+            userIDs.add(user.getId());
+            var cardIDs = createCards(user, cardCount);
+
+            var cardLatencies = new long[READS];
+            var balanceLatencies = new long[READS];
+            for (int i = 0; i < READS; i++) {
+                var cardID = cardIDs.get(i % cardIDs.size());
+
+                long start = System.nanoTime();
+                userService.findCardByID(user.getId(), cardID);
+                cardLatencies[i] = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                userService.findUserCardBalance(user.getId(), cardID);
+                balanceLatencies[i] = System.nanoTime() - start;
+            }
+
+            Arrays.sort(cardLatencies);
+            Arrays.sort(balanceLatencies);
+            log.info("[INFO] cards={}, findCardByID p50={} ms p99={} ms, balance p50={} ms p99={} ms",
+                    cardCount,
+                    "%.3f".formatted(percentile(cardLatencies, 0.50)),
+                    "%.3f".formatted(percentile(cardLatencies, 0.99)),
+                    "%.3f".formatted(percentile(balanceLatencies, 0.50)),
+                    "%.3f".formatted(percentile(balanceLatencies, 0.99)));
+        }
+    }
+
+    private List<Long> createCards(UserEntity user, int count) {
+        var cards = new ArrayList<CardEntity>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(CardEntity.builder()
+                    .number(cardNumberAllocator.allocate())
+                    .owner(user)
+                    .cardStatus(ACTIVE)
+                    .expirationDate(LocalDate.now().plusYears(1))
+                    .balance(BigDecimal.TEN)
+                    .build());
+        }
+        var cardIDs = new ArrayList<Long>(count);
+        cardRepository.saveAll(cards).forEach(card -> cardIDs.add(card.getId()));
+        return cardIDs;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int position = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(position, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.FilterQueryCompiler;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static java.util.Objects.nonNull;
+
+/**
+ * Процессорное время на один запрос списка карт: criteria-спецификация, которая строилась на каждый запрос,
+ * против скомпилированного шаблона {@link FilterQueryCompiler}.
+ * <p>
+ * Время считается по {@link ThreadMXBean#getCurrentThreadCpuTime()}, поэтому ожидание базы данных
+ * в результат не входит. Запускается только явно:
+ * {@code mvn test -Dtest=ListQueryBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@Slf4j
+@Transactional(readOnly = true)
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ListQueryBenchmarkTest {
+    private static final int WARMUP = 2_000;
+    private static final int REQUESTS = 10_000;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private FilterQueryCompiler filterQueryCompiler;
+
+    @Test
+    void compiledTemplateShouldUseLessCpuPerRequest() {
+        var threads = ManagementFactory.getThreadMXBean();
+        var pageable = PageRequest.of(0, 20, Sort.by("id").ascending());
+
+        Consumer<Integer> criteria = i -> cardRepository.findAll(specification(filters(i)), pageable);
+        Consumer<Integer> compiled = i -> filterQueryCompiler.findPage(CardEntity.class, filters(i), pageable);
+
+        double criteriaMicros = cpuMicrosPerRequest(threads, criteria);
+        double compiledMicros = cpuMicrosPerRequest(threads, compiled);
+
+        log.info("[INFO] CPU на запрос списка: criteria={} мкс, compiled={} мкс",
+                "%.1f".formatted(criteriaMicros), "%.1f".formatted(compiledMicros));
+    }
+
+    private static double cpuMicrosPerRequest(ThreadMXBean threads, Consumer<Integer> request) {
+        for (int i = 0; i < WARMUP; i++) {
+            request.accept(i);
+        }
+
+        long start = threads.getCurrentThreadCpuTime();
+        for (int i = 0; i < REQUESTS; i++) {
+            request.accept(i);
+        }
+        return (threads.getCurrentThreadCpuTime() - start) / 1_000.0 / REQUESTS;
+    }
+
+    /**
+     * Чередует комбинации фильтров, как это делают разные клиенты списка карт.
+     */
+    private static SpecificationData filters(int i) {
+        return SpecificationData.builder()
+                .status(i % 2 == 0 ? ACTIVE : null)
+                .ownerID(i % 3 == 0 ? (long) i % 100 + 1 : null)
+                .expirationDate(i % 5 == 0 ? LocalDate.now().plusYears(1) : null)
+                .build();
+    }
+
+    /**
+     * Прежняя реализация фильтров карт через criteria API — базовая линия для сравнения.
+     */
+    private static Specification<CardEntity> specification(SpecificationData data) {
+        Specification<CardEntity> spec = Specification.unrestricted();
+
+        if (nonNull(data.status())) {
+            spec = spec.and((root, query, builder) -> builder.equal(root.get("cardStatus"), data.status()));
+        }
+
+        if (nonNull(data.ownerID())) {
+            spec = spec.and((root, query, builder) -> builder.equal(root.get("owner").get("id"), data.ownerID()));
+        }
+
+        if (nonNull(data.expirationDate())) {
+            spec = spec.and((root, query, builder) ->
+                    builder.equal(root.get("expirationDate"), data.expirationDate()));
+        }
+
+        return spec;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.util.MaskCardNumber;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.UnaryOperator;
+
+/**
+ * Пропускная способность и объём выделяемой памяти при маскировании номеров карт:
+ * прежняя цепочка {@code replaceAll} против однопроходной реализации {@link MaskCardNumber}.
+ * <p>
+ * База данных не нужна. Запускается только явно:
+ * {@code mvn test -Dtest=MaskCardNumberBenchmarkTest -Dbenchmark=true}.
+ * </p>
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class MaskCardNumberBenchmarkTest {
+    private static final int WARMUP = 500_000;
+    private static final int OPERATIONS = 5_000_000;
+
+    @Test
+    void maskThroughputAndAllocation() {
+        var numbers = new String[1024];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = "%04d %04d %04d %04d".formatted(4000, i, i * 7 % 10_000, i * 13 % 10_000);
+        }
+
+        report("regex", numbers, MaskCardNumberBenchmarkTest::regexMask);
+        report("char[]", numbers, MaskCardNumber::mask);
+    }
+
+    private static void report(String name, String[] numbers, UnaryOperator<String> mask) {
+        run(numbers, mask, WARMUP);
+
+        var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadID = Thread.currentThread().threadId();
+        long allocatedBefore = threads.getThreadAllocatedBytes(threadID);
+        long start = System.nanoTime();
+        run(numbers, mask, OPERATIONS);
+        long elapsed = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(threadID) - allocatedBefore;
+
+        log.info("[INFO] {}: {} ops/s, {} байт на номер", name,
+                "%.0f".formatted(OPERATIONS * 1_000_000_000.0 / elapsed), allocated / OPERATIONS);
+    }
+
+    private static void run(String[] numbers, UnaryOperator<String> mask, int count) {
+        long blackhole = 0;
+        for (int i = 0; i < count; i++) {
+            blackhole += mask.apply(numbers[i & (numbers.length - 1)]).length();
+        }
+        if (blackhole == 0) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static String regexMask(String cardNumber) {
+        String digitsOnly = cardNumber.replaceAll("\\D", "");
+        String maskedDigits = digitsOnly.replaceAll("\\d(?=\\d{4})", "*");
+        return maskedDigits.replaceAll("(.{4})(?=.)", "$1 ");
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.entity.enums.TransferMode;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CardNumberAllocator;
+import com.example.bankcards.service.TransferService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.Role.USER;
+import static com.example.bankcards.entity.enums.TransferMode.OPTIMISTIC_LOCK;
+import static com.example.bankcards.entity.enums.TransferMode.PESSIMISTIC_LOCK;
+
+/**
+ * Сравнение режимов переводов {@code PESSIMISTIC_LOCK} и {@code OPTIMISTIC_LOCK}
+ * при низкой, средней и высокой конкуренции за карты.
+ * <p>
+ * Запускается только явно на базе данных из application.yml:
+ * {@code mvn test -Dtest=TransferModeBenchmarkTest -Dbenchmark=true}.
+ * Уровень конкуренции задаётся количеством карт, между которыми выполняются случайные переводы.
+ * Для каждого сочетания в лог выводятся пропускная способность, p50/p99 и количество неудачных переводов.
+ * </p>
+ */
+@Slf4j
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "transfer.retry.max-attempts=10",
+        "transfer.lock.enabled=false"
+})
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferModeBenchmarkTest {
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 200;
+    private static final int[] CARD_POOLS = {200, 20, 2};
+
+    @Autowired
+    private TransferService transferService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    private UserEntity user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(UserEntity.builder()
+                .username("benchmark-" + UUID.randomUUID())
+                .password("benchmark")
+                .role(USER)
+                .enabled(true)
+                .build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void compareTransferModes() throws Exception {
+        for (int pool : CARD_POOLS) {
+            var cards = createCards(pool);
+            for (TransferMode mode : List.of(PESSIMISTIC_LOCK, OPTIMISTIC_LOCK)) {
+                run(mode, cards);
+            }
+            cardRepository.deleteAllById(cards.stream().map(CardEntity::getId).toList());
+        }
+    }
+
+    private void run(TransferMode mode, List<CardEntity> cards) throws Exception {
+        ReflectionTestUtils.setField(transferService, "transferMode", mode);
+        var latencies = new long[THREADS * TRANSFERS_PER_THREAD];
+        var index = new AtomicInteger();
+        var failures = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                futures.add(executor.submit(() -> {
+                    var random = ThreadLocalRandom.current();
+                    for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                        int fromIndex = random.nextInt(cards.size());
+                        int toIndex = (fromIndex + 1 + random.nextInt(cards.size() - 1)) % cards.size();
+                        var from = cards.get(fromIndex).getId();
+                        var to = cards.get(toIndex).getId();
+                        long transferStart = System.nanoTime();
+                        try {
+                            transferService.transferMoney(user.getId(), new TransferRequestDto(from, to, BigDecimal.ONE));
+                        } catch (RuntimeException ex) {
+                            failures.incrementAndGet();
+                        }
+                        latencies[index.getAndIncrement()] = System.nanoTime() - transferStart;
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        Arrays.sort(latencies);
+        log.info("[INFO] mode={}, cards={}, throughput={} tps, p50={} ms, p99={} ms, failures={}",
+                mode,
+                cards.size(),
+                "%.1f".formatted(latencies.length / (elapsedNanos / 1_000_000_000.0)),
+                "%.2f".formatted(percentile(latencies, 0.50)),
+                "%.2f".formatted(percentile(latencies, 0.99)),
+                failures.get());
+    }
+
+    private List<CardEntity> createCards(int count) {
+        var cards = new ArrayList<CardEntity>(count);
+        for (int i = 0; i < count; i++) {
+            cards.add(CardEntity.builder()
+                    .number(cardNumberAllocator.allocate())
+                    .owner(user)
+                    .cardStatus(ACTIVE)
+                    .expirationDate(LocalDate.now().plusYears(1))
+                    .balance(BigDecimal.valueOf(1_000_000))
+                    .build());
+        }
+        var saved = new ArrayList<CardEntity>(count);
+        cardRepository.saveAll(cards).forEach(saved::add);
+        return saved;
+    }
+
+    private static double percentile(long[] sortedNanos, double percentile) {
+        int position = (int) Math.ceil(percentile * sortedNanos.length) - 1;
+        return sortedNanos[Math.max(position, 0)] / 1_000_000.0;
+    }
+}
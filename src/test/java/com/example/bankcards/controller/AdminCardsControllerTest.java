@@ -1,9 +1,21 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BulkCardIssueRequestDto;
 import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.dto.CacheRegionStatsDto;
+import com.example.bankcards.dto.CardLockStatsDto;
+import com.example.bankcards.dto.CardStatusRequestDto;
+import com.example.bankcards.dto.CursorPageDto;
+import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.entity.enums.ExportFormat;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.AuthUtil;
 import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.BulkCardIssueService;
+import com.example.bankcards.service.CacheStatsService;
+import com.example.bankcards.service.CardLockManager;
+import com.example.bankcards.service.ExportService;
+import com.example.bankcards.util.PageCursor;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
@@ -15,8 +27,11 @@ import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.List;
 
@@ -37,6 +52,18 @@ class AdminCardsControllerTest {
     @MockitoBean
     private AdminCardService adminCardService;
 
+    @MockitoBean
+    private CardLockManager cardLockManager;
+
+    @MockitoBean
+    private ExportService exportService;
+
+    @MockitoBean
+    private CacheStatsService cacheStatsService;
+
+    @MockitoBean
+    private BulkCardIssueService bulkCardIssueService;
+
     @MockitoBean
     private AuthUtil authUtil;
 
@@ -67,6 +94,65 @@ class AdminCardsControllerTest {
                 .andExpect(header().string("Location", "/api/v1/admin/cards/1"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /api/v1/admin/cards/bulk — должен выпустить карты и вернуть их потоком в NDJSON")
+    void bulkCreateCards_shouldStreamNdjson() throws Exception {
+        var request = BulkCardIssueRequestDto.builder()
+                .owners(List.of(new BulkCardIssueRequestDto.OwnerCards(1L, 2)))
+                .build();
+        var owners = List.of(new BulkCardIssueRequestDto.OwnerCards(1L, 2));
+
+        Mockito.when(bulkCardIssueService.validate(request)).thenReturn(owners);
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(1);
+            out.write("{\"cardID\":1}\n{\"cardID\":2}\n".getBytes(StandardCharsets.UTF_8));
+            return 2L;
+        }).when(bulkCardIssueService).issue(eq(owners), any());
+
+        MvcResult result = mockMvc.perform(post("/api/v1/admin/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(content().string("{\"cardID\":1}\n{\"cardID\":2}\n"));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /api/v1/admin/cards/bulk — должен вернуть 400 при нулевом количестве карт")
+    void bulkCreateCards_shouldReturnBadRequest_whenCountIsZero() throws Exception {
+        mockMvc.perform(post("/api/v1/admin/cards/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"owners\":[{\"ownerID\":1,\"count\":0}]}"))
+                .andExpect(status().isBadRequest());
+
+        Mockito.verifyNoInteractions(bulkCardIssueService);
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("POST /api/v1/admin/cards/lookup — должен вернуть статус 200 OK и карту с указанным номером")
+    void lookupCardByNumber_shouldReturnOk() throws Exception {
+        CardDto dto = new CardDto();
+        dto.setCardID(7L);
+        dto.setNumber("**** **** **** 1234");
+        dto.setCardStatus(ACTIVE);
+
+        Mockito.when(adminCardService.findCardByNumber("4000123412341234")).thenReturn(dto);
+
+        mockMvc.perform(post("/api/v1/admin/cards/lookup")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"number\":\"4000123412341234\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.cardID").value(7L))
+                .andExpect(jsonPath("$.number").value("**** **** **** 1234"));
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     @DisplayName("GET /api/v1/admin/cards/{cardID} — должен вернуть статус 200 OK и данные карты")
@@ -112,6 +198,41 @@ class AdminCardsControllerTest {
                 .andExpect(jsonPath("$[0].cardStatus").value("ACTIVE"));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/v1/admin/cards?after= — должен вернуть страницу карт и курсор следующей страницы")
+    void findAllCardsWithCursor_shouldReturnNextCursorHeader() throws Exception {
+        CardDto dto = new CardDto();
+        dto.setCardID(11L);
+        dto.setCardStatus(ACTIVE);
+
+        Mockito.when(adminCardService.getAllCardsAfter(eq("aWQ6MTA"), eq(1), any(), any(), any()))
+                .thenReturn(CursorPageDto.<CardDto>builder().items(List.of(dto)).nextCursor("aWQ6MTE").build());
+
+        mockMvc.perform(get("/api/v1/admin/cards")
+                        .param("after", "aWQ6MTA")
+                        .param("size", "1")
+                )
+                .andExpect(status().isOk())
+                .andExpect(header().string(PageCursor.NEXT_CURSOR_HEADER, "aWQ6MTE"))
+                .andExpect(jsonPath("$[0].cardID").value(11L));
+
+        Mockito.verify(adminCardService, Mockito.never()).getAllCards(anyInt(), anyInt(), any(), any(), any());
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/v1/admin/cards/status-requests — на последней странице курсор не возвращается")
+    void findAllCardsRequestsWithCursor_shouldOmitHeader_whenLastPage() throws Exception {
+        Mockito.when(adminCardService.getAllCardsRequestsAfter(isNull(), eq(10), any(), any(), any(), any()))
+                .thenReturn(CursorPageDto.<CardStatusRequestDto>builder().items(List.of()).build());
+
+        mockMvc.perform(get("/api/v1/admin/cards/status-requests"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(PageCursor.NEXT_CURSOR_HEADER))
+                .andExpect(jsonPath("$").isEmpty());
+    }
+
     @Test
     @WithMockUser(roles = "ADMIN")
     @DisplayName("PATCH /api/v1/admin/cards/{cardID}/{operation} — должен вернуть статус 200 OK")
@@ -172,4 +293,71 @@ class AdminCardsControllerTest {
         Mockito.verify(adminCardService).performOperation(eq(3L), eq(DELETE));
     }
 
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/v1/admin/cards/export — должен выгрузить карты потоком в CSV")
+    void exportCards_shouldStreamCsv() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(2);
+            out.write("cardID,ownerID\r\n1,2\r\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportCards(any(), eq(ExportFormat.CSV), any());
+
+        MvcResult result = mockMvc.perform(get("/api/v1/admin/cards/export")
+                        .param("format", "CSV")
+                        .param("status", "ACTIVE"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=cards.csv"))
+                .andExpect(content().string("cardID,ownerID\r\n1,2\r\n"));
+
+        Mockito.verify(exportService).exportCards(
+                eq(SpecificationData.builder().status(ACTIVE).build()), eq(ExportFormat.CSV), any()
+        );
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/v1/admin/cards/lock-stats — должен вернуть статистику блокировок по полосам")
+    void getCardLockStats_shouldReturnOk() throws Exception {
+        var stats = CardLockStatsDto.builder()
+                .stripe(10)
+                .queueLength(3)
+                .acquisitions(120)
+                .averageWaitMs(1.5)
+                .maxWaitMs(12.0)
+                .build();
+
+        Mockito.when(cardLockManager.getStats(5)).thenReturn(List.of(stats));
+
+        mockMvc.perform(get("/api/v1/admin/cards/lock-stats").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].stripe").value(10))
+                .andExpect(jsonPath("$[0].queueLength").value(3));
+    }
+
+    @Test
+    @WithMockUser(roles = "ADMIN")
+    @DisplayName("GET /api/v1/admin/cards/cache-stats — должен вернуть статистику регионов кэша второго уровня")
+    void getCacheStats_shouldReturnOk() throws Exception {
+        var stats = CacheRegionStatsDto.builder()
+                .region("cards")
+                .hits(90)
+                .misses(10)
+                .puts(10)
+                .size(10)
+                .hitRatio(0.9)
+                .build();
+
+        Mockito.when(cacheStatsService.getStats()).thenReturn(List.of(stats));
+
+        mockMvc.perform(get("/api/v1/admin/cards/cache-stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].region").value("cards"))
+                .andExpect(jsonPath("$[0].hitRatio").value(0.9));
+    }
 }
@@ -4,6 +4,7 @@ import com.example.bankcards.dto.UserDto;
 import com.example.bankcards.repository.UserRepository;
 import com.example.bankcards.security.AuthUtil;
 import com.example.bankcards.service.AdminUserService;
+import com.example.bankcards.service.ExportService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.DisplayName;
@@ -34,6 +35,9 @@ class AdminUserControllerTest {
     @MockitoBean
     private AdminUserService adminUserService;
 
+    @MockitoBean
+    private ExportService exportService;
+
     @MockitoBean
     private AuthUtil authUtil;
 
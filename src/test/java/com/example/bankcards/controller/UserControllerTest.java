@@ -0,0 +1,98 @@
+package com.example.bankcards.controller;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.AuthUtil;
+import com.example.bankcards.service.AsyncTransferService;
+import com.example.bankcards.service.TransferService;
+import com.example.bankcards.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.MediaType;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = UserController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class UserControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private UserService userService;
+
+    @MockitoBean
+    private TransferService transferService;
+
+    @MockitoBean
+    private AsyncTransferService asyncTransferService;
+
+    @MockitoBean
+    private AuthUtil authUtil;
+
+    @MockitoBean
+    private UserRepository userRepository;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/v1/users/{userID}/cards/transfers/batch — должен вернуть статус 200 OK и результаты переводов")
+    void transferMoneyBatch_shouldReturnOk() throws Exception {
+        var requests = List.of(new TransferRequestDto(10L, 15L, BigDecimal.TEN));
+        var info = TransferInfoDto.builder().amount(BigDecimal.TEN).build();
+
+        Mockito.when(transferService.transferMoneyBatch(1L, requests)).thenReturn(List.of(info));
+
+        mockMvc.perform(post("/api/v1/users/1/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(requests)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].amount").value(10));
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/v1/users/{userID}/cards/transfers/batch — должен вернуть 400 при некорректном переводе в пакете")
+    void transferMoneyBatch_shouldReturnBadRequest_whenItemInvalid() throws Exception {
+        mockMvc.perform(post("/api/v1/users/1/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                [{"fromCardId":10,"toCardId":15,"amount":10},
+                                 {"fromCardId":10,"toCardId":15,"amount":0}]
+                                """))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("VALIDATION_ERROR"))
+                .andExpect(jsonPath("$.fieldErrors[0].field").value("[1].amount"));
+
+        Mockito.verifyNoInteractions(transferService);
+    }
+
+    @Test
+    @WithMockUser(roles = "USER")
+    @DisplayName("POST /api/v1/users/{userID}/cards/transfers/batch — должен вернуть 400 при пустом пакете")
+    void transferMoneyBatch_shouldReturnBadRequest_whenEmpty() throws Exception {
+        mockMvc.perform(post("/api/v1/users/1/cards/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errorCode").value("VALIDATION_ERROR"));
+
+        Mockito.verifyNoInteractions(transferService);
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.bankcards.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CardBalanceDtoTest {
+
+    @Test
+    void maskedNumber_shouldUseLastFour_whenFilled() {
+        var card = new CardBalanceDto(1L, "3456", 16, null, BigDecimal.ONE);
+
+        assertEquals("**** **** **** 3456", card.maskedNumber());
+    }
+
+    @Test
+    void maskedNumber_shouldMaskFullNumber_whenLastFourNotBackfilled() {
+        var card = new CardBalanceDto(1L, null, null, "1234 5678 9012 3456", BigDecimal.ONE);
+
+        assertEquals("**** **** **** 3456", card.maskedNumber());
+    }
+
+    @Test
+    void maskedNumber_shouldReturnNull_whenNoNumber() {
+        assertNull(new CardBalanceDto(1L, null, null, null, BigDecimal.ONE).maskedNumber());
+    }
+}
@@ -0,0 +1,226 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.dto.CardTransferStateDto;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class ConditionalUpdateTransferHandlerTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardBalanceSlotRepository cardBalanceSlotRepository;
+
+    @Mock
+    private RepositoryHelper repositoryHelper;
+
+    @Mock
+    private CardMapper cardMapper;
+
+    @InjectMocks
+    private ConditionalUpdateTransferHandler transferHandler;
+
+    private static final Long USER_ID = 1L;
+    private static final Long CARD_FROM_ID = 10L;
+    private static final Long CARD_TO_ID = 15L;
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(200);
+
+    @Test
+    void transfer_shouldUpdateCardsInAscendingIdOrder_whenValid() {
+        TransferRequestDto request = new TransferRequestDto(CARD_TO_ID, CARD_FROM_ID, AMOUNT);
+        var balanceFrom = new CardBalanceDto(CARD_TO_ID, "4444", 16, null, BigDecimal.valueOf(300));
+        var balanceTo = new CardBalanceDto(CARD_FROM_ID, "8888", 16, null, BigDecimal.valueOf(700));
+        var expected = TransferInfoDto.builder().amount(AMOUNT).build();
+
+        Mockito.when(cardRepository.creditCard(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(1);
+        Mockito.when(cardRepository.debitCardIfSufficient(CARD_TO_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(1);
+        Mockito.when(cardRepository.findCardBalances(any())).thenReturn(List.of(balanceFrom, balanceTo));
+        Mockito.when(cardMapper.toTransferInfoDto(balanceFrom, balanceTo, AMOUNT)).thenReturn(expected);
+
+        TransferInfoDto result = transferHandler.transfer(USER_ID, request);
+
+        assertEquals(expected, result, "TransferInfoDto должен соответствовать результату");
+        InOrder inOrder = Mockito.inOrder(cardRepository);
+        inOrder.verify(cardRepository).creditCard(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT);
+        inOrder.verify(cardRepository).debitCardIfSufficient(CARD_TO_ID, USER_ID, ACTIVE, AMOUNT);
+        Mockito.verify(cardRepository, Mockito.never()).findCardTransferStates(any());
+    }
+
+    @Test
+    void transfer_shouldThrowInsufficientFunds_whenDebitNotApplied() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.debitCardIfSufficient(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(0);
+        Mockito.when(cardRepository.findCardTransferStates(any())).thenReturn(List.of(
+                new CardTransferStateDto(CARD_FROM_ID, USER_ID, ACTIVE, BigDecimal.valueOf(100)),
+                new CardTransferStateDto(CARD_TO_ID, USER_ID, ACTIVE, BigDecimal.valueOf(500))
+        ));
+
+        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class,
+                () -> transferHandler.transfer(USER_ID, request));
+
+        assertEquals("Недостаточно средств для перевода", exception.getMessage());
+        Mockito.verify(cardRepository, Mockito.never()).creditCard(any(), any(), any(), any());
+    }
+
+    @Test
+    void transfer_shouldThrowCardStatusException_whenCardNotActive() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.debitCardIfSufficient(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(1);
+        Mockito.when(cardRepository.creditCard(CARD_TO_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(0);
+        Mockito.when(cardRepository.findCardTransferStates(any())).thenReturn(List.of(
+                new CardTransferStateDto(CARD_FROM_ID, USER_ID, ACTIVE, BigDecimal.valueOf(800)),
+                new CardTransferStateDto(CARD_TO_ID, USER_ID, BLOCKED, BigDecimal.valueOf(500))
+        ));
+
+        CardStatusException exception = assertThrows(CardStatusException.class,
+                () -> transferHandler.transfer(USER_ID, request));
+
+        assertEquals("Нельзя перевести средства! Одна из карт не активна", exception.getMessage());
+    }
+
+    @Test
+    void transfer_shouldThrowCardStatusException_whenCardBelongsToAnotherUser() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.debitCardIfSufficient(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(0);
+        Mockito.when(cardRepository.findCardTransferStates(any())).thenReturn(List.of(
+                new CardTransferStateDto(CARD_FROM_ID, 2L, ACTIVE, BigDecimal.valueOf(1000)),
+                new CardTransferStateDto(CARD_TO_ID, USER_ID, ACTIVE, BigDecimal.valueOf(500))
+        ));
+
+        CardStatusException exception = assertThrows(CardStatusException.class,
+                () -> transferHandler.transfer(USER_ID, request));
+
+        assertEquals("Ошибка! Одна из карт не принадлежит пользователю!", exception.getMessage());
+    }
+
+    @Test
+    void transfer_shouldThrowEntityNotFound_whenCardMissing() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.debitCardIfSufficient(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(1);
+        Mockito.when(cardRepository.creditCard(CARD_TO_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(0);
+        Mockito.when(cardRepository.findCardTransferStates(any())).thenReturn(List.of(
+                new CardTransferStateDto(CARD_FROM_ID, USER_ID, ACTIVE, BigDecimal.valueOf(800))
+        ));
+
+        assertThrows(EntityNotFoundException.class, () -> transferHandler.transfer(USER_ID, request));
+    }
+
+    @Test
+    void transfer_shouldCreditBalanceSlot_whenCardStriped() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.debitCardIfSufficient(CARD_FROM_ID, USER_ID, ACTIVE, AMOUNT)).thenReturn(1);
+        Mockito.when(cardBalanceSlotRepository.creditSlot(CARD_TO_ID, USER_ID, ACTIVE, CARD_FROM_ID.intValue(), AMOUNT))
+                .thenReturn(1);
+        Mockito.when(cardRepository.findCardBalances(any())).thenReturn(List.of(
+                new CardBalanceDto(CARD_FROM_ID, "4444", 16, null, BigDecimal.valueOf(300)),
+                new CardBalanceDto(CARD_TO_ID, "8888", 16, null, BigDecimal.valueOf(700))
+        ));
+
+        transferHandler.transfer(USER_ID, request);
+
+        Mockito.verify(cardRepository, Mockito.never()).creditCard(any(), any(), any(), any());
+    }
+
+    /**
+     * Эмуляция конкуренции за «горячую» карту: каждое зачисление удерживает блокировку строки
+     * (строки {@code cards} или одного из слотов, выбранного как {@code MOD(hash, slots)}) в течение 2 мс.
+     * С 8 слотами зачисления от разных отправителей блокируют разные строки и выполняются быстрее,
+     * чем при зачислении в одну строку {@code cards}.
+     */
+    @Test
+    void transfer_shouldScaleCreditThroughput_whenCardStriped() throws Exception {
+        long singleRow = measureHotCardCredits(0);
+        long striped = measureHotCardCredits(8);
+
+        assertTrue(striped * 2 < singleRow,
+                "Зачисления в 8 слотов (%d мс) должны быть заметно быстрее, чем в одну строку (%d мс)"
+                        .formatted(striped, singleRow));
+    }
+
+    private long measureHotCardCredits(int slots) throws Exception {
+        int senders = 64;
+        var rowLocks = new ReentrantLock[Math.max(slots, 1)];
+        for (int i = 0; i < rowLocks.length; i++) {
+            rowLocks[i] = new ReentrantLock();
+        }
+
+        Mockito.reset(cardRepository, cardBalanceSlotRepository);
+        Mockito.when(cardRepository.debitCardIfSufficient(any(), eq(USER_ID), eq(ACTIVE), any())).thenReturn(1);
+        Mockito.when(cardRepository.findCardBalances(any())).thenAnswer(invocation -> {
+            List<Long> cardIDs = invocation.getArgument(0);
+            return cardIDs.stream().map(id -> new CardBalanceDto(id, "4444", 16, null, BigDecimal.ONE)).toList();
+        });
+        if (slots > 0) {
+            Mockito.when(cardBalanceSlotRepository.creditSlot(eq(CARD_TO_ID), eq(USER_ID), eq(ACTIVE), anyInt(), any()))
+                    .thenAnswer(invocation -> holdRowLock(rowLocks[(int) invocation.getArgument(3) % slots]));
+        } else {
+            Mockito.when(cardRepository.creditCard(eq(CARD_TO_ID), eq(USER_ID), eq(ACTIVE), any()))
+                    .thenAnswer(invocation -> holdRowLock(rowLocks[0]));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        try {
+            long start = System.nanoTime();
+            List<Future<TransferInfoDto>> futures = new ArrayList<>();
+            for (long sender = 0; sender < senders; sender++) {
+                var request = new TransferRequestDto(CARD_TO_ID + 1 + sender, CARD_TO_ID, AMOUNT);
+                futures.add(executor.submit(() -> transferHandler.transfer(USER_ID, request)));
+            }
+            for (Future<TransferInfoDto> future : futures) {
+                future.get();
+            }
+            return (System.nanoTime() - start) / 1_000_000;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static int holdRowLock(ReentrantLock rowLock) throws InterruptedException {
+        rowLock.lock();
+        try {
+            Thread.sleep(2);
+            return 1;
+        } finally {
+            rowLock.unlock();
+        }
+    }
+}
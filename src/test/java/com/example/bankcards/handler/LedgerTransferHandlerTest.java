@@ -0,0 +1,148 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.CardBalanceDto;
+import com.example.bankcards.dto.CardLedgerTailDto;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.CardLedgerEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerTransferHandlerTest {
+
+    @Mock
+    private RepositoryHelper repositoryHelper;
+
+    @Mock
+    private CardLedgerRepository cardLedgerRepository;
+
+    @Mock
+    private CardMapper cardMapper;
+
+    @InjectMocks
+    private LedgerTransferHandler transferHandler;
+
+    private static final Long USER_ID = 1L;
+    private static final Long CARD_FROM_ID = 10L;
+    private static final Long CARD_TO_ID = 15L;
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(200);
+
+    private CardEntity cardFrom;
+    private CardEntity cardTo;
+
+    @BeforeEach
+    void setUp() {
+        var user = new UserEntity();
+        user.setId(USER_ID);
+
+        cardFrom = CardEntity.builder()
+                .id(CARD_FROM_ID).number("1111222233334444").last4("4444").numberLength(16).owner(user)
+                .cardStatus(ACTIVE).balance(BigDecimal.valueOf(1000)).build();
+        cardTo = CardEntity.builder()
+                .id(CARD_TO_ID).number("5555666677778888").last4("8888").numberLength(16).owner(user)
+                .cardStatus(ACTIVE).balance(BigDecimal.valueOf(500)).ledgerFoldEpoch(7).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transfer_shouldDebitInPlaceAndAppendCreditToLedger_whenValid() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+        var expected = TransferInfoDto.builder().amount(AMOUNT).build();
+
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_FROM_ID))
+                .thenReturn(Map.of(CARD_FROM_ID, cardFrom));
+        Mockito.when(repositoryHelper.findCardEntityByIDAndShareLock(CARD_TO_ID)).thenReturn(cardTo);
+        Mockito.when(cardLedgerRepository.sumUnfoldedByCardIDs(List.of(CARD_TO_ID)))
+                .thenReturn(List.of(new CardLedgerTailDto(CARD_TO_ID, BigDecimal.valueOf(50))));
+        Mockito.when(cardMapper.toTransferInfoDto(
+                new CardBalanceDto(CARD_FROM_ID, "4444", 16, "1111222233334444", BigDecimal.valueOf(800)),
+                new CardBalanceDto(CARD_TO_ID, "8888", 16, "5555666677778888", BigDecimal.valueOf(750)),
+                AMOUNT
+        )).thenReturn(expected);
+
+        TransferInfoDto result = transferHandler.transfer(USER_ID, request);
+
+        assertEquals(expected, result);
+        assertEquals(BigDecimal.valueOf(800), cardFrom.getBalance(), "Списание выполняется на месте");
+        assertEquals(BigDecimal.valueOf(500), cardTo.getBalance(), "Баланс получателя не изменяется до сворачивания");
+
+        ArgumentCaptor<List<CardLedgerEntity>> captor = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(cardLedgerRepository).saveAll(captor.capture());
+        var entries = captor.getValue();
+        assertEquals(2, entries.size());
+        assertEquals(AMOUNT.negate(), entries.get(0).getAmount());
+        assertTrue(entries.get(0).isFolded(), "Списание уже учтено в балансе");
+        assertEquals(AMOUNT, entries.get(1).getAmount());
+        assertFalse(entries.get(1).isFolded(), "Зачисление остаётся в хвосте журнала");
+        assertEquals(7, entries.get(1).getFoldEpoch(), "Зачисление относится к текущей эпохе сворачивания карты");
+        Mockito.verify(cardLedgerRepository, Mockito.never()).markFoldPending(any());
+    }
+
+    @Test
+    void transfer_shouldMarkCardForFold_whenFirstCreditOfEpoch() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_FROM_ID))
+                .thenReturn(Map.of(CARD_FROM_ID, cardFrom));
+        Mockito.when(repositoryHelper.findCardEntityByIDAndShareLock(CARD_TO_ID)).thenReturn(cardTo);
+        Mockito.when(cardLedgerRepository.sumUnfoldedByCardIDs(List.of(CARD_TO_ID))).thenReturn(List.of());
+
+        transferHandler.transfer(USER_ID, request);
+
+        Mockito.verify(cardLedgerRepository).markFoldPending(CARD_TO_ID);
+        Mockito.verify(cardMapper).toTransferInfoDto(
+                new CardBalanceDto(CARD_FROM_ID, "4444", 16, "1111222233334444", BigDecimal.valueOf(800)),
+                new CardBalanceDto(CARD_TO_ID, "8888", 16, "5555666677778888", BigDecimal.valueOf(700)),
+                AMOUNT
+        );
+    }
+
+    @Test
+    void transfer_shouldLockCardsInAscendingIdOrder_whenReverseTransfer() {
+        TransferRequestDto request = new TransferRequestDto(CARD_TO_ID, CARD_FROM_ID, AMOUNT);
+
+        Mockito.when(repositoryHelper.findCardEntityByIDAndShareLock(CARD_FROM_ID)).thenReturn(cardFrom);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_TO_ID))
+                .thenReturn(Map.of(CARD_TO_ID, cardTo));
+
+        transferHandler.transfer(USER_ID, request);
+
+        InOrder inOrder = Mockito.inOrder(repositoryHelper);
+        inOrder.verify(repositoryHelper).findCardEntityByIDAndShareLock(CARD_FROM_ID);
+        inOrder.verify(repositoryHelper).findCardEntitiesByIDsAndLockModeType(CARD_TO_ID);
+    }
+
+    @Test
+    void transfer_shouldThrowInsufficientFunds_whenBalanceTooLow() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, BigDecimal.valueOf(5000));
+
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_FROM_ID))
+                .thenReturn(Map.of(CARD_FROM_ID, cardFrom));
+        Mockito.when(repositoryHelper.findCardEntityByIDAndShareLock(CARD_TO_ID)).thenReturn(cardTo);
+
+        assertThrows(InsufficientFundsException.class, () -> transferHandler.transfer(USER_ID, request));
+        Mockito.verify(cardLedgerRepository, Mockito.never()).saveAll(any());
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.handler;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class OptimisticLockTransferHandlerTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private RepositoryHelper repositoryHelper;
+
+    @Mock
+    private CardMapper cardMapper;
+
+    @InjectMocks
+    private OptimisticLockTransferHandler transferHandler;
+
+    private static final Long USER_ID = 1L;
+    private static final Long CARD_FROM_ID = 10L;
+    private static final Long CARD_TO_ID = 15L;
+    private static final BigDecimal AMOUNT = BigDecimal.valueOf(200);
+
+    private CardEntity cardFrom;
+    private CardEntity cardTo;
+
+    @BeforeEach
+    void setUp() {
+        var user = new UserEntity();
+        user.setId(USER_ID);
+
+        cardFrom = CardEntity.builder()
+                .id(CARD_FROM_ID).owner(user).cardStatus(ACTIVE).balance(BigDecimal.valueOf(1000)).version(3L).build();
+        cardTo = CardEntity.builder()
+                .id(CARD_TO_ID).owner(user).cardStatus(ACTIVE).balance(BigDecimal.valueOf(500)).version(7L).build();
+    }
+
+    @Test
+    void transfer_shouldUpdateBalancesWithoutLocking_whenValid() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+        var expected = TransferInfoDto.builder().amount(AMOUNT).build();
+
+        Mockito.when(cardRepository.findAllById(List.of(CARD_FROM_ID, CARD_TO_ID))).thenReturn(List.of(cardFrom, cardTo));
+        Mockito.when(cardMapper.toTransferInfoDto(cardFrom, cardTo, AMOUNT)).thenReturn(expected);
+
+        TransferInfoDto result = transferHandler.transfer(USER_ID, request);
+
+        assertEquals(expected, result);
+        assertEquals(BigDecimal.valueOf(800), cardFrom.getBalance());
+        assertEquals(BigDecimal.valueOf(700), cardTo.getBalance());
+        Mockito.verify(cardRepository, Mockito.never()).findCardsForUpdateOrderedByID(Mockito.any());
+    }
+
+    @Test
+    void transfer_shouldThrowInsufficientFunds_whenBalanceTooLow() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, BigDecimal.valueOf(5000));
+
+        Mockito.when(cardRepository.findAllById(List.of(CARD_FROM_ID, CARD_TO_ID))).thenReturn(List.of(cardFrom, cardTo));
+
+        assertThrows(InsufficientFundsException.class, () -> transferHandler.transfer(USER_ID, request));
+        assertEquals(BigDecimal.valueOf(1000), cardFrom.getBalance(), "Баланс не должен измениться");
+    }
+
+    @Test
+    void transfer_shouldThrowCardStatusException_whenCardBlocked() {
+        cardTo.setCardStatus(BLOCKED);
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.findAllById(List.of(CARD_FROM_ID, CARD_TO_ID))).thenReturn(List.of(cardFrom, cardTo));
+
+        assertThrows(CardStatusException.class, () -> transferHandler.transfer(USER_ID, request));
+    }
+
+    @Test
+    void transfer_shouldThrowEntityNotFound_whenCardMissing() {
+        TransferRequestDto request = new TransferRequestDto(CARD_FROM_ID, CARD_TO_ID, AMOUNT);
+
+        Mockito.when(cardRepository.findAllById(List.of(CARD_FROM_ID, CARD_TO_ID))).thenReturn(List.of(cardFrom));
+
+        assertThrows(EntityNotFoundException.class, () -> transferHandler.transfer(USER_ID, request));
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.CardNumberAllocator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.StreamSupport;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.Role.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Количество SQL-запросов для списка заявок администратора.
+ * <p>
+ * Страница заявок строится постоянным числом запросов независимо от её размера: страница заявок,
+ * {@code COUNT}, один {@code IN (...)} по владельцам и один {@code IN (...)} по картам.
+ * Заявки создаются с уникальным временем, чтобы фильтр {@code requestedAt} выбирал только их,
+ * и страница всегда заполнена, поэтому {@code COUNT} выполняется при любом размере.
+ * </p>
+ *
+ * <p>Нужна локальная база данных из application.yml. Запускается вместе с {@link QueryPlanTest}:
+ * {@code mvn test -Dtest=AdminCardRequestsStatementCountTest -DqueryPlan=true}.</p>
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@EnabledIfSystemProperty(named = "queryPlan", matches = "true")
+class AdminCardRequestsStatementCountTest {
+    private static final int OWNERS = 7;
+    private static final int REQUESTS = 100;
+    private static final LocalDateTime REQUESTED_AT = LocalDateTime.of(2099, 12, 31, 0, 0);
+
+    @Autowired
+    private AdminCardService adminCardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Long> userIDs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        var owners = new ArrayList<UserEntity>(OWNERS);
+        for (int i = 0; i < OWNERS; i++) {
+            var user = userRepository.save(UserEntity.builder()
+                    .username("request-count-" + UUID.randomUUID())
+                    .password("request-count")
+                    .role(USER)
+                    .enabled(true)
+                    .build());
+            owners.add(user);
+            userIDs.add(user.getId());
+        }
+
+        var cards = new ArrayList<CardEntity>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            cards.add(CardEntity.builder()
+                    .number(cardNumberAllocator.allocate())
+                    .owner(owners.get(i % OWNERS))
+                    .cardStatus(ACTIVE)
+                    .expirationDate(LocalDate.of(2099, 12, 31))
+                    .balance(BigDecimal.TEN)
+                    .build());
+        }
+        Iterable<CardEntity> saved = cardRepository.saveAll(cards);
+        var requests = StreamSupport.stream(saved.spliterator(), false)
+                .map(card -> new Object[]{card.getId(), card.getOwner().getId(), Timestamp.valueOf(REQUESTED_AT)})
+                .toList();
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO card_status_request (card_id, owner_id, status, requested_at) VALUES (?, ?, 'BLOCK', ?)",
+                requests);
+
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM card_status_request WHERE requested_at = ?", Timestamp.valueOf(REQUESTED_AT));
+        userRepository.deleteAllById(userIDs);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 10, 100})
+    void getAllCardsRequests_shouldUseConstantNumberOfStatements(int pageSize) {
+        var result = adminCardService.getAllCardsRequests(0, pageSize, null, null, null, REQUESTED_AT);
+
+        assertEquals(pageSize, result.size());
+        assertEquals(4, statistics.getPrepareStatementCount(),
+                () -> "Лишние запросы: " + List.of(statistics.getQueries()));
+    }
+}
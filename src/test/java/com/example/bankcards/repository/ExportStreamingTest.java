@@ -0,0 +1,139 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.service.ExportService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.bankcards.entity.enums.ExportFormat.NDJSON;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Потоковая выгрузка карт из настоящего результата запроса.
+ * <p>
+ * У пользователя создаётся {@value #ROWS} карт, и они выгружаются через {@link ExportService}.
+ * Во время записи в поток ответа проверяется, сколько сущностей удерживает контекст персистентности:
+ * их не должно быть больше {@code export.fetch-size}, то есть память не растёт с количеством строк.
+ * Все строки читаются одним запросом (курсором), без постраничных запросов и загрузки владельцев.
+ * </p>
+ *
+ * <p>Нужна локальная база данных из application.yml. Запускается вместе с {@link QueryPlanTest}:
+ * {@code mvn test -Dtest=ExportStreamingTest -DqueryPlan=true}.</p>
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "export.fetch-size=" + ExportStreamingTest.FETCH_SIZE
+})
+@EnabledIfSystemProperty(named = "queryPlan", matches = "true")
+class ExportStreamingTest {
+    static final int FETCH_SIZE = 500;
+    private static final int ROWS = 100_000;
+
+    @Autowired
+    private ExportService exportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private long ownerID;
+
+    @BeforeAll
+    void seed() {
+        ownerID = jdbcTemplate.queryForObject("""
+                INSERT INTO users (username, password, role, enabled, created_date)
+                VALUES (?, 'export-streaming', 'USER', true, now())
+                RETURNING id
+                """, Long.class, "export-streaming-" + UUID.randomUUID());
+        jdbcTemplate.update("""
+                INSERT INTO cards (owner_id, card_status, expiration_date, balance, last4, number_length)
+                SELECT ?, 'ACTIVE', DATE '2099-12-31', g, lpad((g % 10000)::TEXT, 4, '0'), 16
+                FROM generate_series(1, ?) g
+                """, ownerID, ROWS);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM cards WHERE owner_id = ?", ownerID);
+        jdbcTemplate.update("DELETE FROM users WHERE id = ?", ownerID);
+    }
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void exportCards_shouldStreamRowsWithBoundedPersistenceContext() throws Exception {
+        var out = new InspectingOutputStream();
+
+        exportService.exportCards(SpecificationData.builder().ownerID(ownerID).build(), NDJSON, out);
+
+        assertEquals(ROWS, out.lines);
+        assertTrue(out.maxManagedEntities <= FETCH_SIZE,
+                () -> "Контекст персистентности удерживал " + out.maxManagedEntities + " сущностей");
+        assertEquals(1, statistics.getPrepareStatementCount(),
+                () -> "Лишние запросы: " + List.of(statistics.getQueries()));
+    }
+
+    /**
+     * Считает строки ответа и на каждой записи смотрит размер контекста персистентности
+     * транзакции выгрузки: запись выполняется в том же потоке и внутри той же транзакции.
+     */
+    private class InspectingOutputStream extends OutputStream {
+        private long lines;
+        private int maxManagedEntities;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+            inspect();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+            inspect();
+        }
+
+        private void inspect() {
+            int managed = entityManager.unwrap(SessionImplementor.class)
+                    .getPersistenceContextInternal()
+                    .getNumberOfManagedEntities();
+            maxManagedEntities = Math.max(maxManagedEntities, managed);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CardDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.CardNumberAllocator;
+import com.example.bankcards.service.UserService;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
+import static com.example.bankcards.entity.enums.Role.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Количество SQL-запросов на вызов для списков и карточек.
+ * <p>
+ * Владелец карты загружается лениво, {@code CardMapper} берёт {@code ownerID} из внешнего ключа,
+ * поэтому страница из карт разных владельцев не порождает запросов к {@code users}.
+ * Карты создаются с уникальной датой истечения, чтобы фильтр выбирал только их.
+ * Кэш второго уровня очищается перед каждым тестом, поэтому считаются запросы «холодного» вызова.
+ * </p>
+ *
+ * <p>Нужна локальная база данных из application.yml. Запускается вместе с {@link QueryPlanTest}:
+ * {@code mvn test -Dtest=FetchPlanStatementCountTest -DqueryPlan=true}.</p>
+ */
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@EnabledIfSystemProperty(named = "queryPlan", matches = "true")
+class FetchPlanStatementCountTest {
+    private static final int OWNERS = 20;
+    private static final LocalDate EXPIRATION_DATE = LocalDate.of(2099, 12, 31);
+
+    @Autowired
+    private AdminCardService adminCardService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private RepositoryHelper repositoryHelper;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private final List<Long> userIDs = new ArrayList<>();
+    private final List<Long> cardIDs = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        for (int i = 0; i < OWNERS; i++) {
+            var user = userRepository.save(UserEntity.builder()
+                    .username("fetch-plan-" + UUID.randomUUID())
+                    .password("fetch-plan")
+                    .role(USER)
+                    .enabled(true)
+                    .build());
+            userIDs.add(user.getId());
+
+            var card = cardRepository.save(CardEntity.builder()
+                    .number(cardNumberAllocator.allocate())
+                    .owner(user)
+                    .cardStatus(BLOCKED)
+                    .expirationDate(EXPIRATION_DATE)
+                    .balance(BigDecimal.TEN)
+                    .build());
+            cardIDs.add(card.getId());
+        }
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAllById(userIDs);
+    }
+
+    @Test
+    void adminCardsPage_shouldNotLoadOwners() {
+        var cards = adminCardService.getAllCards(0, OWNERS * 2, null, null, EXPIRATION_DATE);
+
+        assertEquals(OWNERS, cards.size());
+        assertEquals(userIDs, cards.stream().map(CardDto::getOwnerID).toList());
+        assertStatements(1);
+    }
+
+    @Test
+    void adminCardsCursorPage_shouldNotLoadOwners() {
+        var page = adminCardService.getAllCardsAfter(null, OWNERS * 2, null, null, EXPIRATION_DATE);
+
+        assertEquals(OWNERS, page.items().size());
+        assertStatements(1);
+    }
+
+    @Test
+    void userCardsPage_shouldCheckUserAndSelectCards() {
+        userService.findAllUserCards(0, 10, userIDs.getFirst(), null, null);
+
+        assertStatements(2);
+    }
+
+    @Test
+    void userCardDetail_shouldSelectOnlyCard() {
+        var card = userService.findCardByID(userIDs.getFirst(), cardIDs.getFirst());
+
+        assertEquals(userIDs.getFirst(), card.getOwnerID());
+        assertStatements(1);
+    }
+
+    @Test
+    void adminCardDetail_shouldSelectOnlyCard() {
+        adminCardService.getCardById(cardIDs.getFirst());
+
+        assertStatements(1);
+    }
+
+    @Test
+    void userWithCards_shouldBeLoadedInOneStatement() {
+        int cards = transactionTemplate.execute(status ->
+                repositoryHelper.findUserEntityWithCardsByID(userIDs.getFirst()).getCards().size());
+
+        assertEquals(1, cards);
+        assertStatements(1);
+    }
+
+    private void assertStatements(long expected) {
+        assertEquals(expected, statistics.getPrepareStatementCount(),
+                () -> "Лишние запросы: " + List.of(statistics.getQueries()));
+    }
+}
@@ -0,0 +1,220 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.CardStatusRequestEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.util.FilterQueryCompiler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static com.example.bankcards.entity.enums.CardOperation.BLOCK;
+import static com.example.bankcards.entity.enums.CardOperation.DEEP_DELETE;
+import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Регрессионные тесты планов запросов для списков и фильтров.
+ * <p>
+ * Таблицы один раз на класс заполняются синтетическими данными (20 000 пользователей, 200 000 карт,
+ * 50 000 заявок) и собирается статистика. Для каждой комбинации фильтров вызывается настоящий код
+ * ({@link FilterQueryCompiler}, {@link CardRepository}), SQL, сгенерированный Hibernate, перехватывается
+ * {@link CapturedStatements} и для него выполняется {@code EXPLAIN (GENERIC_PLAN)}: в плане не должно быть
+ * последовательного сканирования. Поэтому изменение формы запроса, из-за которого он перестанет
+ * использовать индекс, тест заметит. {@code GENERIC_PLAN} строит план для запроса с параметрами
+ * без их значений (Postgres 16+, в docker-compose используется 17).
+ * </p>
+ *
+ * <p>Нужна локальная база данных из application.yml с применёнными миграциями. Данные удаляются
+ * после выполнения класса. Запускается только явно:
+ * {@code mvn test -Dtest=QueryPlanTest -DqueryPlan=true}.</p>
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SpringBootTest(properties = {
+        "spring.jpa.show-sql=false",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.bankcards.repository.CapturedStatements"
+})
+@EnabledIfSystemProperty(named = "queryPlan", matches = "true")
+class QueryPlanTest {
+    private static final int PAGE_SIZE = 10;
+    private static final LocalDate EXPIRATION_DATE = LocalDate.of(2027, 1, 1);
+    private static final LocalDateTime CREATED_DATE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private FilterQueryCompiler filterQueryCompiler;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    private long ownerID;
+    private long cardID;
+
+    @BeforeAll
+    void seed() {
+        jdbcTemplate.update("""
+                INSERT INTO users (username, password, role, enabled, created_date)
+                SELECT 'query-plan-' || g, 'query-plan', 'USER', g % 20 <> 0, ? + (g % 10000) * INTERVAL '1 minute'
+                FROM generate_series(1, 20000) g
+                """, Timestamp.valueOf(CREATED_DATE));
+        jdbcTemplate.update("""
+                INSERT INTO cards (owner_id, card_status, expiration_date, balance, number_hash)
+                SELECT u.id,
+                       CASE WHEN g = 1 THEN 'BLOCKED' WHEN g = 2 THEN 'EXPIRED' ELSE 'ACTIVE' END,
+                       ? + ((u.id + g) % 1500)::INT,
+                       1000,
+                       md5(u.username || '-' || g)
+                FROM users u CROSS JOIN generate_series(1, 10) g
+                WHERE u.username LIKE 'query-plan-%'
+                """, Date.valueOf(EXPIRATION_DATE));
+        jdbcTemplate.update("""
+                INSERT INTO card_status_request (card_id, owner_id, status, requested_at)
+                SELECT c.id, c.owner_id,
+                       CASE WHEN c.id % 40 = 0 THEN 'DEEP_DELETE' ELSE 'BLOCK' END,
+                       ? + (c.id % 20000) * INTERVAL '1 minute'
+                FROM cards c JOIN users u ON u.id = c.owner_id
+                WHERE u.username LIKE 'query-plan-%' AND c.id % 4 = 0
+                """, Timestamp.valueOf(CREATED_DATE));
+        jdbcTemplate.execute("ANALYZE users");
+        jdbcTemplate.execute("ANALYZE cards");
+        jdbcTemplate.execute("ANALYZE card_status_request");
+
+        ownerID = jdbcTemplate.queryForObject(
+                "SELECT max(id) FROM users WHERE username LIKE 'query-plan-%'", Long.class);
+        cardID = jdbcTemplate.queryForObject(
+                "SELECT max(card_id) FROM card_status_request WHERE owner_id = ?", Long.class, ownerID);
+    }
+
+    @AfterAll
+    void cleanUp() {
+        jdbcTemplate.update("""
+                DELETE FROM card_status_request
+                WHERE owner_id IN (SELECT id FROM users WHERE username LIKE 'query-plan-%')
+                """);
+        jdbcTemplate.update("DELETE FROM cards WHERE owner_id IN (SELECT id FROM users WHERE username LIKE 'query-plan-%')");
+        jdbcTemplate.update("DELETE FROM users WHERE username LIKE 'query-plan-%'");
+    }
+
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("listQueries")
+    void listQueryShouldUseIndex(String name, QueryCall call) {
+        var statements = capture(call);
+        assertFalse(statements.isEmpty(), () -> name + ": Hibernate не выполнил ни одного запроса");
+
+        for (String sql : statements) {
+            var plan = String.join("\n", jdbcTemplate.queryForList(
+                    "EXPLAIN (GENERIC_PLAN, FORMAT JSON) " + positional(sql), String.class));
+
+            assertFalse(plan.contains("\"Seq Scan\""),
+                    () -> name + " использует последовательное сканирование:\n" + sql + "\n" + plan);
+            assertTrue(plan.contains("Index"), () -> name + " не использует индекс:\n" + sql + "\n" + plan);
+        }
+    }
+
+    Stream<Arguments> listQueries() {
+        return Stream.of(
+                // GET /api/v1/users/{userID}/cards
+                cards("user cards", t -> SpecificationData.builder().ownerID(t.ownerID)),
+                cards("user cards by status", t -> SpecificationData.builder().ownerID(t.ownerID).status(BLOCKED)),
+                cards("user cards by expiration date",
+                        t -> SpecificationData.builder().ownerID(t.ownerID).expirationDate(EXPIRATION_DATE)),
+                cards("user cards after cursor", t -> SpecificationData.builder().ownerID(t.ownerID).afterID(t.cardID)),
+                // GET /api/v1/admin/cards
+                cards("cards by status", t -> SpecificationData.builder().status(BLOCKED)),
+                cards("cards by status and expiration date",
+                        t -> SpecificationData.builder().status(BLOCKED).expirationDate(EXPIRATION_DATE)),
+                cards("cards by expiration date", t -> SpecificationData.builder().expirationDate(EXPIRATION_DATE)),
+                // POST /api/v1/admin/cards/lookup
+                Arguments.of("card by number hash", (QueryCall) t -> t.cardRepository.findByNumberHash("query-plan")),
+                // GET /api/v1/admin/cards/status-requests
+                requests("requests by owner", t -> SpecificationData.builder().ownerID(t.ownerID)),
+                requests("requests by owner and operation",
+                        t -> SpecificationData.builder().ownerID(t.ownerID).statusRequest(BLOCK)),
+                requests("requests by operation", t -> SpecificationData.builder().statusRequest(DEEP_DELETE)),
+                requests("requests by operation and time",
+                        t -> SpecificationData.builder().statusRequest(BLOCK).requestedAt(CREATED_DATE)),
+                requests("requests by time", t -> SpecificationData.builder().requestedAt(CREATED_DATE)),
+                requests("requests by card", t -> SpecificationData.builder().cardID(t.cardID)),
+                // GET /api/v1/admin/users
+                users("users by enabled", t -> SpecificationData.builder().enabled(false)),
+                users("users by enabled and created date",
+                        t -> SpecificationData.builder().enabled(true).createdDate(CREATED_DATE)),
+                users("users by created date", t -> SpecificationData.builder().createdDate(CREATED_DATE))
+        );
+    }
+
+    private static Arguments cards(String name, Function<QueryPlanTest, SpecificationData.SpecificationDataBuilder> filters) {
+        return page(name, CardEntity.class, filters);
+    }
+
+    private static Arguments requests(String name, Function<QueryPlanTest, SpecificationData.SpecificationDataBuilder> filters) {
+        return page(name, CardStatusRequestEntity.class, filters);
+    }
+
+    private static Arguments users(String name, Function<QueryPlanTest, SpecificationData.SpecificationDataBuilder> filters) {
+        return page(name, UserEntity.class, filters);
+    }
+
+    /**
+     * Первая страница списка так, как её читает курсорная пагинация: {@code findFirst} с лимитом страницы.
+     */
+    private static Arguments page(String name,
+                                  Class<?> type,
+                                  Function<QueryPlanTest, SpecificationData.SpecificationDataBuilder> filters) {
+        QueryCall call = t -> t.filterQueryCompiler.findFirst(type, filters.apply(t).build(), PAGE_SIZE + 1);
+        return Arguments.of(name, call);
+    }
+
+    private List<String> capture(QueryCall call) {
+        return transactionTemplate.execute(status -> {
+            CapturedStatements.clear();
+            call.run(this);
+            return CapturedStatements.get();
+        });
+    }
+
+    /**
+     * Заменяет параметры JDBC {@code ?} на позиционные {@code $1, $2, ...}, которые понимает {@code EXPLAIN}.
+     */
+    private static String positional(String sql) {
+        var result = new StringBuilder(sql.length() + 16);
+        int parameter = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            char c = sql.charAt(i);
+            if (c == '?') {
+                result.append('$').append(++parameter);
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+
+    @FunctionalInterface
+    private interface QueryCall {
+        void run(QueryPlanTest test);
+    }
+}
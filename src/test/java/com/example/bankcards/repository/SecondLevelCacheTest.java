@@ -0,0 +1,125 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.service.AdminCardService;
+import com.example.bankcards.service.CardNumberAllocator;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static com.example.bankcards.entity.enums.CardOperation.BLOCK;
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
+import static com.example.bankcards.entity.enums.Role.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Кэш второго уровня для пользователей и карт: повторные чтения без SQL и инвалидация при изменениях.
+ *
+ * <p>Нужна локальная база данных из application.yml. Запускается вместе с {@link QueryPlanTest}:
+ * {@code mvn test -Dtest=SecondLevelCacheTest -DqueryPlan=true}.</p>
+ */
+@SpringBootTest(properties = "spring.jpa.show-sql=false")
+@EnabledIfSystemProperty(named = "queryPlan", matches = "true")
+class SecondLevelCacheTest {
+
+    @Autowired
+    private AdminCardService adminCardService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardNumberAllocator cardNumberAllocator;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+    private UserEntity user;
+    private CardEntity card;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        user = userRepository.save(UserEntity.builder()
+                .username("l2-cache-" + UUID.randomUUID())
+                .password("l2-cache")
+                .role(USER)
+                .enabled(true)
+                .build());
+        card = cardRepository.save(CardEntity.builder()
+                .number(cardNumberAllocator.allocate())
+                .owner(user)
+                .cardStatus(ACTIVE)
+                .expirationDate(LocalDate.now().plusYears(1))
+                .balance(BigDecimal.TEN)
+                .build());
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void findUserByID_shouldBeServedFromCache_afterFirstRead() {
+        userRepository.findById(user.getId());
+        long afterFirstRead = statistics.getPrepareStatementCount();
+
+        userRepository.findById(user.getId());
+
+        assertEquals(1, afterFirstRead);
+        assertEquals(afterFirstRead, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void findByNaturalUsername_shouldBeServedFromCache_afterFirstRead() {
+        userRepository.findByNaturalUsername(user.getUsername()).orElseThrow();
+        long afterFirstRead = statistics.getPrepareStatementCount();
+
+        var cached = userRepository.findByNaturalUsername(user.getUsername()).orElseThrow();
+
+        assertEquals(user.getId(), cached.getId());
+        assertEquals(afterFirstRead, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void statusChange_shouldUpdateCachedCard() {
+        adminCardService.getCardById(card.getId());
+
+        adminCardService.performOperation(card.getId(), BLOCK);
+
+        assertEquals(BLOCKED, adminCardService.getCardById(card.getId()).getCardStatus());
+    }
+
+    @Test
+    void bulkBalanceUpdate_shouldEvictCachedCard() {
+        adminCardService.getCardById(card.getId());
+
+        transactionTemplate.executeWithoutResult(status ->
+                cardRepository.creditCard(card.getId(), user.getId(), ACTIVE, BigDecimal.ONE));
+
+        assertEquals(0, new BigDecimal("11").compareTo(adminCardService.getCardById(card.getId()).getBalance()));
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.bankcards.security.crypto;
+
+import com.example.bankcards.entity.enums.CardCipherMode;
+import com.example.bankcards.entity.enums.converter.CardEncryptorConverter;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.bankcards.entity.enums.CardCipherMode.CBC;
+import static com.example.bankcards.entity.enums.CardCipherMode.GCM;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardCryptoEngineTest {
+    private static final String KEY_V1 = "12345678901234567890123456789012";
+    private static final String KEY_V2 = Base64.getEncoder().encodeToString("abcdefghijklmnopqrstuvwxyz012345".getBytes());
+    private static final String VECTOR = "1234567890123456";
+    private static final String NUMBER = "4000123412341234";
+
+    private final CardEncryptionKeys keysV1 = new CardEncryptionKeys(KEY_V1, 1, List.of());
+    private final CardEncryptionKeys keysV2 = new CardEncryptionKeys(KEY_V2, 2, List.of("1:" + KEY_V1));
+
+    @Test
+    void cbc_shouldReadValuesWrittenByPreviousImplementation() throws Exception {
+        var engine = new CbcCardCryptoEngine(keysV1, VECTOR);
+
+        String legacy = legacyEncrypt(NUMBER);
+
+        assertEquals(legacy, engine.encrypt(NUMBER));
+        assertEquals(NUMBER, engine.decrypt(legacy));
+    }
+
+    @Test
+    void gcm_shouldRoundTripWithVersionPrefixAndFreshNonce() {
+        var engine = new GcmCardCryptoEngine(keysV1);
+
+        String first = engine.encrypt(NUMBER);
+        String second = engine.encrypt(NUMBER);
+
+        assertTrue(first.startsWith("v1:"));
+        assertNotEquals(first, second);
+        assertEquals(NUMBER, engine.decrypt(first));
+        assertEquals(NUMBER, engine.decrypt(second));
+    }
+
+    @Test
+    void gcm_shouldReadValuesOfRetiredKeyVersion() {
+        String writtenWithV1 = new GcmCardCryptoEngine(keysV1).encrypt(NUMBER);
+        var engine = new GcmCardCryptoEngine(keysV2);
+
+        assertTrue(engine.encrypt(NUMBER).startsWith("v2:"));
+        assertEquals(NUMBER, engine.decrypt(writtenWithV1));
+    }
+
+    @Test
+    void gcm_shouldRejectTamperedValue() {
+        var engine = new GcmCardCryptoEngine(keysV1);
+        String value = engine.encrypt(NUMBER);
+        byte[] payload = Base64.getDecoder().decode(value.substring(3));
+        payload[payload.length - 1] ^= 1;
+
+        assertThrows(RuntimeException.class,
+                () -> engine.decrypt("v1:" + Base64.getEncoder().encodeToString(payload)));
+    }
+
+    @Test
+    void hasVersionPrefix_shouldNotMatchBase64() {
+        assertTrue(GcmCardCryptoEngine.hasVersionPrefix("v12:AAAA"));
+        assertFalse(GcmCardCryptoEngine.hasVersionPrefix("vAbC+/=="));
+        assertFalse(GcmCardCryptoEngine.hasVersionPrefix("v:AAAA"));
+        assertFalse(GcmCardCryptoEngine.hasVersionPrefix(""));
+    }
+
+    @Test
+    void converter_shouldWriteGcmAndReadBothFormats() throws Exception {
+        Map<CardCipherMode, CardCryptoEngine> engines = new EnumMap<>(CardCipherMode.class);
+        engines.put(CBC, new CbcCardCryptoEngine(keysV1, VECTOR));
+        engines.put(GCM, new GcmCardCryptoEngine(keysV1));
+        var converter = new CardEncryptorConverter(engines, GCM);
+
+        String stored = converter.convertToDatabaseColumn(NUMBER);
+
+        assertTrue(stored.startsWith("v1:"));
+        assertEquals(NUMBER, converter.convertToEntityAttribute(stored));
+        assertEquals(NUMBER, converter.convertToEntityAttribute(legacyEncrypt(NUMBER)));
+    }
+
+    @Test
+    void engines_shouldBeSafeToShareBetweenThreads() throws Exception {
+        var cbc = new CbcCardCryptoEngine(keysV1, VECTOR);
+        var gcm = new GcmCardCryptoEngine(keysV1);
+
+        var threads = new Thread[8];
+        var failures = new AtomicInteger();
+        for (int t = 0; t < threads.length; t++) {
+            int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    String number = "4000%012d".formatted(offset * 10_000L + i);
+                    if (!number.equals(cbc.decrypt(cbc.encrypt(number)))
+                            || !number.equals(gcm.decrypt(gcm.encrypt(number)))) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(0, failures.get());
+    }
+
+    /**
+     * Шифрование в том виде, в каком его выполнял {@code CardEncryptorConverter} до появления движков.
+     */
+    private static String legacyEncrypt(String number) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+        cipher.init(Cipher.ENCRYPT_MODE,
+                new SecretKeySpec(Base64.getDecoder().decode(KEY_V1), "AES"),
+                new IvParameterSpec(VECTOR.getBytes(StandardCharsets.UTF_8)));
+        return Base64.getEncoder().encodeToString(cipher.doFinal(number.getBytes(StandardCharsets.UTF_8)));
+    }
+}
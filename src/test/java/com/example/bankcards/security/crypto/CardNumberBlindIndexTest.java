@@ -0,0 +1,43 @@
+package com.example.bankcards.security.crypto;
+
+import com.example.bankcards.entity.CardEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardNumberBlindIndexTest {
+    private static final String KEY = Base64.getEncoder().encodeToString("blind-index-key-for-tests-000000".getBytes());
+    private static final String OTHER_KEY = Base64.getEncoder().encodeToString("another-blind-index-key-00000000".getBytes());
+
+    private final CardNumberBlindIndex blindIndex = new CardNumberBlindIndex(KEY);
+
+    @Test
+    void hash_shouldBeDeterministicHexAndIgnoreSeparators() {
+        String hash = blindIndex.hash("4000123412341234");
+
+        assertEquals(64, hash.length());
+        assertTrue(hash.matches("[0-9a-f]{64}"));
+        assertEquals(hash, blindIndex.hash("4000 1234 1234 1234"));
+        assertEquals(hash, blindIndex.hash("4000-1234-1234-1234"));
+        assertNotEquals(hash, blindIndex.hash("4000123412341235"));
+    }
+
+    @Test
+    void hash_shouldDependOnKey() {
+        assertNotEquals(blindIndex.hash("4000123412341234"),
+                new CardNumberBlindIndex(OTHER_KEY).hash("4000123412341234"));
+    }
+
+    @Test
+    void listener_shouldFillDerivedColumnsBeforeInsert() {
+        var card = CardEntity.builder().number("4000 1234 1234 5678").build();
+
+        new CardNumberIndexListener(blindIndex).index(card);
+
+        assertEquals(blindIndex.hash("4000123412345678"), card.getNumberHash());
+        assertEquals("5678", card.getLast4());
+        assertEquals(16, card.getNumberLength());
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CardStatusRequestEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.mapper.CardStatusMapper;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.Collection;
+import java.util.List;
+
+import static com.example.bankcards.entity.enums.CardOperation.BLOCK;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+/**
+ * Сборка списка заявок из пакетно загруженных владельцев и карт.
+ * Количество SQL-запросов проверяет {@link com.example.bankcards.repository.AdminCardRequestsStatementCountTest}.
+ */
+@ExtendWith(MockitoExtension.class)
+class AdminCardRequestsServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private RepositoryHelper repositoryHelper;
+
+    @Mock
+    private CardStatusMapper cardStatusMapper;
+
+    @InjectMocks
+    private AdminCardService adminCardService;
+
+    @Test
+    void getAllCardsRequests_shouldThrowEntityNotFound_whenCardMissing() {
+        var request = CardStatusRequestEntity.builder().id(1L).cardID(100L).ownerID(1L).status(BLOCK).build();
+
+        Mockito.when(repositoryHelper.findPage(eq(CardStatusRequestEntity.class), any(), any(Pageable.class)))
+                .thenReturn(new PageImpl<>(List.of(request)));
+        Mockito.when(userRepository.findAllById(Mockito.<Collection<Long>>any()))
+                .thenReturn(List.of(UserEntity.builder().id(1L).username("user").build()));
+        Mockito.when(cardRepository.findCardBalances(any())).thenReturn(List.of());
+
+        assertThrows(EntityNotFoundException.class,
+                () -> adminCardService.getAllCardsRequests(0, 10, null, null, null, null));
+    }
+}
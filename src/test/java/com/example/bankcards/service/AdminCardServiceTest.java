@@ -44,6 +44,9 @@ class AdminCardServiceTest {
     @Mock
     private Map<CardOperation, CardOperationHandler> cardOperationsHandler;
 
+    @Mock
+    private CardNumberAllocator cardNumberAllocator;
+
     @InjectMocks
     private AdminCardService adminCardService;
 
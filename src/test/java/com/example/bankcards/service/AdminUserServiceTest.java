@@ -15,7 +15,6 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.jpa.domain.Specification;
 
 import java.util.List;
 
@@ -36,6 +35,9 @@ class AdminUserServiceTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
     @InjectMocks
     private AdminUserService adminUserService;
 
@@ -72,8 +74,7 @@ class AdminUserServiceTest {
     @Test
     void getAllUsers_shouldReturnEmptyList_whenNoUsersFound() {
         Page<UserEntity> emptyPage = Page.empty();
-        when(repositoryHelper.getSpecificationWithParams(any())).thenReturn(mock(Specification.class));
-        when(userRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(emptyPage);
+        when(repositoryHelper.findPage(eq(UserEntity.class), any(), any(Pageable.class))).thenReturn(emptyPage);
 
         List<UserDto> result = adminUserService.getAllUsers(0, 10, null, null);
 
@@ -95,11 +96,12 @@ class AdminUserServiceTest {
 
     @Test
     void deleteUserByID_shouldDeleteUser_whenNoActiveCards() {
-        when(repositoryHelper.findUserEntityByID(1L)).thenReturn(userEntity);
+        when(repositoryHelper.findUserEntityWithCardsByID(1L)).thenReturn(userEntity);
 
         adminUserService.deleteUserByID(1L);
 
         verify(userRepository, times(1)).delete(userEntity);
+        verify(cardBalanceCache).evictAfterCommit(List.of(2L));
     }
 
     @Test
@@ -109,7 +111,7 @@ class AdminUserServiceTest {
                 .cards(List.of(activeCard))
                 .build();
 
-        when(repositoryHelper.findUserEntityByID(2L)).thenReturn(userWithActiveCard);
+        when(repositoryHelper.findUserEntityWithCardsByID(2L)).thenReturn(userWithActiveCard);
 
         CardStatusException exception = assertThrows(CardStatusException.class, () ->
                 adminUserService.deleteUserByID(2L)
@@ -117,6 +119,7 @@ class AdminUserServiceTest {
 
         assertEquals("USER_HAS_CARDS", exception.getErrorCode());
         verify(userRepository, never()).delete(any(UserEntity.class));
+        verifyNoInteractions(cardBalanceCache);
     }
 }
 
@@ -0,0 +1,155 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AsyncTransferStatusDto;
+import com.example.bankcards.dto.AsyncTransferTask;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import com.example.bankcards.exception.AsyncTransferException;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransferServiceTest {
+
+    @Mock
+    private TransferService transferService;
+
+    @InjectMocks
+    private AsyncTransferService asyncTransferService;
+
+    private static final Long USER_ID = 1L;
+    private final TransferRequestDto request = new TransferRequestDto(10L, 15L, BigDecimal.TEN);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(asyncTransferService, "partitions", 1);
+        ReflectionTestUtils.setField(asyncTransferService, "queueCapacity", 1);
+        ReflectionTestUtils.setField(asyncTransferService, "groupSize", 10);
+        ReflectionTestUtils.setField(asyncTransferService, "statusCacheSize", 100);
+
+        asyncTransferService.init();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        asyncTransferService.shutdown();
+    }
+
+    @Test
+    void submit_shouldReturnPendingAndCompleteInBackground() throws Exception {
+        var result = TransferInfoDto.builder().amount(BigDecimal.TEN).build();
+        Mockito.when(transferService.transferMoneyGroup(any())).thenAnswer(invocation -> {
+            List<AsyncTransferTask> tasks = invocation.getArgument(0);
+            return tasks.stream().map(task -> AsyncTransferStatusDto.builder()
+                    .transferID(task.transferID())
+                    .status(AsyncTransferStatus.COMPLETED)
+                    .result(result)
+                    .build()).toList();
+        });
+
+        var accepted = asyncTransferService.submit(USER_ID, request);
+        assertEquals(AsyncTransferStatus.PENDING, accepted.status());
+
+        var status = awaitStatus(accepted.transferID());
+        assertEquals(AsyncTransferStatus.COMPLETED, status.status());
+        assertEquals(result, status.result());
+    }
+
+    @Test
+    void submit_shouldThrowTooManyRequests_whenQueueFull() throws Exception {
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Mockito.when(transferService.transferMoneyGroup(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return List.of();
+        });
+
+        try {
+            asyncTransferService.submit(USER_ID, request);
+            assertTrue(started.await(5, TimeUnit.SECONDS), "Писатель должен забрать первый перевод");
+            asyncTransferService.submit(USER_ID, request);
+
+            AsyncTransferException exception = assertThrows(AsyncTransferException.class,
+                    () -> asyncTransferService.submit(USER_ID, request));
+            assertEquals(429, exception.getHttpStatus());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void getStatus_shouldThrowException_whenTransferBelongsToAnotherUser() {
+        var accepted = asyncTransferService.submit(USER_ID, request);
+
+        assertThrows(EntityNotFoundException.class, () -> asyncTransferService.getStatus(2L, accepted.transferID()));
+        assertThrows(EntityNotFoundException.class, () -> asyncTransferService.getStatus(USER_ID, UUID.randomUUID()));
+    }
+
+    @Test
+    void getStatus_shouldKeepPendingTransfers_whenMoreThanStatusCacheSizeQueued() throws Exception {
+        ReflectionTestUtils.setField(asyncTransferService, "queueCapacity", 10);
+        ReflectionTestUtils.setField(asyncTransferService, "statusCacheSize", 1);
+        asyncTransferService.shutdown();
+        asyncTransferService.init();
+
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        Mockito.when(transferService.transferMoneyGroup(any())).thenAnswer(invocation -> {
+            started.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            List<AsyncTransferTask> tasks = invocation.getArgument(0);
+            return tasks.stream().map(task -> AsyncTransferStatusDto.builder()
+                    .transferID(task.transferID())
+                    .status(AsyncTransferStatus.COMPLETED)
+                    .build()).toList();
+        });
+
+        try {
+            var first = asyncTransferService.submit(USER_ID, request);
+            assertTrue(started.await(5, TimeUnit.SECONDS), "Писатель должен забрать первый перевод");
+            var queued = List.of(
+                    asyncTransferService.submit(USER_ID, request),
+                    asyncTransferService.submit(USER_ID, request),
+                    asyncTransferService.submit(USER_ID, request)
+            );
+
+            assertEquals(AsyncTransferStatus.PENDING, asyncTransferService.getStatus(USER_ID, first.transferID()).status());
+            for (var transfer : queued) {
+                assertEquals(AsyncTransferStatus.PENDING,
+                        asyncTransferService.getStatus(USER_ID, transfer.transferID()).status());
+            }
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private AsyncTransferStatusDto awaitStatus(UUID transferID) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            var status = asyncTransferService.getStatus(USER_ID, transferID);
+            if (status.status() != AsyncTransferStatus.PENDING) {
+                return status;
+            }
+            Thread.sleep(50);
+        }
+        return fail("Перевод не был выполнен");
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.BulkCardIssueRequestDto;
+import com.example.bankcards.dto.BulkCardIssueRequestDto.OwnerCards;
+import com.example.bankcards.entity.enums.converter.CardEncryptorConverter;
+import com.example.bankcards.exception.BulkIssueException;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.crypto.CardNumberBlindIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class BulkCardIssueServiceTest {
+
+    @Mock
+    private UserRepository userRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CardNumberAllocator cardNumberAllocator;
+
+    @Mock
+    private CardEncryptorConverter cardEncryptorConverter;
+
+    @Mock
+    private CardNumberBlindIndex cardNumberBlindIndex;
+
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
+    @InjectMocks
+    private BulkCardIssueService bulkCardIssueService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(bulkCardIssueService, "expiredValue", 10);
+        ReflectionTestUtils.setField(bulkCardIssueService, "maxCards", 100);
+        ReflectionTestUtils.setField(bulkCardIssueService, "chunkSize", 3);
+        ReflectionTestUtils.setField(bulkCardIssueService, "parallelism", 2);
+        bulkCardIssueService.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkCardIssueService.shutdown();
+    }
+
+    @Test
+    void validate_shouldCheckOwnersInOneQueryAndMergeDuplicates() {
+        Mockito.when(userRepository.findExistingIDs(anyCollection())).thenReturn(List.of(1L, 2L));
+
+        var owners = bulkCardIssueService.validate(request(new OwnerCards(1L, 2), new OwnerCards(2L, 1), new OwnerCards(1L, 3)));
+
+        assertEquals(List.of(new OwnerCards(1L, 5), new OwnerCards(2L, 1)), owners);
+        Mockito.verify(userRepository).findExistingIDs(anyCollection());
+    }
+
+    @Test
+    void validate_shouldThrow_whenOwnerNotFound() {
+        Mockito.when(userRepository.findExistingIDs(anyCollection())).thenReturn(List.of(1L));
+
+        var exception = assertThrows(EntityNotFoundException.class,
+                () -> bulkCardIssueService.validate(request(new OwnerCards(1L, 1), new OwnerCards(3L, 1))));
+        assertTrue(exception.getMessage().contains("[3]"));
+    }
+
+    @Test
+    void validate_shouldThrow_whenTooManyCards() {
+        assertThrows(BulkIssueException.class,
+                () -> bulkCardIssueService.validate(request(new OwnerCards(1L, 60), new OwnerCards(2L, 41))));
+        Mockito.verifyNoInteractions(userRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void issue_shouldInsertCardsChunkByChunkAndStreamThem() throws Exception {
+        Mockito.doAnswer(invocation -> {
+            Consumer<Object> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        Mockito.when(cardNumberAllocator.allocate(anyInt())).thenAnswer(invocation -> {
+            int count = invocation.getArgument(0);
+            return IntStream.range(0, count)
+                    .mapToObj(i -> "4000 0000 0000 %04d".formatted(i))
+                    .toList();
+        });
+        Mockito.when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(1))).thenReturn(List.of(101L), List.of(151L));
+        Mockito.when(cardEncryptorConverter.convertToDatabaseColumn(anyString())).thenReturn("encrypted");
+        Mockito.when(cardNumberBlindIndex.hash(anyString())).thenAnswer(invocation -> "hash-" + invocation.getArgument(0));
+
+        var out = new ByteArrayOutputStream();
+        long issued = bulkCardIssueService.issue(List.of(new OwnerCards(1L, 4), new OwnerCards(2L, 1)), out);
+
+        assertEquals(5, issued);
+        var lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).contains("\"cardID\":101"));
+        assertTrue(lines.get(0).contains("\"number\":\"**** **** **** 0000\""));
+        assertTrue(lines.get(3).contains("\"cardID\":151"));
+        assertTrue(lines.get(4).contains("\"ownerID\":2"));
+
+        ArgumentCaptor<Collection<Object>> batches = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(jdbcTemplate, Mockito.times(2)).batchUpdate(anyString(), batches.capture(), anyInt(), any());
+        assertEquals(List.of(3, 2), batches.getAllValues().stream().map(Collection::size).toList());
+    }
+
+    @Test
+    void reserveIDs_shouldExpandSequenceValuesIntoBlocks() {
+        Mockito.when(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq(2))).thenReturn(List.of(1L, 501L));
+
+        var ids = bulkCardIssueService.reserveIDs(BulkCardIssueService.ID_ALLOCATION_SIZE + 2);
+
+        assertEquals(BulkCardIssueService.ID_ALLOCATION_SIZE + 2, ids.size());
+        assertEquals(1L, ids.get(0));
+        assertEquals(50L, ids.get(BulkCardIssueService.ID_ALLOCATION_SIZE - 1));
+        assertEquals(List.of(501L, 502L), ids.subList(BulkCardIssueService.ID_ALLOCATION_SIZE, ids.size()));
+    }
+
+    private static BulkCardIssueRequestDto request(OwnerCards... owners) {
+        return BulkCardIssueRequestDto.builder().owners(List.of(owners)).build();
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardBalanceStateDto;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGNotification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@ExtendWith(MockitoExtension.class)
+class CardBalanceCacheTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private CardBalanceCache cardBalanceCache;
+
+    private static final Long CARD_ID = 10L;
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardBalanceCache, "enabled", true);
+        ReflectionTestUtils.setField(cardBalanceCache, "size", 2);
+        ReflectionTestUtils.setField(cardBalanceCache, "ttl", Duration.ofMinutes(1));
+        ReflectionTestUtils.setField(cardBalanceCache, "notifyEnabled", true);
+        ReflectionTestUtils.setField(cardBalanceCache, "channel", "card_balance");
+        cardBalanceCache.init();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void getOrLoad_shouldLoadOnce_whenStateCached() {
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+        var state = cardBalanceCache.getOrLoad(CARD_ID, this::load);
+
+        assertEquals(1, loads.get());
+        assertEquals(BigDecimal.TEN, state.balance());
+    }
+
+    @Test
+    void getOrLoad_shouldNotCacheMissingCard() {
+        assertNull(cardBalanceCache.getOrLoad(CARD_ID, Optional::empty));
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void getOrLoad_shouldNotCacheState_whenEvictedDuringLoad() {
+        cardBalanceCache.getOrLoad(CARD_ID, () -> {
+            cardBalanceCache.evict(List.of(CARD_ID));
+            return load();
+        });
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictAfterCommit_shouldEvictAndNotify_onlyAfterCommit() {
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+        TransactionSynchronizationManager.initSynchronization();
+
+        cardBalanceCache.evictAfterCommit(List.of(CARD_ID));
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+        assertEquals(1, loads.get());
+        Mockito.verifyNoInteractions(jdbcTemplate);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+
+        assertEquals(2, loads.get());
+        Mockito.verify(jdbcTemplate).queryForObject(
+                "SELECT pg_notify(?, ?)", Object.class, "card_balance", cardBalanceCache.getNodeID() + ":10");
+    }
+
+    @Test
+    void notification_shouldEvictCard_whenSentByAnotherNode() {
+        var listener = new CardBalanceNotificationListener(null, cardBalanceCache);
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+
+        listener.handle(new PGNotification[]{notification(cardBalanceCache.getNodeID() + ":10")});
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+        assertEquals(1, loads.get());
+
+        listener.handle(new PGNotification[]{notification("another-node:10,11")});
+        cardBalanceCache.getOrLoad(CARD_ID, this::load);
+        assertEquals(2, loads.get());
+    }
+
+    private Optional<CardBalanceStateDto> load() {
+        loads.incrementAndGet();
+        return Optional.of(CardBalanceStateDto.builder()
+                .cardID(CARD_ID)
+                .ownerID(1L)
+                .cardStatus(ACTIVE)
+                .balance(BigDecimal.TEN)
+                .version(0L)
+                .build());
+    }
+
+    private static PGNotification notification(String payload) {
+        var notification = Mockito.mock(PGNotification.class);
+        Mockito.when(notification.getParameter()).thenReturn(payload);
+        return notification;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class CardLedgerServiceTest {
+
+    @Mock
+    private CardLedgerRepository cardLedgerRepository;
+
+    @Mock
+    private RepositoryHelper repositoryHelper;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @InjectMocks
+    private CardLedgerService cardLedgerService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardLedgerService, "foldChunkSize", 2);
+        Mockito.lenient().doAnswer(invocation -> {
+            Consumer<Object> action = invocation.getArgument(0);
+            action.accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+    }
+
+    @Test
+    void foldLedger_shouldFoldCardsChunkByChunk() {
+        Mockito.when(cardLedgerRepository.findFoldPendingCardIDs(2)).thenReturn(List.of(1L, 2L), List.of(3L));
+
+        cardLedgerService.foldLedger();
+
+        Mockito.verify(repositoryHelper).findCardEntitiesByIDsAndLockModeType(List.of(1L, 2L));
+        Mockito.verify(repositoryHelper).findCardEntitiesByIDsAndLockModeType(List.of(3L));
+        Mockito.verify(cardLedgerRepository).clearFoldPending(List.of(1L, 2L));
+        Mockito.verify(cardLedgerRepository).clearFoldPending(List.of(3L));
+        Mockito.verify(transactionTemplate, Mockito.times(2)).executeWithoutResult(any());
+    }
+
+    @Test
+    void foldLedger_shouldDoNothing_whenLedgerFolded() {
+        Mockito.when(cardLedgerRepository.findFoldPendingCardIDs(2)).thenReturn(List.of());
+
+        cardLedgerService.foldLedger();
+
+        Mockito.verifyNoInteractions(repositoryHelper, transactionTemplate);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CardLockManagerTest {
+
+    private CardLockManager cardLockManager;
+
+    @BeforeEach
+    void setUp() {
+        cardLockManager = new CardLockManager();
+        ReflectionTestUtils.setField(cardLockManager, "enabled", true);
+        ReflectionTestUtils.setField(cardLockManager, "stripes", 16);
+        ReflectionTestUtils.setField(cardLockManager, "timeoutMs", 100L);
+        cardLockManager.init();
+    }
+
+    @Test
+    void executeWithLocks_shouldSerializeTransfersOnSameCard() throws Exception {
+        var active = new AtomicInteger();
+        var maxActive = new AtomicInteger();
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                long otherCard = 100L + i;
+                futures.add(executor.submit(() -> cardLockManager.executeWithLocks(List.of(1L, otherCard), () -> {
+                    maxActive.accumulateAndGet(active.incrementAndGet(), Math::max);
+                    active.decrementAndGet();
+                    return 1;
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, maxActive.get(), "Переводы по одной карте должны выполняться по очереди");
+    }
+
+    @Test
+    void executeWithLocks_shouldThrowException_whenLockTimedOut() throws Exception {
+        var locked = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> cardLockManager.executeWithLocks(List.of(1L), () -> {
+                locked.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+            assertThrows(CannotAcquireLockException.class,
+                    () -> cardLockManager.executeWithLocks(List.of(1L), () -> null));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        var stats = cardLockManager.getStats(10);
+        assertEquals(1, stats.size());
+        assertEquals(1, stats.get(0).acquisitions());
+        assertEquals(1, stats.get(0).timeouts());
+    }
+
+    @Test
+    void executeWithLocks_shouldIgnoreNullAndDuplicateCardIDs() {
+        var ids = new ArrayList<Long>();
+        ids.add(1L);
+        ids.add(null);
+        ids.add(17L);
+
+        assertEquals("ok", cardLockManager.executeWithLocks(ids, () -> "ok"));
+        assertEquals(1, cardLockManager.getStats(10).size(), "Карты 1 и 17 попадают в одну полосу");
+    }
+}
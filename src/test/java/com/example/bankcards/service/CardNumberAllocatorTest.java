@@ -0,0 +1,147 @@
+package com.example.bankcards.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private CardNumberAllocator cardNumberAllocator;
+
+    /**
+     * Эмуляция таблицы {@code card_number_range}: следующий порядковый номер по BIN.
+     */
+    private final Map<String, Long> ranges = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void setUp() {
+        Mockito.lenient().when(jdbcTemplate.queryForObject(anyString(), eq(Long.class), any(), any(), any()))
+                .thenAnswer(invocation -> {
+                    String bin = invocation.getArgument(2);
+                    int size = invocation.getArgument(3);
+                    return ranges.merge(bin, (long) size, Long::sum) - size;
+                });
+        cardNumberAllocator = allocator(List.of("400000", "51000012"));
+    }
+
+    @Test
+    void allocate_shouldReturnFormattedLuhnValidNumberWithConfiguredBin() {
+        for (String number : cardNumberAllocator.allocate(10)) {
+            assertTrue(number.matches("\\d{4} \\d{4} \\d{4} \\d{4}"), number);
+
+            String digits = number.replace(" ", "");
+            assertTrue(digits.startsWith("400000") || digits.startsWith("51000012"), number);
+            assertEquals(digits.charAt(15) - '0', CardNumberAllocator.luhnCheckDigit(digits.toCharArray(), 15));
+        }
+    }
+
+    @Test
+    void luhnCheckDigit_shouldMatchKnownNumber() {
+        assertEquals(3, CardNumberAllocator.luhnCheckDigit("7992739871".toCharArray(), 10));
+    }
+
+    @Test
+    void allocate_shouldReserveOneBlockPerBlockSizeNumbers() {
+        cardNumberAllocator.allocate(250);
+
+        Mockito.verify(jdbcTemplate, Mockito.times(3)).queryForObject(anyString(), eq(Long.class), any(), any(), any());
+    }
+
+    @Test
+    void allocate_shouldNotRepeatNumbersAcrossThreads() throws Exception {
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 5_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < perThread; j++) {
+                        numbers.add(cardNumberAllocator.allocate());
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * perThread, numbers.size());
+        Mockito.verify(jdbcTemplate, Mockito.times(threads * perThread / 100))
+                .queryForObject(anyString(), eq(Long.class), any(), any(), any());
+    }
+
+    @Test
+    void allocate_shouldNotIssueSequentialAccountNumbers() {
+        ReflectionTestUtils.setField(cardNumberAllocator, "bins", List.of("400000"));
+
+        String first = cardNumberAllocator.allocate().replace(" ", "");
+        String second = cardNumberAllocator.allocate().replace(" ", "");
+
+        long delta = Math.abs(Long.parseLong(second.substring(6, 15)) - Long.parseLong(first.substring(6, 15)));
+        assertNotEquals(1L, delta);
+    }
+
+    @Test
+    void allocate_shouldNotRepeatNumbers_whenBinsReorderedOrAdded() {
+        var numbers = new HashSet<>(cardNumberAllocator.allocate(1_000));
+
+        var reconfigured = allocator(List.of("220000", "51000012", "400000"));
+        for (String number : reconfigured.allocate(1_000)) {
+            assertTrue(numbers.add(number), () -> "Номер выпущен повторно: " + number);
+        }
+    }
+
+    @Test
+    void toCardNumber_shouldDependOnlyOnBinAndIndex() {
+        assertEquals(CardNumberAllocator.toCardNumber("400000", 42), CardNumberAllocator.toCardNumber("400000", 42));
+        assertNotEquals(CardNumberAllocator.toCardNumber("400000", 42), CardNumberAllocator.toCardNumber("400000", 43));
+    }
+
+    @Test
+    void init_shouldRejectInvalidBin() {
+        ReflectionTestUtils.setField(cardNumberAllocator, "bins", List.of("4000"));
+
+        assertThrows(IllegalStateException.class, () -> cardNumberAllocator.init());
+    }
+
+    private CardNumberAllocator allocator(List<String> bins) {
+        var allocator = new CardNumberAllocator(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(allocator, "bins", bins);
+        ReflectionTestUtils.setField(allocator, "blockSize", 100);
+        allocator.init();
+        return allocator;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.CardNumberDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.security.crypto.CardNumberBlindIndex;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.*;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberBackfillServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private CardNumberBlindIndex blindIndex;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityManagerFactory entityManagerFactory;
+
+    @Mock
+    private Cache cache;
+
+    @InjectMocks
+    private CardNumberBackfillService cardNumberBackfillService;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardNumberBackfillService, "chunkSize", 10);
+        Mockito.lenient().when(transactionTemplate.execute(any())).thenAnswer(invocation -> {
+            TransactionCallback<?> callback = invocation.getArgument(0);
+            return callback.doInTransaction(null);
+        });
+        Mockito.lenient().when(entityManagerFactory.getCache()).thenReturn(cache);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void backfill_shouldMarkDuplicateNumbersSoTheyAreReportedOnce() {
+        Mockito.when(cardRepository.findCardNumbersToBackfill(0L, Limit.of(10))).thenReturn(List.of(
+                new CardNumberDto(1L, "4000 0000 0000 0001", null),
+                new CardNumberDto(2L, "4000 0000 0000 0001", null)
+        ));
+        Mockito.when(blindIndex.hash(anyString())).thenReturn("hash");
+        Mockito.when(jdbcTemplate.batchUpdate(startsWith("UPDATE cards SET last4"), anyList())).thenReturn(new int[]{1, 1});
+        Mockito.when(jdbcTemplate.batchUpdate(startsWith("UPDATE cards SET number_hash ="), anyList()))
+                .thenReturn(new int[]{1, 0});
+
+        assertEquals(2, cardNumberBackfillService.backfill());
+
+        ArgumentCaptor<List<Object[]>> conflicts = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(jdbcTemplate).batchUpdate(contains("number_hash_conflict = true"), conflicts.capture());
+        assertEquals(1, conflicts.getValue().size());
+        assertArrayEquals(new Object[]{2L}, conflicts.getValue().getFirst());
+    }
+
+    @Test
+    void backfill_shouldNotMarkAnything_whenNoDuplicates() {
+        Mockito.when(cardRepository.findCardNumbersToBackfill(0L, Limit.of(10))).thenReturn(List.of(
+                new CardNumberDto(1L, "4000 0000 0000 0001", null)
+        ));
+        Mockito.when(blindIndex.hash(anyString())).thenReturn("hash");
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[]{1});
+
+        cardNumberBackfillService.backfill();
+
+        Mockito.verify(jdbcTemplate, Mockito.never()).batchUpdate(contains("number_hash_conflict"), anyList());
+    }
+
+    @Test
+    void backfill_shouldEvictBackfilledCardsFromSecondLevelCache() {
+        Mockito.when(cardRepository.findCardNumbersToBackfill(0L, Limit.of(10))).thenReturn(List.of(
+                new CardNumberDto(1L, "4000 0000 0000 0001", "hash")
+        ));
+        Mockito.when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[0]);
+
+        cardNumberBackfillService.backfill();
+
+        Mockito.verify(cache).evict(CardEntity.class, 1L);
+    }
+
+    @Test
+    void backfill_shouldStop_whenNothingLeftToBackfill() {
+        Mockito.when(cardRepository.findCardNumbersToBackfill(0L, Limit.of(10))).thenReturn(List.of());
+
+        assertEquals(0, cardNumberBackfillService.backfill());
+        assertEquals(0, cardNumberBackfillService.backfill());
+
+        Mockito.verify(cardRepository, Mockito.times(1)).findCardNumbersToBackfill(anyLong(), any());
+    }
+}
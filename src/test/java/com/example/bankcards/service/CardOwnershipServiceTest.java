@@ -0,0 +1,126 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.exception.CardStatusException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.RepositoryHelper;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@ExtendWith(MockitoExtension.class)
+class CardOwnershipServiceTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private RepositoryHelper repositoryHelper;
+
+    @InjectMocks
+    private CardOwnershipService cardOwnershipService;
+
+    private static final Long USER_ID = 1L;
+    private static final Long CARD_ID = 10L;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cardOwnershipService, "cacheEnabled", true);
+        ReflectionTestUtils.setField(cardOwnershipService, "cacheSize", 2);
+        cardOwnershipService.init();
+    }
+
+    @Test
+    void isCardOwner_shouldQueryOnce_whenOwnershipCached() {
+        Mockito.when(cardRepository.findOwnerIDByCardID(CARD_ID)).thenReturn(Optional.of(USER_ID));
+
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+
+        Mockito.verify(cardRepository, Mockito.times(1)).findOwnerIDByCardID(CARD_ID);
+    }
+
+    @Test
+    void isCardOwner_shouldQueryAgain_whenCardEvicted() {
+        Mockito.when(cardRepository.findOwnerIDByCardID(CARD_ID)).thenReturn(Optional.of(USER_ID));
+
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+        cardOwnershipService.evictAfterCommit(CARD_ID);
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+
+        Mockito.verify(cardRepository, Mockito.times(2)).findOwnerIDByCardID(CARD_ID);
+    }
+
+    @Test
+    void evictAfterCommit_shouldKeepOwnershipCached_untilTransactionCommits() {
+        Mockito.when(cardRepository.findOwnerIDByCardID(CARD_ID)).thenReturn(Optional.of(USER_ID));
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cardOwnershipService.evictAfterCommit(CARD_ID);
+            cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+            Mockito.verify(cardRepository, Mockito.times(1)).findOwnerIDByCardID(CARD_ID);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+
+        Mockito.verify(cardRepository, Mockito.times(2)).findOwnerIDByCardID(CARD_ID);
+    }
+
+    @Test
+    void isCardOwner_shouldThrowCardStatusException_whenCardOwnedByAnotherUser() {
+        Mockito.when(cardRepository.findOwnerIDByCardID(CARD_ID)).thenReturn(Optional.of(2L));
+        Mockito.when(cardRepository.existsById(CARD_ID)).thenReturn(true);
+
+        assertThrows(CardStatusException.class, () -> cardOwnershipService.isCardOwner(USER_ID, CARD_ID));
+        assertThrows(CardStatusException.class, () -> cardOwnershipService.isCardOwner(USER_ID, CARD_ID));
+
+        Mockito.verify(cardRepository, Mockito.times(2)).findOwnerIDByCardID(CARD_ID);
+    }
+
+    @Test
+    void isCardOwner_shouldThrowEntityNotFound_whenCardMissing() {
+        Mockito.when(cardRepository.findOwnerIDByCardID(CARD_ID)).thenReturn(Optional.empty());
+        Mockito.when(cardRepository.existsById(CARD_ID)).thenReturn(false);
+
+        assertThrows(EntityNotFoundException.class, () -> cardOwnershipService.isCardOwner(USER_ID, CARD_ID));
+    }
+
+    @Test
+    void isCardOwner_shouldThrowEntityNotFound_whenUserMissing() {
+        Mockito.when(cardRepository.findOwnerIDByCardID(CARD_ID)).thenReturn(Optional.empty());
+        Mockito.doThrow(new EntityNotFoundException("user")).when(repositoryHelper).isUserExists(USER_ID);
+
+        assertThrows(EntityNotFoundException.class, () -> cardOwnershipService.isCardOwner(USER_ID, CARD_ID));
+        Mockito.verify(cardRepository, Mockito.never()).existsById(CARD_ID);
+    }
+
+    @Test
+    void findOwnedCard_shouldReturnCardAndWarmCache_whenCardOwned() {
+        var card = new CardEntity();
+        card.setId(CARD_ID);
+        Mockito.when(cardRepository.findCardEntityByCardAndUserID(CARD_ID, USER_ID)).thenReturn(Optional.of(card));
+
+        assertEquals(card, cardOwnershipService.findOwnedCard(USER_ID, CARD_ID));
+        cardOwnershipService.isCardOwner(USER_ID, CARD_ID);
+
+        Mockito.verify(cardRepository, Mockito.never()).findOwnerIDByCardID(CARD_ID);
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.mapper.CardMapper;
+import com.example.bankcards.mapper.UserMapper;
+import com.example.bankcards.util.FilterQueryCompiler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.ExportFormat.CSV;
+import static com.example.bankcards.entity.enums.ExportFormat.NDJSON;
+import static com.example.bankcards.entity.enums.Role.USER;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Проверка выгрузки без накопления строк в памяти.
+ * <p>
+ * Выгрузка миллиона строк из лениво генерируемого потока должна проходить и при маленькой куче:
+ * {@code mvn test -Dtest=ExportServiceTest -DargLine=-Xmx64m}. Если бы строки накапливались,
+ * миллион {@code CardDto} не поместился бы в 64 МБ.
+ * </p>
+ */
+@ExtendWith(MockitoExtension.class)
+class ExportServiceTest {
+    private static final int FETCH_SIZE = 1000;
+    private static final long ROWS = 1_000_000;
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private FilterQueryCompiler filterQueryCompiler;
+
+    private ExportService exportService;
+
+    @BeforeEach
+    void setUp() {
+        exportService = new ExportService(
+                entityManager,
+                filterQueryCompiler,
+                Mappers.getMapper(CardMapper.class),
+                Mappers.getMapper(UserMapper.class),
+                new ObjectMapper().findAndRegisterModules().disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+        );
+        ReflectionTestUtils.setField(exportService, "fetchSize", FETCH_SIZE);
+    }
+
+    @Test
+    void writeCards_shouldStreamMillionRowsAndClearContextPerChunk() throws Exception {
+        var out = new LineCountingOutputStream();
+
+        long rows = exportService.writeCards(syntheticCards(), NDJSON, out);
+
+        assertEquals(ROWS, rows);
+        assertEquals(ROWS, out.lines);
+        Mockito.verify(entityManager, Mockito.times((int) (ROWS / FETCH_SIZE))).clear();
+    }
+
+    @Test
+    void writeCards_shouldWriteCsvWithHeaderAndMaskedNumbers() throws Exception {
+        var out = new ByteArrayOutputStream();
+
+        exportService.writeCards(syntheticCards().limit(2), CSV, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals(3, lines.length);
+        assertEquals("cardID,ownerID,number,cardStatus,expirationDate,balance", lines[0]);
+        assertEquals("1,7,**** **** **** 0001,ACTIVE,2030-01-01,100", lines[1]);
+    }
+
+    @Test
+    void writeUsers_shouldQuoteCsvValues() throws Exception {
+        var user = UserEntity.builder().id(1L).username("ivanov, \"admin\"").role(USER).enabled(true).build();
+        var out = new ByteArrayOutputStream();
+
+        exportService.writeUsers(Stream.of(user), CSV, out);
+
+        var lines = out.toString(StandardCharsets.UTF_8).split("\r\n");
+        assertEquals("1,\"ivanov, \"\"admin\"\"\",USER,true,,", lines[1]);
+    }
+
+    private static Stream<CardEntity> syntheticCards() {
+        var owner = UserEntity.builder().id(7L).build();
+        return LongStream.rangeClosed(1, ROWS).mapToObj(id -> CardEntity.builder()
+                .id(id)
+                .owner(owner)
+                .number("4000%012d".formatted(id))
+                .cardStatus(ACTIVE)
+                .expirationDate(LocalDate.of(2030, 1, 1))
+                .balance(BigDecimal.valueOf(100))
+                .build());
+    }
+
+    /**
+     * Считает строки и отбрасывает данные, чтобы тест не держал выгрузку в памяти.
+     */
+    private static final class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                if (b[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
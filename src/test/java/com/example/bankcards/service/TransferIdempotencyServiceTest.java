@@ -0,0 +1,187 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.TransferIdempotencyEntity;
+import com.example.bankcards.exception.IdempotencyKeyException;
+import com.example.bankcards.mapper.TransferIdempotencyMapper;
+import com.example.bankcards.repository.TransferIdempotencyRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class TransferIdempotencyServiceTest {
+
+    @Mock
+    private TransferIdempotencyRepository transferIdempotencyRepository;
+
+    @Mock
+    private TransferIdempotencyMapper transferIdempotencyMapper;
+
+    @InjectMocks
+    private TransferIdempotencyService transferIdempotencyService;
+
+    private static final Long USER_ID = 1L;
+    private static final String KEY = "8b1f0c52-5a1e-4c0e-9a59-2f3c7d0f1e11";
+
+    private final TransferRequestDto request = new TransferRequestDto(10L, 15L, BigDecimal.TEN);
+    private final TransferInfoDto result = TransferInfoDto.builder().amount(BigDecimal.TEN).build();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(transferIdempotencyService, "ttl", Duration.ofHours(1));
+        ReflectionTestUtils.setField(transferIdempotencyService, "cacheSize", 100);
+        transferIdempotencyService.init();
+    }
+
+    @Test
+    void execute_shouldReturnCachedResult_whenKeyRepeated() {
+        Mockito.when(transferIdempotencyRepository.findByUserIDAndKey(USER_ID, KEY))
+                .thenReturn(Optional.empty());
+        var executions = new AtomicInteger();
+
+        var first = transferIdempotencyService.execute(USER_ID, KEY, request, () -> {
+            executions.incrementAndGet();
+            return result;
+        });
+        var second = transferIdempotencyService.execute(USER_ID, KEY, request, () -> {
+            executions.incrementAndGet();
+            return result;
+        });
+
+        assertSame(first, second, "Повтор должен вернуть результат первого перевода");
+        assertEquals(1, executions.get(), "Перевод должен выполниться один раз");
+        Mockito.verify(transferIdempotencyRepository, Mockito.times(1))
+                .findByUserIDAndKey(USER_ID, KEY);
+    }
+
+    @Test
+    void execute_shouldReturnStoredResult_whenKeyPersisted() {
+        var stored = TransferIdempotencyEntity.builder()
+                .idempotencyKey(KEY)
+                .userID(USER_ID)
+                .fromCardID(10L)
+                .toCardID(15L)
+                .amount(BigDecimal.TEN)
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build();
+
+        Mockito.when(transferIdempotencyRepository.findByUserIDAndKey(USER_ID, KEY))
+                .thenReturn(Optional.of(stored));
+        Mockito.when(transferIdempotencyMapper.toTransferInfoDto(stored)).thenReturn(result);
+
+        var actual = transferIdempotencyService.execute(USER_ID, KEY, request, () -> {
+            throw new AssertionError("Перевод не должен выполняться повторно");
+        });
+
+        assertEquals(result, actual);
+    }
+
+    @Test
+    void execute_shouldReleaseAndExecute_whenKeyExpiredButNotPurged() {
+        var expired = TransferIdempotencyEntity.builder()
+                .idempotencyKey(KEY)
+                .userID(USER_ID)
+                .fromCardID(10L)
+                .toCardID(15L)
+                .amount(BigDecimal.ONE)
+                .expiresAt(LocalDateTime.now().minusMinutes(1))
+                .build();
+
+        Mockito.when(transferIdempotencyRepository.findByUserIDAndKey(USER_ID, KEY))
+                .thenReturn(Optional.of(expired));
+        var executions = new AtomicInteger();
+
+        var actual = transferIdempotencyService.execute(USER_ID, KEY, request, () -> {
+            executions.incrementAndGet();
+            return result;
+        });
+
+        assertSame(result, actual);
+        assertEquals(1, executions.get(), "Перевод с просроченным ключом должен выполниться заново");
+        Mockito.verify(transferIdempotencyRepository).deleteExpiredKey(eq(USER_ID), eq(KEY), any());
+        Mockito.verifyNoInteractions(transferIdempotencyMapper);
+    }
+
+    @Test
+    void execute_shouldThrowException_whenKeyReusedForAnotherTransfer() {
+        Mockito.when(transferIdempotencyRepository.findByUserIDAndKey(USER_ID, KEY))
+                .thenReturn(Optional.empty());
+        transferIdempotencyService.execute(USER_ID, KEY, request, () -> result);
+
+        var anotherRequest = new TransferRequestDto(10L, 15L, BigDecimal.ONE);
+
+        IdempotencyKeyException exception = assertThrows(IdempotencyKeyException.class,
+                () -> transferIdempotencyService.execute(USER_ID, KEY, anotherRequest, () -> result));
+
+        assertEquals("IDEMPOTENCY_KEY_REUSED", exception.getErrorCode());
+    }
+
+    @Test
+    void execute_shouldCoalesceConcurrentDuplicates() throws Exception {
+        Mockito.when(transferIdempotencyRepository.findByUserIDAndKey(USER_ID, KEY))
+                .thenReturn(Optional.empty());
+
+        var executions = new AtomicInteger();
+        var started = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        int duplicates = 8;
+
+        ExecutorService executor = Executors.newFixedThreadPool(duplicates);
+        try {
+            List<Future<TransferInfoDto>> futures = new ArrayList<>();
+            futures.add(executor.submit(() -> transferIdempotencyService.execute(USER_ID, KEY, request, () -> {
+                executions.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return result;
+            })));
+
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            for (int i = 1; i < duplicates; i++) {
+                futures.add(executor.submit(() -> transferIdempotencyService.execute(USER_ID, KEY, request, () -> {
+                    executions.incrementAndGet();
+                    return result;
+                })));
+            }
+            release.countDown();
+
+            for (Future<TransferInfoDto> future : futures) {
+                assertSame(result, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(1, executions.get(), "Одновременные дубликаты должны дождаться первого перевода");
+    }
+
+    @Test
+    void execute_shouldThrowException_whenKeyBlank() {
+        assertThrows(IdempotencyKeyException.class,
+                () -> transferIdempotencyService.execute(USER_ID, " ", request, () -> result));
+    }
+}
@@ -0,0 +1,317 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.dto.AsyncTransferStatusDto;
+import com.example.bankcards.dto.AsyncTransferTask;
+import com.example.bankcards.dto.TransferInfoDto;
+import com.example.bankcards.dto.TransferRequestDto;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferBatchException;
+import com.example.bankcards.handler.GroupCommitTransferHandler;
+import com.example.bankcards.handler.TransferHandler;
+import com.example.bankcards.repository.CardBalanceSlotRepository;
+import com.example.bankcards.repository.CardLedgerRepository;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.FilterQueryCompiler;
+import com.example.bankcards.util.RepositoryHelper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.CannotSerializeTransactionException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static com.example.bankcards.entity.enums.TransferMode.PESSIMISTIC_LOCK;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@ExtendWith(MockitoExtension.class)
+class TransferServiceTest {
+
+    @Mock
+    private TransferHandler transferHandler;
+
+    @Mock
+    private GroupCommitTransferHandler groupCommitTransferHandler;
+
+    @Mock
+    private UserService userService;
+
+    @Mock
+    private TransferIdempotencyService transferIdempotencyService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
+    private TransferService transferService;
+
+    private static final Long USER_ID = 1L;
+    private static final Long CARD_A = 10L;
+    private static final Long CARD_B = 15L;
+
+    @BeforeEach
+    void setUp() {
+        transferService = transferService(transferHandler);
+    }
+
+    private TransferService transferService(TransferHandler handler) {
+        var cardLockManager = new CardLockManager();
+        ReflectionTestUtils.setField(cardLockManager, "enabled", true);
+        ReflectionTestUtils.setField(cardLockManager, "stripes", 16);
+        ReflectionTestUtils.setField(cardLockManager, "timeoutMs", 1000L);
+        cardLockManager.init();
+
+        var service = new TransferService(
+                Map.of(PESSIMISTIC_LOCK, handler),
+                userService,
+                transferIdempotencyService,
+                transactionTemplate,
+                cardLockManager,
+                cardBalanceCache
+        );
+        ReflectionTestUtils.setField(service, "transferMode", PESSIMISTIC_LOCK);
+        ReflectionTestUtils.setField(service, "maxAttempts", 3);
+        ReflectionTestUtils.setField(service, "backoffMs", 1L);
+        ReflectionTestUtils.setField(service, "batchMaxSize", 2);
+        return service;
+    }
+
+    @Test
+    void transferMoney_shouldRetry_whenDeadlockDetected() {
+        TransferRequestDto request = new TransferRequestDto(CARD_A, CARD_B, BigDecimal.TEN);
+        TransferInfoDto expected = TransferInfoDto.builder().amount(BigDecimal.TEN).build();
+
+        Mockito.when(transferHandler.transfer(USER_ID, request))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenThrow(new CannotSerializeTransactionException("could not serialize access"))
+                .thenReturn(expected);
+
+        TransferInfoDto result = transferService.transferMoney(USER_ID, request);
+
+        assertEquals(expected, result, "Перевод должен выполниться после повторных попыток");
+        Mockito.verify(transferHandler, Mockito.times(3)).transfer(USER_ID, request);
+    }
+
+    @Test
+    void transferMoney_shouldRetry_whenOptimisticLockConflict() {
+        TransferRequestDto request = new TransferRequestDto(CARD_A, CARD_B, BigDecimal.TEN);
+        TransferInfoDto expected = TransferInfoDto.builder().amount(BigDecimal.TEN).build();
+
+        Mockito.when(transferHandler.transfer(USER_ID, request))
+                .thenThrow(new ObjectOptimisticLockingFailureException(CardEntity.class, CARD_A))
+                .thenReturn(expected);
+
+        TransferInfoDto result = transferService.transferMoney(USER_ID, request);
+
+        assertEquals(expected, result, "Перевод должен выполниться после конфликта версий");
+        Mockito.verify(transferHandler, Mockito.times(2)).transfer(USER_ID, request);
+    }
+
+    @Test
+    void transferMoney_shouldRethrow_whenAttemptsExhausted() {
+        TransferRequestDto request = new TransferRequestDto(CARD_A, CARD_B, BigDecimal.TEN);
+
+        Mockito.when(transferHandler.transfer(USER_ID, request))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"));
+
+        assertThrows(CannotAcquireLockException.class,
+                () -> transferService.transferMoney(USER_ID, request),
+                "После исчерпания попыток исключение должно быть проброшено");
+        Mockito.verify(transferHandler, Mockito.times(3)).transfer(USER_ID, request);
+    }
+
+    @Test
+    void transferMoney_shouldNotRetry_whenBusinessErrorThrown() {
+        TransferRequestDto request = new TransferRequestDto(CARD_A, CARD_B, BigDecimal.TEN);
+
+        Mockito.when(transferHandler.transfer(USER_ID, request))
+                .thenThrow(new IllegalArgumentException("Сумма перевода должна быть больше 0"));
+
+        assertThrows(IllegalArgumentException.class, () -> transferService.transferMoney(USER_ID, request));
+        Mockito.verify(transferHandler, Mockito.times(1)).transfer(USER_ID, request);
+    }
+
+    @Test
+    void transferMoneyBatch_shouldReject_whenBatchEmptyOrTooLarge() {
+        var transfer = new TransferRequestDto(CARD_A, CARD_B, BigDecimal.ONE);
+
+        assertThrows(TransferBatchException.class, () -> transferService.transferMoneyBatch(USER_ID, List.of()));
+        assertThrows(TransferBatchException.class,
+                () -> transferService.transferMoneyBatch(USER_ID, List.of(transfer, transfer, transfer)));
+        Mockito.verifyNoInteractions(userService);
+    }
+
+    @Test
+    void transferMoneyBatch_shouldRetry_whenDeadlockDetected() {
+        var transfers = List.of(new TransferRequestDto(CARD_A, CARD_B, BigDecimal.ONE));
+        var expected = List.of(TransferInfoDto.builder().amount(BigDecimal.ONE).build());
+
+        Mockito.when(userService.transferMoneyBatch(USER_ID, transfers))
+                .thenThrow(new CannotAcquireLockException("deadlock detected"))
+                .thenReturn(expected);
+
+        assertEquals(expected, transferService.transferMoneyBatch(USER_ID, transfers));
+        Mockito.verify(userService, Mockito.times(2)).transferMoneyBatch(USER_ID, transfers);
+    }
+
+    /**
+     * Встречные переводы A → B и B → A блокируют карты через настоящий
+     * {@link RepositoryHelper#findCardEntitiesByIDsAndLockModeType}; репозиторий эмулирует
+     * {@code SELECT ... FOR UPDATE}, захватывая блокировки строк в порядке переданных ID.
+     * Если поток не может получить блокировку за отведённое время, это считается deadlock.
+     */
+    @Test
+    void transferMoney_shouldNotDeadlock_whenOpposingTransfersRunConcurrently() throws Exception {
+        var rowLocks = new ConcurrentHashMap<Long, ReentrantLock>();
+        var heldLocks = ThreadLocal.withInitial(ArrayDeque<ReentrantLock>::new);
+        var deadlocks = new AtomicInteger();
+        var completed = new AtomicInteger();
+
+        CardRepository cardRepository = Mockito.mock(CardRepository.class);
+        var repositoryHelper = new RepositoryHelper(
+                cardRepository,
+                Mockito.mock(UserRepository.class),
+                Mockito.mock(CardLedgerRepository.class),
+                Mockito.mock(CardBalanceSlotRepository.class),
+                Mockito.mock(FilterQueryCompiler.class)
+        );
+
+        Mockito.when(cardRepository.findCardsForUpdateOrderedByID(any())).thenAnswer(invocation -> {
+            Collection<Long> cardIDs = invocation.getArgument(0);
+            List<CardEntity> cards = new ArrayList<>();
+            for (Long cardID : cardIDs) {
+                var rowLock = rowLocks.computeIfAbsent(cardID, id -> new ReentrantLock());
+                if (!rowLock.tryLock(1, TimeUnit.SECONDS)) {
+                    deadlocks.incrementAndGet();
+                    throw new CannotAcquireLockException("deadlock detected");
+                }
+                heldLocks.get().push(rowLock);
+
+                var card = new CardEntity();
+                card.setId(cardID);
+                cards.add(card);
+            }
+            return cards;
+        });
+
+        Mockito.when(transferHandler.transfer(eq(USER_ID), any(TransferRequestDto.class))).thenAnswer(invocation -> {
+            TransferRequestDto dto = invocation.getArgument(1);
+            try {
+                Thread.sleep(1);
+                repositoryHelper.findCardEntitiesByIDsAndLockModeType(dto.fromCardId(), dto.toCardId());
+                completed.incrementAndGet();
+                return TransferInfoDto.builder().amount(dto.amount()).build();
+            } finally {
+                while (!heldLocks.get().isEmpty()) {
+                    heldLocks.get().pop().unlock();
+                }
+            }
+        });
+
+        int transfers = 400;
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<TransferInfoDto>> futures = new ArrayList<>();
+            for (int i = 0; i < transfers; i++) {
+                var request = i % 2 == 0
+                        ? new TransferRequestDto(CARD_A, CARD_B, BigDecimal.ONE)
+                        : new TransferRequestDto(CARD_B, CARD_A, BigDecimal.ONE);
+                futures.add(executor.submit(() -> transferService.transferMoney(USER_ID, request)));
+            }
+
+            for (Future<TransferInfoDto> future : futures) {
+                assertNotNull(future.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, deadlocks.get(), "Встречные переводы не должны приводить к deadlock");
+        assertEquals(transfers, completed.get(), "Все переводы должны быть выполнены");
+    }
+
+    /**
+     * Зачисления на одну карту с разных карт списания не должны ждать друг друга в {@link CardLockManager}:
+     * обработчик каждого перевода ждёт, пока внутри окажутся оба перевода.
+     */
+    @Test
+    void transferMoney_shouldRunConcurrentCreditsToSameCardInParallel() throws Exception {
+        var inside = new CountDownLatch(2);
+        Mockito.when(transferHandler.transfer(eq(USER_ID), any(TransferRequestDto.class))).thenAnswer(invocation -> {
+            inside.countDown();
+            assertTrue(inside.await(5, TimeUnit.SECONDS), "Зачисления на одну карту должны выполняться одновременно");
+            TransferRequestDto dto = invocation.getArgument(1);
+            return TransferInfoDto.builder().amount(dto.amount()).build();
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            var first = executor.submit(() -> transferService.transferMoney(
+                    USER_ID, new TransferRequestDto(CARD_A, CARD_B, BigDecimal.ONE)));
+            var second = executor.submit(() -> transferService.transferMoney(
+                    USER_ID, new TransferRequestDto(CARD_A + 1, CARD_B, BigDecimal.ONE)));
+
+            assertNotNull(first.get(10, TimeUnit.SECONDS));
+            assertNotNull(second.get(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(0, inside.getCount());
+    }
+
+    @Test
+    void transferMoneyGroup_shouldCommitGroupOnce_whenModeSupportsGroupCommit() {
+        var task = new AsyncTransferTask(UUID.randomUUID(), USER_ID, new TransferRequestDto(CARD_A, CARD_B, BigDecimal.TEN));
+        var completed = AsyncTransferStatusDto.builder()
+                .transferID(task.transferID())
+                .status(AsyncTransferStatus.COMPLETED)
+                .build();
+        Mockito.when(groupCommitTransferHandler.transferGroup(List.of(task))).thenReturn(List.of(completed));
+
+        var result = transferService(groupCommitTransferHandler).transferMoneyGroup(List.of(task));
+
+        assertEquals(List.of(completed), result);
+        Mockito.verify(groupCommitTransferHandler, Mockito.never()).transfer(any(), any());
+        Mockito.verify(cardBalanceCache).evictAfterCommit(List.of(CARD_A, CARD_B));
+    }
+
+    @Test
+    void transferMoneyGroup_shouldRunEachTransferThroughModeHandler_whenGroupCommitNotSupported() {
+        var valid = new AsyncTransferTask(UUID.randomUUID(), USER_ID, new TransferRequestDto(CARD_A, CARD_B, BigDecimal.TEN));
+        var insufficient = new AsyncTransferTask(UUID.randomUUID(), USER_ID, new TransferRequestDto(CARD_B, CARD_A, BigDecimal.TEN));
+        var expected = TransferInfoDto.builder().amount(BigDecimal.TEN).build();
+        Mockito.when(transferHandler.transfer(USER_ID, valid.request())).thenReturn(expected);
+        Mockito.when(transferHandler.transfer(USER_ID, insufficient.request())).thenThrow(
+                new InsufficientFundsException("Недостаточно средств для перевода", "INSUFFICIENT_FUNDS", 400));
+
+        var result = transferService.transferMoneyGroup(List.of(valid, insufficient));
+
+        assertEquals(AsyncTransferStatus.COMPLETED, result.get(0).status());
+        assertEquals(expected, result.get(0).result());
+        assertEquals(AsyncTransferStatus.FAILED, result.get(1).status());
+        assertEquals("INSUFFICIENT_FUNDS", result.get(1).errorCode());
+        Mockito.verifyNoInteractions(groupCommitTransferHandler);
+    }
+}
@@ -3,6 +3,9 @@ package com.example.bankcards.service;
 import com.example.bankcards.entity.CardEntity;
 import com.example.bankcards.entity.CardStatusRequestEntity;
 import com.example.bankcards.entity.UserEntity;
+import com.example.bankcards.entity.enums.AsyncTransferStatus;
+import com.example.bankcards.dto.AsyncTransferTask;
+import com.example.bankcards.dto.CardBalanceStateDto;
 import com.example.bankcards.dto.CardDto;
 import com.example.bankcards.dto.CardStatusResponse;
 import com.example.bankcards.dto.TransferRequestDto;
@@ -10,6 +13,7 @@ import com.example.bankcards.dto.TransferInfoDto;
 import com.example.bankcards.entity.enums.CardStatus;
 import com.example.bankcards.exception.CardStatusException;
 import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.TransferBatchException;
 import com.example.bankcards.mapper.CardMapper;
 import com.example.bankcards.repository.CardStatusRequestRepository;
 import com.example.bankcards.util.RepositoryHelper;
@@ -25,7 +29,10 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -44,6 +51,12 @@ class UserServiceTest {
     @Mock
     private CardMapper cardMapper;
 
+    @Mock
+    private CardOwnershipService cardOwnershipService;
+
+    @Mock
+    private CardBalanceCache cardBalanceCache;
+
     @InjectMocks
     private UserService userService;
 
@@ -87,8 +100,7 @@ class UserServiceTest {
         CardDto expectedDto = new CardDto();
         expectedDto.setCardID(CARD_ID);
 
-        Mockito.when(repositoryHelper.findUserEntityByID(USER_ID)).thenReturn(user);
-        Mockito.when(repositoryHelper.findCardEntityByID(CARD_ID)).thenReturn(activeCard);
+        Mockito.when(cardOwnershipService.findOwnedCard(USER_ID, CARD_ID)).thenReturn(activeCard);
         Mockito.when(cardMapper.toDto(activeCard)).thenReturn(expectedDto);
 
         CardDto actual = userService.findCardByID(USER_ID, CARD_ID);
@@ -129,13 +141,56 @@ class UserServiceTest {
 
     @Test
     void findUserCardBalance_shouldReturnBalance_whenCardActive() throws EntityNotFoundException {
-        Mockito.doNothing().when(repositoryHelper).isUserExists(USER_ID);
-        Mockito.when(repositoryHelper.findCardEntityByIDAndStatus(CARD_ID, ACTIVE))
-                .thenReturn(activeCard);
+        Mockito.when(repositoryHelper.findCardAvailableBalance(CARD_ID, ACTIVE))
+                .thenReturn(BigDecimal.valueOf(1000));
 
         BigDecimal balance = userService.findUserCardBalance(USER_ID, CARD_ID);
 
         assertEquals(BigDecimal.valueOf(1000), balance, "Баланс карты должен совпасть с реальным");
+        Mockito.verify(cardOwnershipService).isCardOwner(USER_ID, CARD_ID);
+    }
+
+    @Test
+    void findUserCardBalance_shouldReturnCachedBalance_whenCardOwnedAndActive() {
+        var state = CardBalanceStateDto.builder()
+                .cardID(CARD_ID)
+                .ownerID(USER_ID)
+                .cardStatus(ACTIVE)
+                .balance(BigDecimal.valueOf(500))
+                .version(1L)
+                .build();
+        Mockito.when(cardBalanceCache.getOrLoad(Mockito.eq(CARD_ID), Mockito.any())).thenReturn(state);
+
+        BigDecimal balance = userService.findUserCardBalance(USER_ID, CARD_ID);
+
+        assertEquals(BigDecimal.valueOf(500), balance, "Баланс должен быть взят из кэша");
+        Mockito.verifyNoInteractions(cardOwnershipService);
+        Mockito.verify(repositoryHelper, Mockito.never()).findCardAvailableBalance(Mockito.any(), Mockito.any());
+    }
+
+    @Test
+    void findUserCardBalance_shouldCheckOwnership_whenCachedCardBelongsToAnotherUser() {
+        var state = CardBalanceStateDto.builder()
+                .cardID(CARD_ID)
+                .ownerID(USER_ID + 1)
+                .cardStatus(ACTIVE)
+                .balance(BigDecimal.valueOf(500))
+                .version(1L)
+                .build();
+        Mockito.when(cardBalanceCache.getOrLoad(Mockito.eq(CARD_ID), Mockito.any())).thenReturn(state);
+        Mockito.doThrow(new CardStatusException("Карта не принадлежит данному пользователю!", "CARD_STATUS", 400))
+                .when(cardOwnershipService).isCardOwner(USER_ID, CARD_ID);
+
+        assertThrows(CardStatusException.class, () -> userService.findUserCardBalance(USER_ID, CARD_ID));
+    }
+
+    @Test
+    void findUserCardBalance_shouldThrowException_whenCardNotOwnedByUser() {
+        Mockito.doThrow(new CardStatusException("Карта не принадлежит данному пользователю!", "CARD_STATUS", 400))
+                .when(cardOwnershipService).isCardOwner(USER_ID, CARD_ID);
+
+        assertThrows(CardStatusException.class, () -> userService.findUserCardBalance(USER_ID, CARD_ID));
+        Mockito.verify(repositoryHelper, Mockito.never()).findCardAvailableBalance(Mockito.any(), Mockito.any());
     }
 
 
@@ -143,9 +198,8 @@ class UserServiceTest {
     void transferMoney_shouldSucceed_whenValid() {
         TransferRequestDto request = new TransferRequestDto(CARD_ID, CARD_TO_ID, BigDecimal.valueOf(200));
 
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(CARD_ID)).thenReturn(activeCard);
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(CARD_TO_ID)).thenReturn(activeCardTo);
-        Mockito.when(repositoryHelper.findUserEntityByID(USER_ID)).thenReturn(user);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_ID, CARD_TO_ID))
+                .thenReturn(Map.of(CARD_ID, activeCard, CARD_TO_ID, activeCardTo));
 
         TransferInfoDto transferInfoDto = TransferInfoDto.builder()
                 .transferDate(LocalDateTime.now())
@@ -182,8 +236,8 @@ class UserServiceTest {
     void transferMoney_shouldThrowException_whenCardNotActive() {
         TransferRequestDto request = new TransferRequestDto(CARD_ID, blockedCard.getId(), BigDecimal.valueOf(100));
 
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(CARD_ID)).thenReturn(activeCard);
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(blockedCard.getId())).thenReturn(blockedCard);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_ID, blockedCard.getId()))
+                .thenReturn(Map.of(CARD_ID, activeCard, blockedCard.getId(), blockedCard));
 
         CardStatusException exception = assertThrows(CardStatusException.class,
                 () -> userService.transferMoney(USER_ID, request));
@@ -198,11 +252,10 @@ class UserServiceTest {
 
         UserEntity anotherUser = new UserEntity();
         anotherUser.setId(2L);
-        anotherUser.setCards(List.of());
+        activeCardTo.setOwner(anotherUser);
 
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(CARD_ID)).thenReturn(activeCard);
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(activeCardTo.getId())).thenReturn(activeCardTo);
-        Mockito.when(repositoryHelper.findUserEntityByID(USER_ID)).thenReturn(anotherUser);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_ID, activeCardTo.getId()))
+                .thenReturn(Map.of(CARD_ID, activeCard, CARD_TO_ID, activeCardTo));
 
         CardStatusException exception = assertThrows(CardStatusException.class,
                 () -> userService.transferMoney(USER_ID, request));
@@ -215,9 +268,8 @@ class UserServiceTest {
     void transferMoney_shouldThrowException_whenInsufficientFunds() {
         TransferRequestDto request = new TransferRequestDto(CARD_ID, activeCardTo.getId(), BigDecimal.valueOf(2000));
 
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(CARD_ID)).thenReturn(activeCard);
-        Mockito.when(repositoryHelper.findCardEntityByIDAndLockModeType(activeCardTo.getId())).thenReturn(activeCardTo);
-        Mockito.when(repositoryHelper.findUserEntityByID(USER_ID)).thenReturn(user);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(CARD_ID, activeCardTo.getId()))
+                .thenReturn(Map.of(CARD_ID, activeCard, CARD_TO_ID, activeCardTo));
 
         InsufficientFundsException exception = assertThrows(InsufficientFundsException.class,
                 () -> userService.transferMoney(USER_ID, request));
@@ -225,4 +277,66 @@ class UserServiceTest {
         assertEquals("Недостаточно средств для перевода", exception.getMessage(),
                 "Для перевода средств баланс ");
     }
+
+    @Test
+    void transferMoneyBatch_shouldLockCardsOnceAndApplyTransfersInOrder() {
+        var transfers = List.of(
+                new TransferRequestDto(CARD_ID, CARD_TO_ID, BigDecimal.valueOf(300)),
+                new TransferRequestDto(CARD_TO_ID, CARD_ID, BigDecimal.valueOf(800)),
+                new TransferRequestDto(CARD_ID, CARD_TO_ID, BigDecimal.valueOf(100))
+        );
+
+        Mockito.doNothing().when(repositoryHelper).isUserExists(USER_ID);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(Mockito.<Collection<Long>>any()))
+                .thenReturn(Map.of(CARD_ID, activeCard, CARD_TO_ID, activeCardTo));
+
+        List<TransferInfoDto> result = userService.transferMoneyBatch(USER_ID, transfers);
+
+        assertEquals(3, result.size(), "Для каждого перевода должен быть результат");
+        assertEquals(BigDecimal.valueOf(1400), activeCard.getBalance(), "Баланс должен быть равен ожидаемому");
+        assertEquals(BigDecimal.valueOf(100), activeCardTo.getBalance(), "Баланс должен быть равен ожидаемому");
+        Mockito.verify(repositoryHelper, Mockito.times(1))
+                .findCardEntitiesByIDsAndLockModeType(Mockito.<Collection<Long>>any());
+    }
+
+    @Test
+    void transferMoneyBatch_shouldThrowException_withIndexOfFailedTransfer() {
+        var transfers = List.of(
+                new TransferRequestDto(CARD_ID, CARD_TO_ID, BigDecimal.valueOf(900)),
+                new TransferRequestDto(CARD_ID, CARD_TO_ID, BigDecimal.valueOf(200))
+        );
+
+        Mockito.doNothing().when(repositoryHelper).isUserExists(USER_ID);
+        Mockito.when(repositoryHelper.findCardEntitiesByIDsAndLockModeType(Mockito.<Collection<Long>>any()))
+                .thenReturn(Map.of(CARD_ID, activeCard, CARD_TO_ID, activeCardTo));
+
+        TransferBatchException exception = assertThrows(TransferBatchException.class,
+                () -> userService.transferMoneyBatch(USER_ID, transfers));
+
+        assertEquals("Перевод #1: Недостаточно средств для перевода", exception.getMessage());
+        assertEquals("INSUFFICIENT_FUNDS", exception.getErrorCode());
+    }
+
+    @Test
+    void transferMoneyGroup_shouldCommitValidTransfersAndRejectInvalidOnes() {
+        var completed = new AsyncTransferTask(UUID.randomUUID(), USER_ID,
+                new TransferRequestDto(CARD_ID, CARD_TO_ID, BigDecimal.valueOf(300)));
+        var insufficient = new AsyncTransferTask(UUID.randomUUID(), USER_ID,
+                new TransferRequestDto(CARD_TO_ID, CARD_ID, BigDecimal.valueOf(5000)));
+        var missingCard = new AsyncTransferTask(UUID.randomUUID(), USER_ID,
+                new TransferRequestDto(CARD_ID, 99L, BigDecimal.TEN));
+
+        Mockito.when(repositoryHelper.lockExistingCardEntities(Mockito.any()))
+                .thenReturn(Map.of(CARD_ID, activeCard, CARD_TO_ID, activeCardTo));
+
+        var result = userService.transferMoneyGroup(List.of(completed, insufficient, missingCard));
+
+        assertEquals(3, result.size(), "Для каждого перевода должен быть статус");
+        assertEquals(AsyncTransferStatus.COMPLETED, result.get(0).status());
+        assertEquals(AsyncTransferStatus.FAILED, result.get(1).status());
+        assertEquals("INSUFFICIENT_FUNDS", result.get(1).errorCode());
+        assertEquals("ENTITY_NOT_FOUND", result.get(2).errorCode());
+        assertEquals(BigDecimal.valueOf(700), activeCard.getBalance(), "Применяется только корректный перевод");
+        assertEquals(BigDecimal.valueOf(800), activeCardTo.getBalance(), "Применяется только корректный перевод");
+    }
 }
@@ -0,0 +1,143 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.dto.SpecificationData;
+import com.example.bankcards.entity.CardEntity;
+import com.example.bankcards.entity.CardStatusRequestEntity;
+import com.example.bankcards.entity.enums.CardOperation;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.Metamodel;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.example.bankcards.entity.enums.CardStatus.ACTIVE;
+import static com.example.bankcards.entity.enums.CardStatus.BLOCKED;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class FilterQueryCompilerTest {
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private Metamodel metamodel;
+
+    private FilterQueryCompiler compiler;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(entityManager.getMetamodel()).thenReturn(metamodel);
+        entity(CardEntity.class, "CardEntity",
+                "id", "number", "owner", "cardStatus", "expirationDate", "balance", "version");
+        entity(CardStatusRequestEntity.class, "CardStatusRequestEntity",
+                "id", "cardID", "ownerID", "status", "requestedAt");
+        compiler = new FilterQueryCompiler(entityManager);
+    }
+
+    @Test
+    void mask_shouldSetOneBitPerNonNullFilter() {
+        assertEquals(0, FilterQueryCompiler.mask(SpecificationData.builder().build()));
+
+        var all = SpecificationData.builder()
+                .status(ACTIVE)
+                .enabled(true)
+                .createdDate(LocalDateTime.now())
+                .ownerID(1L)
+                .expirationDate(LocalDate.now())
+                .cardID(2L)
+                .statusRequest(CardOperation.BLOCK)
+                .requestedAt(LocalDateTime.now())
+                .afterID(3L)
+                .build();
+        assertEquals((1 << FilterQueryCompiler.FILTERS.size()) - 1, FilterQueryCompiler.mask(all));
+    }
+
+    @Test
+    void template_shouldBuildJpqlWithNamedParametersSortedByID() {
+        var data = SpecificationData.builder().status(ACTIVE).ownerID(1L).afterID(10L).build();
+
+        var template = compiler.template(CardEntity.class, data);
+
+        assertEquals("SELECT e FROM CardEntity e WHERE e.cardStatus = :status AND e.owner.id = :ownerID"
+                + " AND e.id > :afterID ORDER BY e.id ASC", template.select());
+        assertEquals("SELECT COUNT(e) FROM CardEntity e WHERE e.cardStatus = :status AND e.owner.id = :ownerID"
+                + " AND e.id > :afterID", template.count());
+    }
+
+    @Test
+    void template_shouldResolveOwnerPathPerEntity() {
+        var data = SpecificationData.builder().ownerID(1L).build();
+
+        assertTrue(compiler.template(CardEntity.class, data).select().contains("e.owner.id = :ownerID"));
+        assertTrue(compiler.template(CardStatusRequestEntity.class, data).select().contains("e.ownerID = :ownerID"));
+    }
+
+    @Test
+    void template_shouldBeCompiledOncePerFilterCombination() {
+        var first = compiler.template(CardEntity.class, SpecificationData.builder().status(ACTIVE).build());
+        var second = compiler.template(CardEntity.class, SpecificationData.builder().status(BLOCKED).build());
+        compiler.template(CardEntity.class, SpecificationData.builder().status(ACTIVE).ownerID(1L).build());
+
+        assertSame(first, second);
+        assertEquals(2, compiler.cachedTemplates());
+        verify(metamodel, times(2)).entity(CardEntity.class);
+    }
+
+    @Test
+    void template_shouldThrow_whenEntityHasNoFilteredAttribute() {
+        var data = SpecificationData.builder().enabled(true).build();
+
+        assertThrows(IllegalArgumentException.class, () -> compiler.template(CardStatusRequestEntity.class, data));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void findPage_shouldBindParametersAndSkipCount_whenPageIsNotFull() {
+        TypedQuery<CardEntity> query = mock(TypedQuery.class, RETURNS_SELF);
+        var cards = List.of(CardEntity.builder().id(1L).build(), CardEntity.builder().id(2L).build());
+        when(query.getResultList()).thenReturn(cards);
+        when(entityManager.createQuery(anyString(), eq(CardEntity.class))).thenReturn(query);
+
+        var page = compiler.findPage(CardEntity.class,
+                SpecificationData.builder().status(ACTIVE).ownerID(7L).build(), PageRequest.of(0, 10));
+
+        assertEquals(cards, page.getContent());
+        assertEquals(2, page.getTotalElements());
+        verify(query).setParameter("status", ACTIVE);
+        verify(query).setParameter("ownerID", 7L);
+        verify(query).setMaxResults(10);
+        verify(entityManager, never()).createQuery(anyString(), eq(Long.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void entity(Class<?> type, String name, String... attributes) {
+        EntityType<Object> entityType = mock(EntityType.class);
+        var attributeMocks = Arrays.stream(attributes)
+                .map(attributeName -> {
+                    Attribute<Object, ?> attribute = mock(Attribute.class);
+                    lenient().when(attribute.getName()).thenReturn(attributeName);
+                    return attribute;
+                })
+                .collect(Collectors.toSet());
+
+        lenient().when(entityType.getName()).thenReturn(name);
+        lenient().doReturn(attributeMocks).when(entityType).getAttributes();
+        lenient().doReturn(entityType).when(metamodel).entity(type);
+    }
+}
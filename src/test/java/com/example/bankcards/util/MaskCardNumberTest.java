@@ -0,0 +1,114 @@
+package com.example.bankcards.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MaskCardNumberTest {
+    private static final String SEPARATORS = " -./\t";
+
+    @ParameterizedTest
+    @ValueSource(strings = {"4000123412341234", "40001234123412345", "400012341234123456", "4000123412341234567"})
+    void maskByLastFour_shouldMatchMaskOfFullNumber(String number) {
+        assertEquals(MaskCardNumber.mask(number),
+                MaskCardNumber.mask(number.substring(number.length() - 4), number.length()));
+    }
+
+    @Test
+    void maskByLastFour_shouldRejectInvalidInput() {
+        assertThrows(RuntimeException.class, () -> MaskCardNumber.mask("123", 16));
+        assertThrows(RuntimeException.class, () -> MaskCardNumber.mask("1234", 15));
+        assertThrows(RuntimeException.class, () -> MaskCardNumber.mask(null, 16));
+    }
+
+    /**
+     * Случайные номера длиной от 14 до 21 цифры с произвольными разделителями: результат и исключения
+     * должны совпадать с прежней реализацией на регулярных выражениях.
+     */
+    @Test
+    void mask_shouldMatchRegexImplementationOnRandomInputs() {
+        var random = new Random(20_240_601);
+
+        for (int run = 0; run < 50_000; run++) {
+            String number = randomNumber(random, 14 + random.nextInt(8));
+
+            String expected;
+            try {
+                expected = regexMask(number);
+            } catch (RuntimeException e) {
+                assertThrows(RuntimeException.class, () -> MaskCardNumber.mask(number), number);
+                continue;
+            }
+            assertEquals(expected, MaskCardNumber.mask(number), number);
+        }
+    }
+
+    @Test
+    void mask_shouldThrow_whenNumberIsNull() {
+        assertThrows(RuntimeException.class, () -> MaskCardNumber.mask(null));
+    }
+
+    @Test
+    void serializer_shouldMaskFullNumberAndKeepMaskedValue() throws Exception {
+        var mapper = new ObjectMapper();
+
+        assertEquals("{\"number\":\"**** **** **** 3456\"}",
+                mapper.writeValueAsString(new Holder("1234 5678 9012 3456")));
+        assertEquals("{\"number\":\"**** **** **** ***6 789\"}",
+                mapper.writeValueAsString(new Holder("**** **** **** ***6 789")));
+        assertEquals("{\"number\":null}", mapper.writeValueAsString(new Holder(null)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"*", "**** 1234", "12345", "", "**** **** **** 3456 ",
+            "****-****-****-3456", "**** **** **** **56"})
+    void serializer_shouldRedactValuesNotInMaskedFormat(String value) throws Exception {
+        assertEquals("{\"number\":\"****\"}", new ObjectMapper().writeValueAsString(new Holder(value)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {16, 17, 18, 19})
+    void isMasked_shouldAcceptOwnOutputOnly(int digits) {
+        var masked = MaskCardNumber.mask("1234567890123456789".substring(0, digits));
+
+        assertTrue(MaskCardNumber.isMasked(masked));
+        assertFalse(MaskCardNumber.isMasked(masked.replace(' ', '-')));
+        assertFalse(MaskCardNumber.isMasked(masked.substring(1)));
+        assertFalse(MaskCardNumber.isMasked("1" + masked.substring(1)));
+    }
+
+    private static String randomNumber(Random random, int digits) {
+        var number = new StringBuilder();
+        for (int i = 0; i < digits; i++) {
+            if (i > 0 && random.nextInt(5) == 0) {
+                number.append(SEPARATORS.charAt(random.nextInt(SEPARATORS.length())));
+            }
+            number.append((char) ('0' + random.nextInt(10)));
+        }
+        return number.toString();
+    }
+
+    /**
+     * Прежняя реализация {@link MaskCardNumber#mask(String)}.
+     */
+    private static String regexMask(String cardNumber) {
+        String digitsOnly = cardNumber.replaceAll("\\D", "");
+
+        if (digitsOnly.length() < 16 || digitsOnly.length() > 19) {
+            throw new RuntimeException("Invalid card number");
+        }
+
+        String maskedDigits = digitsOnly.replaceAll("\\d(?=\\d{4})", "*");
+
+        return maskedDigits.replaceAll("(.{4})(?=.)", "$1 ");
+    }
+
+    record Holder(@JsonSerialize(using = MaskedCardNumberSerializer.class) String number) {
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.exception.PaginationException;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageCursorTest {
+
+    @Test
+    void decode_shouldReturnEncodedID() {
+        assertEquals(42L, PageCursor.decode(PageCursor.encode(42L)));
+    }
+
+    @Test
+    void decode_shouldReturnNull_whenCursorAbsent() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(""));
+    }
+
+    @Test
+    void decode_shouldThrowPaginationException_whenCursorCorrupted() {
+        assertThrows(PaginationException.class, () -> PageCursor.decode("not a cursor"));
+        assertThrows(PaginationException.class, () -> PageCursor.decode("MTA"));
+    }
+
+    @Test
+    void isSizeValid_shouldThrowPaginationException_whenSizeOutOfRange() {
+        assertThrows(PaginationException.class, () -> PageCursor.isSizeValid(0));
+        assertThrows(PaginationException.class, () -> PageCursor.isSizeValid(PageCursor.MAX_PAGE_SIZE + 1));
+        assertDoesNotThrow(() -> PageCursor.isSizeValid(PageCursor.MAX_PAGE_SIZE));
+    }
+
+    @Test
+    void toPage_shouldTrimExtraRowAndReturnCursorOfLastItem() {
+        var page = PageCursor.toPage(List.of(3L, 5L, 8L), 2, Function.identity(), Function.identity());
+
+        assertEquals(List.of(3L, 5L), page.items());
+        assertEquals(5L, PageCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    void toPage_shouldReturnNoCursor_whenLastPage() {
+        var page = PageCursor.toPage(List.of(3L, 5L), 2, Function.identity(), Function.identity());
+
+        assertEquals(List.of(3L, 5L), page.items());
+        assertNull(page.nextCursor());
+    }
+}